@@ -0,0 +1,107 @@
+package com.flow.adapter;
+
+import com.flow.adapter.Model.GraphModel;
+import com.flow.adapter.Model.GraphWriter;
+import com.flow.adapter.profile.ScanProfile;
+import com.flow.adapter.scanners.CompilationUnitIndex;
+import com.flow.adapter.util.ConfigLoader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs plugins concurrently over the parsed units of a scan. Each plugin returns a fragment from
+ * {@link FlowPlugin#fragment} instead of writing to the scan's graph, and the fragments are merged
+ * in plugin order once all of them are done, so the graph is the same as running the plugins one
+ * after another. A method or endpoint that several fragments define with different attributes
+ * takes those of the last plugin and a topic keeps the first, as in a sequential run; such
+ * conflicts are logged.
+ */
+class ConcurrentPlugins {
+
+  private static final Logger logger = LoggerFactory.getLogger(ConcurrentPlugins.class);
+
+  private ConcurrentPlugins() {
+  }
+
+  /**
+   * Runs {@code plugins} on up to {@code threads} threads and merges their fragments into
+   * {@code graph}. Plugin {@code i} sees the units that matched prefilter group {@code i}. Each
+   * plugin's time is recorded under {@code phases} when {@code profile} is
+   * set.
+   */
+  static void run(List<FlowPlugin> plugins, GraphWriter graph, CompilationUnitIndex units, ConfigLoader config,
+                  int threads, ScanProfile profile, Function<FlowPlugin, String> phases) throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, plugins.size())));
+    List<GraphModel> fragments = new ArrayList<>();
+    try {
+      List<Future<GraphModel>> futures = new ArrayList<>();
+      for (int i = 0; i < plugins.size(); i++) {
+        FlowPlugin p = plugins.get(i);
+        int group = i;
+        futures.add(pool.submit(() -> {
+          long wall = System.nanoTime();
+          long cpu = ScanProfile.threadCpuNanos();
+          try {
+            return p.fragment(units.triggered(group), config);
+          } finally {
+            if (profile != null) {
+              profile.add(phases.apply(p), System.nanoTime() - wall,
+                  cpu >= 0 ? ScanProfile.threadCpuNanos() - cpu : -1);
+            }
+          }
+        }));
+      }
+      for (Future<GraphModel> f : futures) {
+        fragments.add(f.get());
+      }
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+    } finally {
+      pool.shutdownNow();
+    }
+    reportConflicts(plugins, fragments);
+    fragments.forEach(graph::merge);
+  }
+
+  private static void reportConflicts(List<FlowPlugin> plugins, List<GraphModel> fragments) {
+    Map<String, Integer> methods = new HashMap<>();
+    Map<String, Integer> endpoints = new HashMap<>();
+    Map<String, Integer> topics = new HashMap<>();
+    for (int i = 0; i < fragments.size(); i++) {
+      GraphModel fragment = fragments.get(i);
+      for (Map.Entry<String, GraphModel.MethodNode> e : fragment.methods.entrySet()) {
+        Integer prev = methods.put(e.getKey(), i);
+        if (prev != null && !fragments.get(prev).methods.get(e.getKey()).sameAttributes(e.getValue())) {
+          conflict("method", e.getKey(), plugins.get(prev), plugins.get(i), plugins.get(i));
+        }
+      }
+      for (Map.Entry<String, GraphModel.EndpointNode> e : fragment.endpoints.entrySet()) {
+        Integer prev = endpoints.put(e.getKey(), i);
+        if (prev != null && !fragments.get(prev).endpoints.get(e.getKey()).sameAttributes(e.getValue())) {
+          conflict("endpoint", e.getKey(), plugins.get(prev), plugins.get(i), plugins.get(i));
+        }
+      }
+      for (Map.Entry<String, GraphModel.TopicNode> e : fragment.topics.entrySet()) {
+        Integer first = topics.putIfAbsent(e.getKey(), i);
+        if (first != null && !Objects.equals(fragments.get(first).topics.get(e.getKey()).name, e.getValue().name)) {
+          conflict("topic", e.getKey(), plugins.get(first), plugins.get(i), plugins.get(first));
+        }
+      }
+    }
+  }
+
+  private static void conflict(String kind, String id, FlowPlugin a, FlowPlugin b, FlowPlugin kept) {
+    logger.warn("Plugins {} and {} define {} {} differently; keeping {}'s", a.getClass().getSimpleName(),
+        b.getClass().getSimpleName(), kind, id, kept.getClass().getSimpleName());
+  }
+}
@@ -1,10 +1,77 @@
 package com.flow.adapter;
 
 import com.flow.adapter.Model.GraphModel;
+import com.flow.adapter.Model.GraphWriter;
+import com.flow.adapter.diagnostics.Diagnostics;
+import com.flow.adapter.scanners.CompilationUnitIndex;
+import com.flow.adapter.scanners.SourceFilter;
 import com.flow.adapter.util.ConfigLoader;
 
 import java.nio.file.Path;
+import java.util.List;
 
 public interface FlowPlugin {
   void enrich(GraphModel model, Path srcRoot, ConfigLoader config) throws Exception;
+
+  /**
+   * Enriches the model from compilation units the core scanner has already parsed. Plugins that
+   * only need the ASTs should override this; the default falls back to a full re-scan of the
+   * source root. With a cache, only plugins that override it run per file and have their output
+   * cached; the others run once per scan over the whole source root.
+   */
+  default void enrich(GraphModel model, CompilationUnitIndex units, ConfigLoader config) throws Exception {
+    enrich(model, units.getRoot(), config);
+  }
+
+  /**
+   * Writes this plugin's nodes and edges straight into {@code graph}, which is how a scan without a
+   * cache runs plugins. The default adapts {@link #enrich(GraphModel, CompilationUnitIndex,
+   * ConfigLoader)}: the plugin enriches an empty model that is then merged into {@code graph}, so
+   * it sees only its own output, as it does per file with a cache.
+   */
+  default void contribute(GraphWriter graph, CompilationUnitIndex units, ConfigLoader config) throws Exception {
+    GraphModel model = new GraphModel();
+    enrich(model, units, config);
+    graph.merge(model);
+  }
+
+  /**
+   * Tokens at least one of which occurs in every source file this plugin can find anything in,
+   * e.g. the simple names of the annotations it looks for. The scan checks the raw bytes of each
+   * file for them before plugins run and leaves files without any out of the units this plugin
+   * gets. Empty, the default, passes every file.
+   */
+  default List<String> triggerTokens() {
+    return List.of();
+  }
+
+  /**
+   * Called before every scan with the collector the plugin should count its per-event messages
+   * (skipped files, added edges) into rather than logging them; {@link Diagnostics#isVerbose()}
+   * says whether to log them as well. The default ignores it.
+   */
+  default void useDiagnostics(Diagnostics diagnostics) {
+  }
+
+  /**
+   * Called before every scan with the scan's {@code --include} and {@code --exclude} globs. A
+   * plugin that walks the source root itself should walk only the files the filter accepts, with
+   * {@link SourceFilter#withIgnoreFile} adding the root's {@code .flowignore}, as the core scanner
+   * does. The default ignores it.
+   */
+  default void useSourceFilter(SourceFilter filter) {
+  }
+
+  /**
+   * Returns this plugin's nodes and edges as a new fragment instead of writing to the scan's graph,
+   * so several plugins can run at the same time over the same units. The units and config are
+   * shared with the other plugins and must only be read; the fragment belongs to the caller once
+   * returned. The default collects {@link #contribute} into an empty model, which also serves
+   * {@code enrich}-style plugins.
+   */
+  default GraphModel fragment(CompilationUnitIndex units, ConfigLoader config) throws Exception {
+    GraphModel fragment = new GraphModel();
+    contribute(fragment, units, config);
+    return fragment;
+  }
 }
@@ -0,0 +1,39 @@
+package com.flow.adapter;
+
+import com.flow.adapter.Model.CompactGraph;
+import com.flow.adapter.Model.GraphModel;
+import com.flow.adapter.Model.GraphModelConverter;
+import com.flow.adapter.binary.BinaryGraph;
+import com.flow.adapter.binary.BinaryGraphWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+/**
+ * Writes the unified graph in the compact binary format; read it back with {@link BinaryGraph}.
+ */
+public class GraphExporterBinary {
+
+  public void write(GraphModel m, Path out) throws IOException {
+    BinaryGraphWriter writer = new BinaryGraphWriter(m.projectId);
+    GraphModelConverter.emit(m, writer);
+    writer.writeTo(out);
+  }
+
+  public void write(CompactGraph graph, Path out) throws IOException {
+    writer(graph).writeTo(out);
+  }
+
+  /**
+   * Writes {@code graph} to {@code out} without closing it.
+   */
+  public void write(CompactGraph graph, OutputStream out) throws IOException {
+    writer(graph).writeTo(out);
+  }
+
+  private BinaryGraphWriter writer(CompactGraph graph) throws IOException {
+    BinaryGraphWriter writer = new BinaryGraphWriter(graph.getGraphId());
+    graph.emit(writer);
+    return writer;
+  }
+}
@@ -1,37 +1,154 @@
 package com.flow.adapter;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.fasterxml.jackson.annotation.JsonInclude.Value;
+import com.flow.adapter.Model.CompactGraph;
 import com.flow.adapter.Model.GraphModel;
 import com.flow.adapter.Model.UnifiedGraphModel;
 import com.flow.adapter.Model.GraphModelConverter;
+import com.flow.adapter.Model.UnifiedGraphSink;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Map;
 
 public class GraphExporterJson {
 
-  private static final ObjectMapper mapper = createMapper();
+  private static final ObjectMapper mapper = createMapper(true);
+  private static final ObjectMapper compactMapper = createMapper(false);
 
-  private static ObjectMapper createMapper() {
+  private final boolean compact;
+
+  public GraphExporterJson() {
+    this(false);
+  }
+
+  /**
+   * @param compact write without indentation or line breaks
+   */
+  public GraphExporterJson(boolean compact) {
+    this.compact = compact;
+  }
+
+  private static ObjectMapper createMapper(boolean indent) {
     ObjectMapper m = JsonMapper.builder().build();
     m.setDefaultPropertyInclusion(Value.construct(JsonInclude.Include.NON_NULL, JsonInclude.Include.NON_NULL));
-    m.enable(SerializationFeature.INDENT_OUTPUT);
+    if (indent) {
+      m.enable(SerializationFeature.INDENT_OUTPUT);
+    }
     return m;
   }
 
   /**
-   * Write legacy GraphModel in unified format (nodes + edges)
+   * Write legacy GraphModel in unified format (nodes + edges). Nodes and edges are streamed to the
+   * file as they are converted, so no {@link UnifiedGraphModel} is built; the output is the same as
+   * serializing {@link GraphModelConverter#convert}.
    */
   public void write(GraphModel m, Path out) throws IOException {
-    // Convert to unified format
-    UnifiedGraphModel unified = GraphModelConverter.convert(m);
-    mapper.writeValue(out.toFile(), unified);
+    write(out, m.projectId, sink -> GraphModelConverter.emit(m, sink));
+  }
+
+  public void write(CompactGraph graph, Path out) throws IOException {
+    write(out, graph.getGraphId(), graph::emit);
+  }
+
+  /**
+   * Writes {@code graph} to {@code out} without closing it.
+   */
+  public void write(CompactGraph graph, OutputStream out) throws IOException {
+    write(out, graph.getGraphId(), graph::emit);
+  }
+
+  private void write(Path out, String graphId, GraphSource source) throws IOException {
+    try (OutputStream os = Files.newOutputStream(out)) {
+      write(os, graphId, source);
+    }
+  }
+
+  private void write(OutputStream os, String graphId, GraphSource source) throws IOException {
+    try (JsonGenerator g = mapper().createGenerator(os).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+      StreamingSink sink = new StreamingSink(g, graphId);
+      source.emit(sink);
+      sink.finish();
+    }
   }
 
   public void writeUnified(UnifiedGraphModel m, Path out) throws IOException {
-    mapper.writeValue(out.toFile(), m);
+    mapper().writeValue(out.toFile(), m);
+  }
+
+  private ObjectMapper mapper() {
+    return compact ? compactMapper : mapper;
+  }
+
+  private interface GraphSource {
+
+    void emit(UnifiedGraphSink sink) throws IOException;
+  }
+
+  /**
+   * Writes the {@link UnifiedGraphModel} layout field by field: graphId, the nodes array, then the
+   * edges array. Null fields are skipped to match the mapper's NON_NULL inclusion.
+   */
+  private static class StreamingSink implements UnifiedGraphSink {
+
+    private final JsonGenerator g;
+    private boolean inEdges;
+
+    StreamingSink(JsonGenerator g, String graphId) throws IOException {
+      this.g = g;
+      g.writeStartObject();
+      if (graphId != null) {
+        g.writeStringField("graphId", graphId);
+      }
+      g.writeArrayFieldStart("nodes");
+    }
+
+    @Override
+    public void node(String id, String type, String name, Map<String, Object> data) throws IOException {
+      g.writeStartObject();
+      writeField("id", id);
+      writeField("type", type);
+      writeField("name", name);
+      g.writeObjectField("data", data);
+      g.writeEndObject();
+    }
+
+    @Override
+    public void edge(String id, String from, String to, String type, Map<String, Object> data) throws IOException {
+      startEdges();
+      g.writeStartObject();
+      writeField("id", id);
+      writeField("from", from);
+      writeField("to", to);
+      writeField("type", type);
+      g.writeObjectField("data", data);
+      g.writeEndObject();
+    }
+
+    void finish() throws IOException {
+      startEdges();
+      g.writeEndArray();
+      g.writeEndObject();
+    }
+
+    private void startEdges() throws IOException {
+      if (!inEdges) {
+        inEdges = true;
+        g.writeEndArray();
+        g.writeArrayFieldStart("edges");
+      }
+    }
+
+    private void writeField(String name, String value) throws IOException {
+      if (value != null) {
+        g.writeStringField(name, value);
+      }
+    }
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,394 @@
+package com.flow.adapter.Model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Immutable unified graph held in primitive arrays. Node ids are interned to ints (node {@code i}
+ * has id index {@code i}; edge endpoints that name no node get id indices after the last node),
+ * edges are {@code from}/{@code to} id indices plus an {@link EdgeType} and id number, and
+ * adjacency is kept in CSR form in both directions. Types, names and attribute strings share one
+ * string pool.
+ *
+ * <p>Build one with {@link GraphModelConverter#toCompact} (or by emitting into a {@link Builder});
+ * {@link #emit} replays it in the original order for export, and {@link #toUnified()} materializes
+ * the object view.
+ */
+public class CompactGraph {
+
+  private final String graphId;
+  private final String[] ids;
+  private final String[] strings;
+  private final int nodeCount;
+  private final int[] nodeType;
+  private final int[] nodeName;
+  private final Attributes nodeData;
+
+  private final int edgeCount;
+  private final byte[] edgeType;
+  private final int[] edgeNumber;
+  private final int[] edgeFrom;
+  private final int[] edgeTo;
+  private final Attributes edgeData;
+
+  private final int[] outStart;
+  private final int[] outEdges;
+  private final int[] inStart;
+  private final int[] inEdges;
+
+  private Map<String, Integer> idIndex;
+
+  private CompactGraph(Builder b) {
+    graphId = b.graphId;
+    ids = b.ids.toArray(new String[0]);
+    strings = b.strings.toArray(new String[0]);
+    nodeCount = b.nodeCount;
+    nodeType = Arrays.copyOf(b.nodeType, nodeCount);
+    nodeName = Arrays.copyOf(b.nodeName, nodeCount);
+    nodeData = b.nodeData.trim();
+    edgeCount = b.edgeCount;
+    edgeType = Arrays.copyOf(b.edgeType, edgeCount);
+    edgeNumber = Arrays.copyOf(b.edgeNumber, edgeCount);
+    edgeFrom = Arrays.copyOf(b.edgeFrom, edgeCount);
+    edgeTo = Arrays.copyOf(b.edgeTo, edgeCount);
+    edgeData = b.edgeData.trim();
+
+    outStart = new int[ids.length + 1];
+    outEdges = new int[edgeCount];
+    inStart = new int[ids.length + 1];
+    inEdges = new int[edgeCount];
+    fillCsr(edgeFrom, outStart, outEdges);
+    fillCsr(edgeTo, inStart, inEdges);
+  }
+
+  /**
+   * Counting sort of edge indices by endpoint; edges with no endpoint are left out.
+   */
+  private void fillCsr(int[] endpoint, int[] start, int[] adjacency) {
+    for (int e = 0; e < edgeCount; e++) {
+      if (endpoint[e] >= 0) {
+        start[endpoint[e] + 1]++;
+      }
+    }
+    for (int v = 0; v < ids.length; v++) {
+      start[v + 1] += start[v];
+    }
+    int[] next = Arrays.copyOf(start, ids.length);
+    for (int e = 0; e < edgeCount; e++) {
+      if (endpoint[e] >= 0) {
+        adjacency[next[endpoint[e]]++] = e;
+      }
+    }
+  }
+
+  public String getGraphId() {
+    return graphId;
+  }
+
+  public int nodeCount() {
+    return nodeCount;
+  }
+
+  /**
+   * Number of interned ids: every node, then edge endpoints that name no node.
+   */
+  public int idCount() {
+    return ids.length;
+  }
+
+  public String id(int index) {
+    return ids[index];
+  }
+
+  public boolean isNode(int index) {
+    return index >= 0 && index < nodeCount;
+  }
+
+  /**
+   * Id index of {@code id}, or -1. The lookup table is built on first use.
+   */
+  public int indexOf(String id) {
+    if (idIndex == null) {
+      Map<String, Integer> index = new HashMap<>(ids.length * 2);
+      for (int i = ids.length - 1; i >= 0; i--) {
+        index.put(ids[i], i);
+      }
+      idIndex = index;
+    }
+    return idIndex.getOrDefault(id, -1);
+  }
+
+  public String nodeType(int node) {
+    return string(nodeType[node]);
+  }
+
+  public String nodeName(int node) {
+    return string(nodeName[node]);
+  }
+
+  public Map<String, Object> nodeData(int node) {
+    return nodeData.get(node, strings);
+  }
+
+  public int edgeCount() {
+    return edgeCount;
+  }
+
+  public EdgeType edgeType(int edge) {
+    return EdgeType.values()[edgeType[edge]];
+  }
+
+  public String edgeId(int edge) {
+    return edgeType(edge).getIdPrefix() + edgeNumber[edge];
+  }
+
+  /**
+   * Id index of the edge source, or -1 when the edge has none.
+   */
+  public int edgeFrom(int edge) {
+    return edgeFrom[edge];
+  }
+
+  public int edgeTo(int edge) {
+    return edgeTo[edge];
+  }
+
+  public Map<String, Object> edgeData(int edge) {
+    return edgeData.get(edge, strings);
+  }
+
+  public int outDegree(int id) {
+    return outStart[id + 1] - outStart[id];
+  }
+
+  /**
+   * The {@code i}-th edge leaving {@code id}, in edge order.
+   */
+  public int outEdge(int id, int i) {
+    return outEdges[outStart[id] + i];
+  }
+
+  public int inDegree(int id) {
+    return inStart[id + 1] - inStart[id];
+  }
+
+  public int inEdge(int id, int i) {
+    return inEdges[inStart[id] + i];
+  }
+
+  /**
+   * Replays every node, then every edge, in the order they were built.
+   */
+  public void emit(UnifiedGraphSink sink) throws IOException {
+    for (int n = 0; n < nodeCount; n++) {
+      sink.node(ids[n], nodeType(n), nodeName(n), nodeData(n));
+    }
+    for (int e = 0; e < edgeCount; e++) {
+      sink.edge(edgeId(e), endpoint(edgeFrom[e]), endpoint(edgeTo[e]), edgeType(e).name(), edgeData(e));
+    }
+  }
+
+  public UnifiedGraphModel toUnified() {
+    UnifiedGraphModel unified = new UnifiedGraphModel(graphId);
+    try {
+      emit(new UnifiedGraphSink() {
+        @Override
+        public void node(String id, String type, String name, Map<String, Object> data) {
+          unified.ensureNode(id, type, name).data.putAll(data);
+        }
+
+        @Override
+        public void edge(String id, String from, String to, String type, Map<String, Object> data) {
+          Edge e = new Edge(id, from, to, type);
+          e.data.putAll(data);
+          unified.edges.add(e);
+        }
+      });
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return unified;
+  }
+
+  private String endpoint(int index) {
+    return index >= 0 ? ids[index] : null;
+  }
+
+  private String string(int index) {
+    return index >= 0 ? strings[index] : null;
+  }
+
+  /**
+   * Collects a graph streamed from {@link GraphModelConverter#emit}. Nodes must all arrive before
+   * the first edge, node ids must be unique, and edge ids must be their type's prefix followed by
+   * a number.
+   */
+  public static class Builder implements UnifiedGraphSink {
+
+    private final String graphId;
+    private final List<String> ids = new ArrayList<>();
+    private final Map<String, Integer> idIndex = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, Integer> stringIndex = new HashMap<>();
+
+    private int nodeCount;
+    private int[] nodeType = new int[256];
+    private int[] nodeName = new int[256];
+    private final Attributes nodeData = new Attributes();
+
+    private int edgeCount;
+    private byte[] edgeType = new byte[256];
+    private int[] edgeNumber = new int[256];
+    private int[] edgeFrom = new int[256];
+    private int[] edgeTo = new int[256];
+    private final Attributes edgeData = new Attributes();
+
+    public Builder(String graphId) {
+      this.graphId = graphId;
+    }
+
+    @Override
+    public void node(String id, String type, String name, Map<String, Object> data) {
+      if (edgeCount > 0) {
+        throw new IllegalStateException("Node " + id + " added after edges");
+      }
+      if (idIndex.putIfAbsent(id, ids.size()) != null) {
+        throw new IllegalArgumentException("Duplicate node id: " + id);
+      }
+      ids.add(id);
+      if (nodeCount == nodeType.length) {
+        nodeType = Arrays.copyOf(nodeType, nodeCount * 2);
+        nodeName = Arrays.copyOf(nodeName, nodeCount * 2);
+      }
+      nodeType[nodeCount] = intern(type);
+      nodeName[nodeCount] = intern(name);
+      nodeData.add(nodeCount, data, this::intern);
+      nodeCount++;
+    }
+
+    @Override
+    public void edge(String id, String from, String to, String type, Map<String, Object> data) {
+      EdgeType edgeKind = EdgeType.valueOf(type);
+      if (id == null || !id.startsWith(edgeKind.getIdPrefix())) {
+        throw new IllegalArgumentException("Edge id " + id + " does not match type " + type);
+      }
+      int number = Integer.parseInt(id.substring(edgeKind.getIdPrefix().length()));
+      if (edgeCount == edgeType.length) {
+        int capacity = edgeCount * 2;
+        edgeType = Arrays.copyOf(edgeType, capacity);
+        edgeNumber = Arrays.copyOf(edgeNumber, capacity);
+        edgeFrom = Arrays.copyOf(edgeFrom, capacity);
+        edgeTo = Arrays.copyOf(edgeTo, capacity);
+      }
+      edgeType[edgeCount] = (byte) edgeKind.ordinal();
+      edgeNumber[edgeCount] = number;
+      edgeFrom[edgeCount] = internId(from);
+      edgeTo[edgeCount] = internId(to);
+      edgeData.add(edgeCount, data, this::intern);
+      edgeCount++;
+    }
+
+    public CompactGraph build() {
+      return new CompactGraph(this);
+    }
+
+    private int internId(String id) {
+      if (id == null) {
+        return -1;
+      }
+      return idIndex.computeIfAbsent(id, k -> {
+        ids.add(k);
+        return ids.size() - 1;
+      });
+    }
+
+    private int intern(String s) {
+      if (s == null) {
+        return -1;
+      }
+      return stringIndex.computeIfAbsent(s, k -> {
+        strings.add(k);
+        return strings.size() - 1;
+      });
+    }
+  }
+
+  /**
+   * Attribute maps for a dense range of owners (nodes or edges), flattened into parallel arrays.
+   * String values are pooled; ints are stored inline; anything else (lists) is kept as an object.
+   */
+  private static class Attributes {
+
+    private static final byte STRING = 0;
+    private static final byte INT = 1;
+    private static final byte OBJECT = 2;
+
+    private int[] start = new int[257];
+    private int[] keys = new int[256];
+    private int[] values = new int[256];
+    private byte[] tags = new byte[256];
+    private int size;
+    private final List<Object> objects = new ArrayList<>();
+
+    void add(int owner, Map<String, Object> data, ToIntFunction<String> intern) {
+      if (owner + 2 > start.length) {
+        start = Arrays.copyOf(start, start.length * 2);
+      }
+      for (Map.Entry<String, Object> e : data.entrySet()) {
+        Object value = e.getValue();
+        if (value == null) {
+          continue;
+        }
+        if (size == keys.length) {
+          keys = Arrays.copyOf(keys, size * 2);
+          values = Arrays.copyOf(values, size * 2);
+          tags = Arrays.copyOf(tags, size * 2);
+        }
+        keys[size] = intern.applyAsInt(e.getKey());
+        if (value instanceof String) {
+          tags[size] = STRING;
+          values[size] = intern.applyAsInt((String) value);
+        } else if (value instanceof Integer) {
+          tags[size] = INT;
+          values[size] = (Integer) value;
+        } else {
+          tags[size] = OBJECT;
+          values[size] = objects.size();
+          objects.add(value);
+        }
+        size++;
+      }
+      start[owner + 1] = size;
+    }
+
+    Attributes trim() {
+      keys = Arrays.copyOf(keys, size);
+      values = Arrays.copyOf(values, size);
+      tags = Arrays.copyOf(tags, size);
+      return this;
+    }
+
+    Map<String, Object> get(int owner, String[] strings) {
+      Map<String, Object> data = new LinkedHashMap<>();
+      for (int i = start[owner]; i < start[owner + 1]; i++) {
+        Object value;
+        if (tags[i] == STRING) {
+          value = strings[values[i]];
+        } else if (tags[i] == INT) {
+          value = values[i];
+        } else {
+          value = objects.get(values[i]);
+        }
+        data.put(strings[keys[i]], value);
+      }
+      return data;
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package com.flow.adapter.Model;
+
+/**
+ * Edge types of the unified graph. Each type has a fixed id prefix; converted edges are
+ * identified by that prefix and a number, e.g. {@code e-call-12}.
+ */
+public enum EdgeType {
+  CALL("e-call-"),
+  HANDLES("e-endpoint-"),
+  PRODUCES("e-produces-"),
+  CONSUMES("e-consumes-"),
+  DEFINES("e-method-class-"),
+  BELONGS_TO("e-class-service-");
+
+  private final String idPrefix;
+
+  EdgeType(String idPrefix) {
+    this.idPrefix = idPrefix;
+  }
+
+  public String getIdPrefix() {
+    return idPrefix;
+  }
+}
@@ -1,11 +1,13 @@
 package com.flow.adapter.Model;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
-public class GraphModel {
+public class GraphModel implements GraphWriter {
 
   public String projectId, schema;
   public Map<String, MethodNode> methods = new LinkedHashMap<>();
@@ -15,6 +17,9 @@ public class GraphModel {
   public java.util.List<EndpointEdge> endpointEdges = new java.util.ArrayList<>();
   public java.util.List<MessagingEdge> messaging = new java.util.ArrayList<>();
 
+  // from + '\n' + to -> edge in calls; rebuilt when calls was filled directly (e.g. by Jackson)
+  private final Map<String, CallEdge> callIndex = new HashMap<>();
+
   public MethodNode ensureMethod(String id) {
     return methods.computeIfAbsent(id, k -> new MethodNode());
   }
@@ -23,6 +28,34 @@ public class GraphModel {
     return endpoints.computeIfAbsent(id, k -> new EndpointNode());
   }
 
+  @Override
+  public void addMethod(String id, String className, String methodName, String signature, String visibility,
+                        String packageName, String moduleName) {
+    MethodNode node = ensureMethod(id);
+    node.id = id;
+    node.className = className;
+    node.methodName = methodName;
+    node.signature = signature;
+    node.visibility = visibility;
+    node.packageName = packageName;
+    node.moduleName = moduleName;
+  }
+
+  @Override
+  public void addEndpoint(String id, String httpMethod, String path, List<String> produces, List<String> consumes) {
+    EndpointNode node = ensureEndpoint(id);
+    node.id = id;
+    node.httpMethod = httpMethod;
+    node.path = path;
+    node.produces = produces;
+    node.consumes = consumes;
+  }
+
+  @Override
+  public String addTopic(String name) {
+    return ensureTopic(name).id;
+  }
+
   public TopicNode ensureTopic(String name) {
     // Normalize name: callers might accidentally pass a name already prefixed with "topic:".
     String cleanName = (name != null && name.startsWith("topic:")) ? name.substring(6) : name;
@@ -35,7 +68,101 @@ public class GraphModel {
     });
   }
 
+  /**
+   * Merges a fragment produced for a single file into this model. Nodes keep their first insertion
+   * position and take the fragment's field values, matching what a sequential scan writing straight
+   * into this model would have produced. Nodes are copied, so the fragment is left unchanged and
+   * can be merged again later (e.g. from an in-memory cache).
+   */
+  @Override
+  public void merge(GraphModel fragment) {
+    fragment.methods.forEach((id, node) -> {
+      MethodNode target = ensureMethod(id);
+      if (target != node) {
+        target.id = node.id;
+        target.className = node.className;
+        target.methodName = node.methodName;
+        target.signature = node.signature;
+        target.visibility = node.visibility;
+        target.packageName = node.packageName;
+        target.moduleName = node.moduleName;
+      }
+    });
+    fragment.endpoints.forEach((id, node) -> {
+      EndpointNode target = ensureEndpoint(id);
+      if (target != node) {
+        target.id = node.id;
+        target.httpMethod = node.httpMethod;
+        target.path = node.path;
+        target.produces = node.produces;
+        target.consumes = node.consumes;
+      }
+    });
+    fragment.topics.forEach(topics::putIfAbsent);
+    fragment.calls.forEach(call -> mergeCall(call.from, call.to, call.count, call.lines, call.confidence));
+    endpointEdges.addAll(fragment.endpointEdges);
+    messaging.addAll(fragment.messaging);
+  }
+
+  /**
+   * Records a call site. Calls between the same pair of methods share one edge whose
+   * {@code count} is the number of call sites; {@code line} is appended to its {@code lines}
+   * when non-null.
+   */
+  public CallEdge addCall(String fromId, String toId, Integer line) {
+    return addCall(fromId, toId, line, null);
+  }
+
+  /**
+   * Records a call site whose target was found with {@code confidence} (see
+   * {@link CallEdge#confidence}).
+   */
+  public CallEdge addCall(String fromId, String toId, Integer line, String confidence) {
+    return mergeCall(fromId, toId, 1, line != null ? List.of(line) : null, confidence);
+  }
+
+  @Override
+  public void addCall(String fromId, String toId, int count, List<Integer> lines, String confidence) {
+    mergeCall(fromId, toId, count, lines, confidence);
+  }
+
+  private CallEdge mergeCall(String fromId, String toId, int count, List<Integer> lines, String confidence) {
+    if (callIndex.size() != calls.size()) {
+      callIndex.clear();
+      calls.forEach(c -> callIndex.putIfAbsent(c.from + '\n' + c.to, c));
+    }
+    CallEdge edge = callIndex.get(fromId + '\n' + toId);
+    if (edge == null) {
+      edge = new CallEdge();
+      edge.from = fromId;
+      edge.to = toId;
+      edge.count = 0;
+      edge.confidence = confidence;
+      callIndex.put(fromId + '\n' + toId, edge);
+      calls.add(edge);
+    } else {
+      edge.confidence = CallEdge.stronger(edge.confidence, confidence);
+    }
+    edge.count += count;
+    if (lines != null) {
+      if (edge.lines == null) {
+        edge.lines = new ArrayList<>();
+      }
+      edge.lines.addAll(lines);
+    }
+    return edge;
+  }
+
+  @Override
+  public void addEndpointEdge(String endpointId, String methodId) {
+    EndpointEdge e = new EndpointEdge();
+    e.fromEndpoint = endpointId;
+    e.toMethod = methodId;
+    endpointEdges.add(e);
+  }
+
   // Helper to add messaging edges in a canonical way
+  @Override
   public void addMessagingEdge(String fromMethodId, String toTopicId, String kind) {
     MessagingEdge e = new MessagingEdge();
     e.from = fromMethodId;
@@ -47,6 +174,15 @@ public class GraphModel {
   public static class MethodNode {
 
     public String id, className, methodName, signature, visibility, packageName, moduleName;
+
+    /**
+     * Whether {@code other} has the same attributes, ignoring the id.
+     */
+    public boolean sameAttributes(MethodNode other) {
+      return Objects.equals(className, other.className) && Objects.equals(methodName, other.methodName)
+          && Objects.equals(signature, other.signature) && Objects.equals(visibility, other.visibility)
+          && Objects.equals(packageName, other.packageName) && Objects.equals(moduleName, other.moduleName);
+    }
   }
 
   public static class EndpointNode {
@@ -55,6 +191,14 @@ public class GraphModel {
     // allow multiple media types
     public java.util.List<String> produces;
     public java.util.List<String> consumes;
+
+    /**
+     * Whether {@code other} has the same attributes, ignoring the id.
+     */
+    public boolean sameAttributes(EndpointNode other) {
+      return Objects.equals(httpMethod, other.httpMethod) && Objects.equals(path, other.path)
+          && Objects.equals(produces, other.produces) && Objects.equals(consumes, other.consumes);
+    }
   }
 
   public static class TopicNode {
@@ -65,6 +209,26 @@ public class GraphModel {
   public static class CallEdge {
 
     public String from, to, kind = "calls";
+    // number of call sites collapsed into this edge, and their line numbers when recorded
+    public int count = 1;
+    public List<Integer> lines;
+    // how the target was found when not by the symbol solver: CONFIDENCE_HIGH or CONFIDENCE_LOW
+    public String confidence;
+
+    public static final String CONFIDENCE_HIGH = "high";
+    public static final String CONFIDENCE_LOW = "low";
+
+    /**
+     * Confidence of an edge whose call sites were found with {@code a} and {@code b}: one site the
+     * symbol solver resolved ({@code null}) settles the edge, otherwise the stronger heuristic
+     * wins.
+     */
+    public static String stronger(String a, String b) {
+      if (a == null || b == null) {
+        return null;
+      }
+      return CONFIDENCE_HIGH.equals(a) || CONFIDENCE_HIGH.equals(b) ? CONFIDENCE_HIGH : CONFIDENCE_LOW;
+    }
   }
 
   public static class EndpointEdge {
@@ -1,40 +1,81 @@
 package com.flow.adapter.Model;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
 public class GraphModelConverter {
 
-  private static final String CALL_EDGE_TYPE = "CALL";
-  private static final String HANDLES_EDGE_TYPE = "HANDLES";
-  private static final String PRODUCES_EDGE_TYPE = "PRODUCES";
-  private static final String CONSUMES_EDGE_TYPE = "CONSUMES";
+  private static final String CALL_EDGE_TYPE = EdgeType.CALL.name();
+  private static final String HANDLES_EDGE_TYPE = EdgeType.HANDLES.name();
+  private static final String DEFINES_EDGE_TYPE = EdgeType.DEFINES.name();
+  private static final String BELONGS_TO_EDGE_TYPE = EdgeType.BELONGS_TO.name();
 
   public static UnifiedGraphModel convert(GraphModel legacy) {
     UnifiedGraphModel unified = new UnifiedGraphModel(legacy.projectId);
+    try {
+      emit(legacy, new UnifiedModelSink(unified));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return unified;
+  }
 
-    Map<String, GraphModel.MethodNode> normalizedMethods = deduplicateMethods(legacy);
-    Map<String, String> classToServiceMap = addMethodNodes(unified, normalizedMethods);
-
-    addEndpointNodes(unified, legacy);
-    addTopicNodes(unified, legacy);
-    addClassAndServiceNodes(unified, classToServiceMap);
+  /**
+   * Converts straight into the array-backed {@link CompactGraph}, without per-node or per-edge
+   * objects.
+   */
+  public static CompactGraph toCompact(GraphModel legacy) {
+    CompactGraph.Builder builder = new CompactGraph.Builder(legacy.projectId);
+    try {
+      emit(legacy, builder);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return builder.build();
+  }
 
-    addCallEdges(unified, legacy);
-    addEndpointEdges(unified, legacy);
-    addMessagingEdges(unified, legacy);
-    addMethodToClassEdges(unified, normalizedMethods);
+  /**
+   * Streams the unified form of {@code legacy} into {@code sink}: every node first, then every
+   * edge. Only per-method and per-class lookup tables are built; edges are converted one at a time
+   * straight from the legacy lists.
+   */
+  public static void emit(GraphModel legacy, UnifiedGraphSink sink) throws IOException {
+    Map<String, GraphModel.MethodNode> normalizedMethods = deduplicateMethods(legacy.methods);
+    Map<String, String> classToServiceMap = addNodes(sink, normalizedMethods, legacy.endpoints, legacy.topics);
+
+    EdgeCounter edges = new EdgeCounter();
+    addClassToServiceEdges(sink, classToServiceMap, edges);
+    addCallEdges(sink, legacy, edges);
+    addEndpointEdges(sink, legacy, edges);
+    addMessagingEdges(sink, legacy, edges);
+    addMethodToClassEdges(sink, normalizedMethods, edges);
+  }
 
-    return unified;
+  /**
+   * Emits every node: methods, endpoints, topics, then the classes and services the methods
+   * belong to. Returns the class to service map the structural edges are built from.
+   */
+  static Map<String, String> addNodes(UnifiedGraphSink sink, Map<String, GraphModel.MethodNode> normalizedMethods,
+                                      Map<String, GraphModel.EndpointNode> endpoints,
+                                      Map<String, GraphModel.TopicNode> topics) throws IOException {
+    Map<String, String> classToServiceMap = addMethodNodes(sink, normalizedMethods);
+
+    addEndpointNodes(sink, endpoints);
+    addTopicNodes(sink, topics);
+    addClassAndServiceNodes(sink, classToServiceMap);
+    return classToServiceMap;
   }
 
-  private static Map<String, GraphModel.MethodNode> deduplicateMethods(GraphModel legacy) {
+  static Map<String, GraphModel.MethodNode> deduplicateMethods(Map<String, GraphModel.MethodNode> methods) {
     Set<String> processedIds = new HashSet<>();
     Map<String, GraphModel.MethodNode> normalizedMethods = new HashMap<>();
 
-    for (GraphModel.MethodNode method : legacy.methods.values()) {
+    for (GraphModel.MethodNode method : methods.values()) {
       String normalizedId = SignatureNormalizer.createNormalizedMethodId(
           method.className, method.methodName, method.signature);
 
@@ -46,8 +87,8 @@ public class GraphModelConverter {
     return normalizedMethods;
   }
 
-  private static Map<String, String> addMethodNodes(UnifiedGraphModel unified,
-                                                     Map<String, GraphModel.MethodNode> methods) {
+  private static Map<String, String> addMethodNodes(UnifiedGraphSink sink,
+                                                     Map<String, GraphModel.MethodNode> methods) throws IOException {
     Map<String, String> classToServiceMap = new HashMap<>();
 
     for (Map.Entry<String, GraphModel.MethodNode> entry : methods.entrySet()) {
@@ -57,7 +98,7 @@ public class GraphModelConverter {
       ClassInfo classInfo = extractClassInfo(method);
       String normalizedSig = normalizeSignature(method.signature);
 
-      unified.addMethod(normalizedId, method.methodName, method.visibility,
+      addMethodNode(sink, normalizedId, method.methodName, method.visibility,
           classInfo.className, classInfo.packageName, method.moduleName, normalizedSig);
 
       if (classInfo.isValid()) {
@@ -69,6 +110,24 @@ public class GraphModelConverter {
     return classToServiceMap;
   }
 
+  private static void addMethodNode(UnifiedGraphSink sink, String methodId, String methodName, String visibility,
+                                    String className, String packageName, String moduleName, String signature)
+      throws IOException {
+    String type = "private".equals(visibility) ? "PRIVATE_METHOD" : "METHOD";
+    String displayName = className != null ? className + "." + methodName : methodName;
+    Map<String, Object> data = new LinkedHashMap<>();
+    data.put("visibility", visibility);
+    data.put("className", className);
+    data.put("packageName", packageName);
+    if (moduleName != null) {
+      data.put("moduleName", moduleName);
+    }
+    if (signature != null) {
+      data.put("signature", signature);
+    }
+    sink.node(methodId, type, displayName, data);
+  }
+
   private static ClassInfo extractClassInfo(GraphModel.MethodNode method) {
     String className = method.className;
     String packageName = method.packageName;
@@ -86,100 +145,148 @@ public class GraphModelConverter {
     return signature != null ? SignatureNormalizer.normalizeSignature(signature) : "";
   }
 
-  private static void addEndpointNodes(UnifiedGraphModel unified, GraphModel legacy) {
-    for (GraphModel.EndpointNode endpoint : legacy.endpoints.values()) {
+  private static void addEndpointNodes(UnifiedGraphSink sink, Map<String, GraphModel.EndpointNode> legacyEndpoints)
+      throws IOException {
+    // Distinct legacy ids can normalize to the same endpoint; later attributes win, as in a node
+    // map.
+    Map<String, Node> endpoints = new LinkedHashMap<>();
+    for (GraphModel.EndpointNode endpoint : legacyEndpoints.values()) {
       String normalizedId = SignatureNormalizer.normalizeEndpointId(endpoint.httpMethod, endpoint.path);
-      Node n = unified.ensureNode(normalizedId, "ENDPOINT", endpoint.httpMethod + " " + endpoint.path);
+      Node n = endpoints.computeIfAbsent(normalizedId,
+          id -> new Node(id, "ENDPOINT", endpoint.httpMethod + " " + endpoint.path));
       n.data.put("httpMethod", endpoint.httpMethod);
       n.data.put("path", endpoint.path);
       addIfNotEmpty(n.data, "produces", endpoint.produces);
       addIfNotEmpty(n.data, "consumes", endpoint.consumes);
     }
+    for (Node n : endpoints.values()) {
+      sink.node(n.id, n.type, n.name, n.data);
+    }
   }
 
-  private static void addTopicNodes(UnifiedGraphModel unified, GraphModel legacy) {
-    for (GraphModel.TopicNode topic : legacy.topics.values()) {
+  private static void addTopicNodes(UnifiedGraphSink sink, Map<String, GraphModel.TopicNode> topics)
+      throws IOException {
+    Set<String> seen = new HashSet<>();
+    for (GraphModel.TopicNode topic : topics.values()) {
       String normalizedId = SignatureNormalizer.normalizeTopicId(topic.id);
-      unified.ensureNode(normalizedId, "TOPIC", topic.name);
+      if (seen.add(normalizedId)) {
+        sink.node(normalizedId, "TOPIC", topic.name, new LinkedHashMap<>());
+      }
     }
   }
 
-  private static void addClassAndServiceNodes(UnifiedGraphModel unified, Map<String, String> classToServiceMap) {
+  private static void addClassAndServiceNodes(UnifiedGraphSink sink, Map<String, String> classToServiceMap)
+      throws IOException {
+    Set<String> services = new HashSet<>();
     for (Map.Entry<String, String> entry : classToServiceMap.entrySet()) {
       String classId = entry.getKey();
       String serviceName = entry.getValue();
 
       ClassInfo classInfo = ClassInfo.fromFullClassName(classId);
-      Node classNode = unified.ensureNode(classId, "CLASS", classInfo.className);
-      classNode.data.put("className", classInfo.className);
-      classNode.data.put("packageName", classInfo.packageName);
-      classNode.data.put("moduleName", serviceName);
+      Map<String, Object> classData = new LinkedHashMap<>();
+      classData.put("className", classInfo.className);
+      classData.put("packageName", classInfo.packageName);
+      classData.put("moduleName", serviceName);
+      sink.node(classId, "CLASS", classInfo.className, classData);
+
+      if (services.add(serviceName)) {
+        Map<String, Object> serviceData = new LinkedHashMap<>();
+        serviceData.put("moduleName", serviceName);
+        sink.node("service:" + serviceName, "SERVICE", serviceName, serviceData);
+      }
+    }
+  }
 
-      String serviceId = "service:" + serviceName;
-      unified.addService(serviceName, serviceName);
-      unified.addClassToServiceEdge(classId, serviceId);
+  static void addClassToServiceEdges(UnifiedGraphSink sink, Map<String, String> classToServiceMap,
+                                     EdgeCounter edges) throws IOException {
+    for (Map.Entry<String, String> entry : classToServiceMap.entrySet()) {
+      String serviceId = "service:" + entry.getValue();
+      edges.add(sink, EdgeType.BELONGS_TO.getIdPrefix() + edges.count, entry.getKey(), serviceId, BELONGS_TO_EDGE_TYPE);
     }
   }
 
-  private static void addCallEdges(UnifiedGraphModel unified, GraphModel legacy) {
+  private static void addCallEdges(UnifiedGraphSink sink, GraphModel legacy, EdgeCounter edges) throws IOException {
     int counter = 0;
     for (GraphModel.CallEdge call : legacy.calls) {
       counter++;
       String normalizedFrom = normalizeMethodIdInEdge(call.from);
       String normalizedTo = normalizeMethodIdInEdge(call.to);
-      unified.addEdge("e-call-" + counter, normalizedFrom, normalizedTo, CALL_EDGE_TYPE);
+      Map<String, Object> data = new LinkedHashMap<>();
+      data.put("count", call.count);
+      if (call.lines != null) {
+        data.put("lines", call.lines);
+      }
+      if (call.confidence != null) {
+        data.put("confidence", call.confidence);
+      }
+      edges.add(sink, EdgeType.CALL.getIdPrefix() + counter, normalizedFrom, normalizedTo, CALL_EDGE_TYPE, data);
     }
   }
 
-  private static void addEndpointEdges(UnifiedGraphModel unified, GraphModel legacy) {
+  private static void addEndpointEdges(UnifiedGraphSink sink, GraphModel legacy, EdgeCounter edges)
+      throws IOException {
     int counter = 0;
     for (GraphModel.EndpointEdge edge : legacy.endpointEdges) {
       counter++;
-      String normalizedEndpointId = SignatureNormalizer.normalizeEndpointId(
-          extractHttpMethodFromEndpointId(edge.fromEndpoint),
-          extractPathFromEndpointId(edge.fromEndpoint));
+      String normalizedEndpointId = normalizeEndpointIdInEdge(edge.fromEndpoint);
       String normalizedMethodId = normalizeMethodIdInEdge(edge.toMethod);
-      unified.addEdge("e-endpoint-" + counter, normalizedEndpointId, normalizedMethodId, HANDLES_EDGE_TYPE);
+      edges.add(sink, EdgeType.HANDLES.getIdPrefix() + counter, normalizedEndpointId, normalizedMethodId, HANDLES_EDGE_TYPE);
     }
   }
 
-  private static void addMessagingEdges(UnifiedGraphModel unified, GraphModel legacy) {
+  private static void addMessagingEdges(UnifiedGraphSink sink, GraphModel legacy, EdgeCounter edges)
+      throws IOException {
     int counter = 0;
     for (GraphModel.MessagingEdge edge : legacy.messaging) {
       counter++;
-      String edgeId = "e-" + edge.kind + "-" + counter;
-
-      if ("produces".equals(edge.kind)) {
-        addProducesEdge(unified, edgeId, edge);
-      } else if ("consumes".equals(edge.kind)) {
-        addConsumesEdge(unified, edgeId, edge);
+      EdgeType type = messagingEdgeType(edge.kind);
+      if (type != null) {
+        edges.add(sink, type.getIdPrefix() + counter, messagingEdgeFrom(edge.kind, edge.from, edge.to),
+            messagingEdgeTo(edge.kind, edge.from, edge.to), type.name());
       }
     }
   }
 
-  private static void addProducesEdge(UnifiedGraphModel unified, String edgeId, GraphModel.MessagingEdge edge) {
-    String normalizedFrom = normalizeMethodIdInEdge(edge.from);
-    String normalizedTo = SignatureNormalizer.normalizeTopicId(edge.to);
-    unified.addEdge(edgeId, normalizedFrom, normalizedTo, PRODUCES_EDGE_TYPE);
+  /**
+   * PRODUCES or CONSUMES for the legacy messaging {@code kind}; other kinds are not converted.
+   */
+  static EdgeType messagingEdgeType(String kind) {
+    if ("produces".equals(kind)) {
+      return EdgeType.PRODUCES;
+    }
+    return "consumes".equals(kind) ? EdgeType.CONSUMES : null;
   }
 
-  private static void addConsumesEdge(UnifiedGraphModel unified, String edgeId, GraphModel.MessagingEdge edge) {
-    String topicId = extractTopicNameFromMessagingEdge(edge.to);
-    String methodId = normalizeMethodIdInEdge(edge.from);
-    String normalizedTopic = SignatureNormalizer.normalizeTopicId(topicId);
-    unified.addEdge(edgeId, normalizedTopic, methodId, CONSUMES_EDGE_TYPE);
+  /**
+   * Source of the unified messaging edge: the producing method, or the consumed topic.
+   */
+  static String messagingEdgeFrom(String kind, String from, String to) {
+    if ("produces".equals(kind)) {
+      return normalizeMethodIdInEdge(from);
+    }
+    return SignatureNormalizer.normalizeTopicId(extractTopicNameFromMessagingEdge(to));
   }
 
-  private static void addMethodToClassEdges(UnifiedGraphModel unified, Map<String, GraphModel.MethodNode> methods) {
+  /**
+   * Target of the unified messaging edge: the produced topic, or the consuming method.
+   */
+  static String messagingEdgeTo(String kind, String from, String to) {
+    if ("produces".equals(kind)) {
+      return SignatureNormalizer.normalizeTopicId(to);
+    }
+    return normalizeMethodIdInEdge(from);
+  }
+
+  static void addMethodToClassEdges(UnifiedGraphSink sink, Map<String, GraphModel.MethodNode> methods,
+                                    EdgeCounter edges) throws IOException {
     for (Map.Entry<String, GraphModel.MethodNode> entry : methods.entrySet()) {
       String methodId = entry.getKey();
       ClassInfo classInfo = extractClassInfo(entry.getValue());
 
+      // every valid class got a CLASS node in addClassAndServiceNodes
       if (classInfo.isValid()) {
         String classId = classInfo.getFullClassName();
-        if (unified.getNode(classId) != null) {
-          unified.addMethodToClassEdge(methodId, classId);
-        }
+        edges.add(sink, EdgeType.DEFINES.getIdPrefix() + edges.count, methodId, classId, DEFINES_EDGE_TYPE);
       }
     }
   }
@@ -190,19 +297,23 @@ public class GraphModelConverter {
     }
   }
 
-  private static String normalizeMethodIdInEdge(String methodId) {
-    if (methodId == null || !methodId.contains("#")) {
+  static String normalizeEndpointIdInEdge(String endpointId) {
+    return SignatureNormalizer.normalizeEndpointId(
+        extractHttpMethodFromEndpointId(endpointId), extractPathFromEndpointId(endpointId));
+  }
+
+  static String normalizeMethodIdInEdge(String methodId) {
+    int hash = methodId != null ? methodId.indexOf('#') : -1;
+    if (hash < 0) {
       return methodId;
     }
 
-    String[] parts = methodId.split("#", 2);
-    if (parts.length == 2) {
-      String classPath = parts[0];
-      String methodPart = parts[1];
-      String normalizedMethod = SignatureNormalizer.normalizeSignature(methodPart);
-      return classPath + "#" + normalizedMethod;
+    String methodPart = methodId.substring(hash + 1);
+    String normalizedMethod = SignatureNormalizer.normalizeSignature(methodPart);
+    if (normalizedMethod.equals(methodPart)) {
+      return methodId;
     }
-    return methodId;
+    return methodId.substring(0, hash + 1) + normalizedMethod;
   }
 
   private static String extractHttpMethodFromEndpointId(String endpointId) {
@@ -254,5 +365,46 @@ public class GraphModelConverter {
       return packageName + "." + className;
     }
   }
-}
 
+  /**
+   * Running edge count across all edge kinds; structural edge ids are numbered from it.
+   */
+  static class EdgeCounter {
+
+    int count;
+
+    void add(UnifiedGraphSink sink, String id, String from, String to, String type) throws IOException {
+      add(sink, id, from, to, type, new LinkedHashMap<>());
+    }
+
+    void add(UnifiedGraphSink sink, String id, String from, String to, String type, Map<String, Object> data)
+        throws IOException {
+      sink.edge(id, from, to, type, data);
+      count++;
+    }
+  }
+
+  /**
+   * Builds the in-memory {@link UnifiedGraphModel}.
+   */
+  private static class UnifiedModelSink implements UnifiedGraphSink {
+
+    private final UnifiedGraphModel unified;
+
+    UnifiedModelSink(UnifiedGraphModel unified) {
+      this.unified = unified;
+    }
+
+    @Override
+    public void node(String id, String type, String name, Map<String, Object> data) {
+      unified.ensureNode(id, type, name).data.putAll(data);
+    }
+
+    @Override
+    public void edge(String id, String from, String to, String type, Map<String, Object> data) {
+      Edge e = new Edge(id, from, to, type);
+      e.data.putAll(data);
+      unified.edges.add(e);
+    }
+  }
+}
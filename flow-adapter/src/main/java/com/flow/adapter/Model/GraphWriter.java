@@ -0,0 +1,42 @@
+package com.flow.adapter.Model;
+
+import java.util.List;
+
+/**
+ * Write side of a flow graph, shared by the legacy {@link GraphModel} (per-file fragments and the
+ * compatibility path) and {@link UnifiedGraphBuilder} (the scan result). Ids are the legacy ids the
+ * scanners produce, e.g. {@code com.acme.Orders#place(java.lang.String)} and
+ * {@code endpoint:GET /orders}; normalizing them is up to the implementation.
+ *
+ * <p>Writing a node id that is already present keeps its position and replaces its attributes.
+ */
+public interface GraphWriter {
+
+  void addMethod(String id, String className, String methodName, String signature, String visibility,
+                 String packageName, String moduleName);
+
+  void addEndpoint(String id, String httpMethod, String path, List<String> produces, List<String> consumes);
+
+  /**
+   * Adds the topic {@code name} (with or without a {@code topic:} prefix) unless present and
+   * returns its id.
+   */
+  String addTopic(String name);
+
+  /**
+   * Records {@code count} call sites from one method to another; {@code lines} may be null.
+   * {@code confidence} is null when the symbol solver resolved the target, otherwise one of the
+   * {@link GraphModel.CallEdge} confidence values. Calls between the same pair of methods share
+   * one edge, whose confidence is the strongest of its sites'.
+   */
+  void addCall(String fromId, String toId, int count, List<Integer> lines, String confidence);
+
+  void addEndpointEdge(String endpointId, String methodId);
+
+  void addMessagingEdge(String fromMethodId, String toTopicId, String kind);
+
+  /**
+   * Adds everything in {@code fragment}, in its order, leaving the fragment unchanged.
+   */
+  void merge(GraphModel fragment);
+}
@@ -1,18 +1,170 @@
 package com.flow.adapter.Model;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
+/**
+ * Normalizes method signatures and node ids for the unified graph. Signatures are normalized by
+ * reducing qualified type names to their simple name ({@code java.util.List<com.acme.Order>}
+ * becomes {@code List<Order>}).
+ */
 public class SignatureNormalizer {
 
   private static final Pattern FQN_PATTERN = Pattern.compile("\\b[a-z][a-z0-9]*(?:\\.[a-z0-9$_]+)*\\.([A-Z][a-zA-Z0-9$_]*)\\b");
 
+  // the same signatures recur on every edge into a method; cleared when full to stay bounded
+  private static final int MEMO_CAPACITY = 1 << 16;
+  private static final Map<String, String> memo = new ConcurrentHashMap<>();
+
+  /**
+   * Replaces every qualified type name in {@code signature} with its simple name. Results are
+   * memoized per signature.
+   */
   public static String normalizeSignature(String signature) {
+    if (signature == null || signature.isEmpty()) {
+      return signature;
+    }
+    String normalized = memo.get(signature);
+    if (normalized == null) {
+      normalized = stripQualifiers(signature);
+      if (memo.size() >= MEMO_CAPACITY) {
+        memo.clear();
+      }
+      memo.put(signature, normalized);
+    }
+    return normalized;
+  }
+
+  /**
+   * Reference implementation of {@link #normalizeSignature}: {@link #FQN_PATTERN} replaced by its
+   * class name group.
+   */
+  public static String normalizeSignatureWithPattern(String signature) {
     if (signature == null || signature.isEmpty()) {
       return signature;
     }
     return FQN_PATTERN.matcher(signature).replaceAll("$1");
   }
 
+  /**
+   * Hand-written equivalent of {@link #normalizeSignatureWithPattern}, without memoization. A
+   * match needs a lower-case first segment after a word boundary, further {@code .segment}s, and
+   * a {@code .ClassName} ending on a word boundary; it is replaced by the class name. Returns
+   * {@code signature} itself when nothing matches. Non-ASCII input goes to the pattern, whose
+   * word boundaries depend on Unicode character classes.
+   */
+  public static String stripQualifiers(String signature) {
+    int n = signature.length();
+    StringBuilder out = null;
+    int copied = 0;
+    int i = 0;
+    while (i < n) {
+      char c = signature.charAt(i);
+      if (c >= 0x80) {
+        return normalizeSignatureWithPattern(signature);
+      }
+      if (isLower(c) && (i == 0 || !isWord(signature.charAt(i - 1)))) {
+        int nameStart = matchQualifiedName(signature, i);
+        if (nameStart > 0) {
+          int nameEnd = classNameEnd(signature, nameStart);
+          if (nameEnd > 0) {
+            if (out == null) {
+              out = new StringBuilder(n);
+            }
+            out.append(signature, copied, i).append(signature, nameStart, nameEnd);
+            copied = i = nameEnd;
+            continue;
+          }
+        }
+      }
+      i++;
+    }
+    if (out == null) {
+      return signature;
+    }
+    return out.append(signature, copied, n).toString();
+  }
+
+  /**
+   * Matches {@code [a-z][a-z0-9]*(\.[a-z0-9$_]+)*\.} followed by an upper-case letter at
+   * {@code start} and returns the index of that letter, or -1. Each run is taken whole since
+   * none of its characters can be a dot, so no backtracking is needed.
+   */
+  private static int matchQualifiedName(String s, int start) {
+    int n = s.length();
+    int i = start + 1;
+    while (i < n && (isLower(s.charAt(i)) || isDigit(s.charAt(i)))) {
+      i++;
+    }
+    while (i < n && s.charAt(i) == '.') {
+      if (i + 1 >= n) {
+        return -1;
+      }
+      char next = s.charAt(i + 1);
+      if (isUpper(next)) {
+        return i + 1;
+      }
+      if (!isSegmentChar(next)) {
+        return -1;
+      }
+      i += 2;
+      while (i < n && isSegmentChar(s.charAt(i))) {
+        i++;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * End of {@code [A-Z][a-zA-Z0-9$_]*\b} at {@code start}: the longest run that ends on a word
+   * boundary, or -1 when none does. Only {@code $}, which is not a word character, can make a
+   * shorter run end on a boundary.
+   */
+  private static int classNameEnd(String s, int start) {
+    int n = s.length();
+    int end = start + 1;
+    while (end < n && isClassNameChar(s.charAt(end))) {
+      end++;
+    }
+    if (end < n && s.charAt(end) >= 0x80) {
+      return -1; // resolved by the caller's pattern fallback
+    }
+    for (int e = end; e > start; e--) {
+      boolean before = isWord(s.charAt(e - 1));
+      boolean after = e < n && isWord(s.charAt(e));
+      if (before != after) {
+        return e;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean isLower(char c) {
+    return c >= 'a' && c <= 'z';
+  }
+
+  private static boolean isUpper(char c) {
+    return c >= 'A' && c <= 'Z';
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean isSegmentChar(char c) {
+    return isLower(c) || isDigit(c) || c == '$' || c == '_';
+  }
+
+  private static boolean isClassNameChar(char c) {
+    return isLower(c) || isUpper(c) || isDigit(c) || c == '$' || c == '_';
+  }
+
+  // ASCII word characters as seen by \b
+  private static boolean isWord(char c) {
+    return isLower(c) || isUpper(c) || isDigit(c) || c == '_';
+  }
+
   public static String createNormalizedMethodId(String className, String methodName, String signature) {
     if (className == null || methodName == null) {
       return null;
@@ -0,0 +1,338 @@
+package com.flow.adapter.Model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds the unified graph of a scan straight from what the scanners and plugins write, without a
+ * legacy {@link GraphModel} of the whole project in between. Edges are normalized as they arrive:
+ * call endpoints are interned once per method id and calls between the same pair of methods are
+ * collapsed into one edge held in primitive arrays. Method, endpoint and topic nodes are kept per
+ * legacy id, sharing the merged fragments' node objects, since a later write of the same id
+ * replaces its attributes.
+ *
+ * <p>{@link #build} emits the same nodes and edges, in the same order and with the same ids, as
+ * {@link GraphModelConverter#toCompact} does for a {@link GraphModel} that received the same
+ * writes; the DEFINES and BELONGS_TO edges are derived there from the deduplicated methods. Merged
+ * fragments must not change afterwards. Not thread-safe.
+ */
+public class UnifiedGraphBuilder implements GraphWriter {
+
+  private final String graphId;
+  private final Map<String, GraphModel.MethodNode> methods = new LinkedHashMap<>();
+  private final Map<String, GraphModel.EndpointNode> endpoints = new LinkedHashMap<>();
+  private final Map<String, GraphModel.TopicNode> topics = new LinkedHashMap<>();
+
+  // method ids seen on call edges, and their normalized form, by ref index
+  private final Map<String, Integer> refIndex = new HashMap<>();
+  private final List<String> refs = new ArrayList<>();
+  private final List<String> normalizedRefs = new ArrayList<>();
+
+  private final PairIndex callIndex = new PairIndex();
+  private int callCount;
+  private int[] callFrom = new int[256];
+  private int[] callTo = new int[256];
+  private int[] callSites = new int[256];
+  private final Map<Integer, List<Integer>> callLines = new HashMap<>();
+  // confidence of edges not resolved by the symbol solver
+  private final Map<Integer, String> callConfidence = new HashMap<>();
+
+  private final List<Link> handles = new ArrayList<>();
+  // every legacy messaging edge, including kinds that are not converted, since ids count them all
+  private final List<Link> messaging = new ArrayList<>();
+
+  public UnifiedGraphBuilder(String graphId) {
+    this.graphId = graphId;
+  }
+
+  public String getGraphId() {
+    return graphId;
+  }
+
+  @Override
+  public void addMethod(String id, String className, String methodName, String signature, String visibility,
+                        String packageName, String moduleName) {
+    GraphModel.MethodNode node = new GraphModel.MethodNode();
+    node.id = id;
+    node.className = className;
+    node.methodName = methodName;
+    node.signature = signature;
+    node.visibility = visibility;
+    node.packageName = packageName;
+    node.moduleName = moduleName;
+    methods.put(id, node);
+  }
+
+  @Override
+  public void addEndpoint(String id, String httpMethod, String path, List<String> produces, List<String> consumes) {
+    GraphModel.EndpointNode node = new GraphModel.EndpointNode();
+    node.id = id;
+    node.httpMethod = httpMethod;
+    node.path = path;
+    node.produces = produces;
+    node.consumes = consumes;
+    endpoints.put(id, node);
+  }
+
+  @Override
+  public String addTopic(String name) {
+    String cleanName = (name != null && name.startsWith("topic:")) ? name.substring(6) : name;
+    String id = "topic:" + cleanName;
+    topics.computeIfAbsent(id, k -> {
+      GraphModel.TopicNode t = new GraphModel.TopicNode();
+      t.id = id;
+      t.name = cleanName;
+      return t;
+    });
+    return id;
+  }
+
+  @Override
+  public void addCall(String fromId, String toId, int count, List<Integer> lines, String confidence) {
+    int from = ref(fromId);
+    int to = ref(toId);
+    int edge = callIndex.putIfAbsent(((long) from << 32) | (to & 0xffffffffL), callCount);
+    if (edge < 0) {
+      edge = callCount++;
+      if (edge == callFrom.length) {
+        callFrom = Arrays.copyOf(callFrom, edge * 2);
+        callTo = Arrays.copyOf(callTo, edge * 2);
+        callSites = Arrays.copyOf(callSites, edge * 2);
+      }
+      callFrom[edge] = from;
+      callTo[edge] = to;
+      if (confidence != null) {
+        callConfidence.put(edge, confidence);
+      }
+    } else if (callConfidence.containsKey(edge)) {
+      String merged = GraphModel.CallEdge.stronger(callConfidence.get(edge), confidence);
+      if (merged == null) {
+        callConfidence.remove(edge);
+      } else {
+        callConfidence.put(edge, merged);
+      }
+    }
+    callSites[edge] += count;
+    if (lines != null) {
+      callLines.computeIfAbsent(edge, k -> new ArrayList<>()).addAll(lines);
+    }
+  }
+
+  @Override
+  public void addEndpointEdge(String endpointId, String methodId) {
+    handles.add(new Link(EdgeType.HANDLES, GraphModelConverter.normalizeEndpointIdInEdge(endpointId),
+        GraphModelConverter.normalizeMethodIdInEdge(methodId)));
+  }
+
+  @Override
+  public void addMessagingEdge(String fromMethodId, String toTopicId, String kind) {
+    EdgeType type = GraphModelConverter.messagingEdgeType(kind);
+    if (type == null) {
+      messaging.add(new Link(null, null, null));
+    } else {
+      messaging.add(new Link(type, GraphModelConverter.messagingEdgeFrom(kind, fromMethodId, toTopicId),
+          GraphModelConverter.messagingEdgeTo(kind, fromMethodId, toTopicId)));
+    }
+  }
+
+  /**
+   * Adds a per-file fragment. Its node objects are shared, not copied.
+   */
+  @Override
+  public void merge(GraphModel fragment) {
+    methods.putAll(fragment.methods);
+    endpoints.putAll(fragment.endpoints);
+    fragment.topics.forEach(topics::putIfAbsent);
+    for (GraphModel.CallEdge call : fragment.calls) {
+      addCall(call.from, call.to, call.count, call.lines, call.confidence);
+    }
+    for (GraphModel.EndpointEdge edge : fragment.endpointEdges) {
+      addEndpointEdge(edge.fromEndpoint, edge.toMethod);
+    }
+    for (GraphModel.MessagingEdge edge : fragment.messaging) {
+      addMessagingEdge(edge.from, edge.to, edge.kind);
+    }
+  }
+
+  /**
+   * Adds everything written to {@code other}, as if its writes had been made here, e.g. to merge
+   * the graphs of several projects.
+   */
+  public void merge(UnifiedGraphBuilder other) {
+    methods.putAll(other.methods);
+    endpoints.putAll(other.endpoints);
+    other.topics.forEach(topics::putIfAbsent);
+    for (int e = 0; e < other.callCount; e++) {
+      addCall(other.refs.get(other.callFrom[e]), other.refs.get(other.callTo[e]), other.callSites[e],
+          other.callLines.get(e), other.callConfidence.get(e));
+    }
+    handles.addAll(other.handles);
+    messaging.addAll(other.messaging);
+  }
+
+  /**
+   * Ids of the methods and endpoints written so far.
+   */
+  public Set<String> nodeIds() {
+    Set<String> ids = new LinkedHashSet<>(methods.keySet());
+    ids.addAll(endpoints.keySet());
+    return ids;
+  }
+
+  /**
+   * Methods and endpoints that both this builder and {@code other} define, mapped to whether
+   * {@code other} defines them with different attributes. Merging unions each into one node with
+   * {@code other}'s attributes.
+   */
+  public Map<String, Boolean> sharedNodes(UnifiedGraphBuilder other) {
+    Map<String, Boolean> shared = new LinkedHashMap<>();
+    other.methods.forEach((id, node) -> {
+      GraphModel.MethodNode mine = methods.get(id);
+      if (mine != null) {
+        shared.put(id, !mine.sameAttributes(node));
+      }
+    });
+    other.endpoints.forEach((id, node) -> {
+      GraphModel.EndpointNode mine = endpoints.get(id);
+      if (mine != null) {
+        shared.put(id, !mine.sameAttributes(node));
+      }
+    });
+    return shared;
+  }
+
+  public CompactGraph build() {
+    CompactGraph.Builder builder = new CompactGraph.Builder(graphId);
+    try {
+      emit(builder);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Streams the graph into {@code sink}: every node first, then every edge.
+   */
+  public void emit(UnifiedGraphSink sink) throws IOException {
+    Map<String, GraphModel.MethodNode> normalizedMethods = GraphModelConverter.deduplicateMethods(methods);
+    Map<String, String> classToServiceMap = GraphModelConverter.addNodes(sink, normalizedMethods, endpoints, topics);
+
+    GraphModelConverter.EdgeCounter edges = new GraphModelConverter.EdgeCounter();
+    GraphModelConverter.addClassToServiceEdges(sink, classToServiceMap, edges);
+    for (int e = 0; e < callCount; e++) {
+      Map<String, Object> data = new LinkedHashMap<>();
+      data.put("count", callSites[e]);
+      List<Integer> lines = callLines.get(e);
+      if (lines != null) {
+        data.put("lines", lines);
+      }
+      String confidence = callConfidence.get(e);
+      if (confidence != null) {
+        data.put("confidence", confidence);
+      }
+      edges.add(sink, EdgeType.CALL.getIdPrefix() + (e + 1), normalizedRefs.get(callFrom[e]),
+          normalizedRefs.get(callTo[e]), EdgeType.CALL.name(), data);
+    }
+    for (int i = 0; i < handles.size(); i++) {
+      Link link = handles.get(i);
+      edges.add(sink, EdgeType.HANDLES.getIdPrefix() + (i + 1), link.from, link.to, EdgeType.HANDLES.name());
+    }
+    for (int i = 0; i < messaging.size(); i++) {
+      Link link = messaging.get(i);
+      if (link.type != null) {
+        edges.add(sink, link.type.getIdPrefix() + (i + 1), link.from, link.to, link.type.name());
+      }
+    }
+    GraphModelConverter.addMethodToClassEdges(sink, normalizedMethods, edges);
+  }
+
+  private int ref(String methodId) {
+    Integer index = refIndex.get(methodId);
+    if (index == null) {
+      index = refs.size();
+      refIndex.put(methodId, index);
+      refs.add(methodId);
+      normalizedRefs.add(GraphModelConverter.normalizeMethodIdInEdge(methodId));
+    }
+    return index;
+  }
+
+  /**
+   * An edge that was normalized on arrival; {@code type} is null for messaging kinds that are not
+   * converted.
+   */
+  private static class Link {
+
+    final EdgeType type;
+    final String from;
+    final String to;
+
+    Link(EdgeType type, String from, String to) {
+      this.type = type;
+      this.from = from;
+      this.to = to;
+    }
+  }
+
+  /**
+   * Open-addressing map from a pair of ref indices to a call edge index, so collapsing call sites
+   * does not box a key per call.
+   */
+  private static class PairIndex {
+
+    private long[] keys = new long[1024];
+    private int[] values = new int[1024]; // edge index + 1; 0 marks a free slot
+    private int size;
+
+    /**
+     * Returns the edge of {@code key}, or stores {@code edge} for it and returns -1.
+     */
+    int putIfAbsent(long key, int edge) {
+      if ((size + 1) * 2 > keys.length) {
+        grow();
+      }
+      int slot = slot(key, keys.length);
+      while (values[slot] != 0) {
+        if (keys[slot] == key) {
+          return values[slot] - 1;
+        }
+        slot = (slot + 1) & (keys.length - 1);
+      }
+      keys[slot] = key;
+      values[slot] = edge + 1;
+      size++;
+      return -1;
+    }
+
+    private void grow() {
+      long[] oldKeys = keys;
+      int[] oldValues = values;
+      keys = new long[oldKeys.length * 2];
+      values = new int[oldKeys.length * 2];
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldValues[i] != 0) {
+          int slot = slot(oldKeys[i], keys.length);
+          while (values[slot] != 0) {
+            slot = (slot + 1) & (keys.length - 1);
+          }
+          keys[slot] = oldKeys[i];
+          values[slot] = oldValues[i];
+        }
+      }
+    }
+
+    private static int slot(long key, int capacity) {
+      long h = key * 0x9E3779B97F4A7C15L;
+      return (int) (h >>> 32) & (capacity - 1);
+    }
+  }
+}
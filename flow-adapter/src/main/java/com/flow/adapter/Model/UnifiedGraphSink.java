@@ -0,0 +1,16 @@
+package com.flow.adapter.Model;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Receives the unified graph one element at a time. {@link GraphModelConverter#emit} delivers all
+ * nodes before the first edge, in the same order {@link GraphModelConverter#convert} produces, so a
+ * sink can write them out without holding the graph in memory.
+ */
+public interface UnifiedGraphSink {
+
+  void node(String id, String type, String name, Map<String, Object> data) throws IOException;
+
+  void edge(String id, String from, String to, String type, Map<String, Object> data) throws IOException;
+}
@@ -1,61 +1,795 @@
 package com.flow.adapter;
 
+import com.flow.adapter.Model.CompactGraph;
 import com.flow.adapter.Model.GraphModel;
+import com.flow.adapter.Model.GraphWriter;
+import com.flow.adapter.Model.UnifiedGraphBuilder;
+import com.flow.adapter.cache.ScanCache;
+import com.flow.adapter.classpath.ClasspathIndex;
+import com.flow.adapter.diagnostics.Diagnostics;
+import com.flow.adapter.classpath.JarIndexStore;
+import com.flow.adapter.classpath.MavenClasspath;
+import com.flow.adapter.profile.ScanProfile;
+import com.flow.adapter.scanners.CompilationUnitIndex;
 import com.flow.adapter.scanners.JavaSourceScanner;
+import com.flow.adapter.scanners.ResolveMode;
+import com.flow.adapter.scanners.SourceFilter;
+import com.flow.adapter.scanners.TokenPrefilter;
+import com.flow.adapter.scanners.UnitEnricher;
 import com.flow.adapter.util.ConfigLoader;
+import com.flow.adapter.util.FileUtil;
+import com.flow.adapter.watch.SourceWatcher;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
 import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 
 @Command(name = "scan", description = "Scan Java sources to produce GEF JSON (methods,endpoints,kafka).")
 public class ScanCommand implements Runnable {
 
-  @Option(names = "--src", required = true)
-  private String src;
+  private static final Logger logger = LoggerFactory.getLogger(ScanCommand.class);
+  private static final String CONFIG_SUFFIX = ".config";
+
+  @Option(names = "--src", description = "Source root. Repeat as <projectId>=<dir> to scan several projects in one run.")
+  private List<String> sources = new ArrayList<>();
   @Option(names = "--config")
   private String configDir;
   @Option(names = "--out")
   private String out;
-  @Option(names = "--project", required = true)
+  @Option(names = "--project", description = "Project id of the graph; with --merge, of the merged graph.")
   private String projectId;
+  @Option(names = "--threads", description = "Worker threads for parsing and call analysis (default: available cores).")
+  private int threads = Runtime.getRuntime().availableProcessors();
+  @Option(names = "--include", description = "Glob of source files to scan, relative to the source root; may be repeated. Without it every file not excluded is scanned.")
+  private List<String> includes = new ArrayList<>();
+  @Option(names = "--exclude", description = "Glob of source files or directories to skip, relative to the source root; may be repeated. Excluded directories are not walked. Added to the root's .flowignore.")
+  private List<String> excludes = new ArrayList<>();
+  @Option(names = "--io-threads", description = "Threads reading source files, ahead of the parse workers; raise it on slow or network file systems (default: 8).")
+  private int ioThreads = JavaSourceScanner.DEFAULT_IO_THREADS;
+  @Option(names = "--cache-dir", description = "Directory for the incremental scan cache; unchanged files are reloaded instead of re-parsed.")
+  private String cacheDir;
+  @Option(names = "--compact", description = "Write the graph JSON without indentation.")
+  private boolean compact;
+  @Option(names = "--call-lines", description = "Record the source line of every call site on call edges.")
+  private boolean callLines;
+  @Option(names = "--format", description = "Output format: json (default) or bin.")
+  private String format = "json";
+  @Option(names = "--profile", description = "Print per-phase timings, resolution counts and the slowest files, and write them to <out>.profile.json.")
+  private boolean profiling;
+  @Option(names = "--profile-top", description = "Number of slowest files listed in the profile (default: 10).")
+  private int profileTop = 10;
+  @Option(names = "--verbose", description = "Log every unresolved call, failed file and plugin edge as it happens, besides the diagnostics summary.")
+  private boolean verbose;
+  @Option(names = "--diagnostics-json", description = "Also write the diagnostics summary (counts per category and key, with examples) to this JSON file.")
+  private String diagnosticsJson;
+  @Option(names = "--watch", description = "Keep running and rewrite the output whenever sources or configuration change.")
+  private boolean watch;
+  @Option(names = "--debounce-ms", description = "Quiet period that ends a burst of file changes in watch mode (default: 100).")
+  private long debounceMillis = 100;
+  @Option(names = "--manifest", description = "Properties file of <projectId>=<srcRoot> entries, each with an optional <projectId>.config=<dir>, scanned as separate projects.")
+  private String manifest;
+  @Option(names = "--merge", description = "With several projects, write one merged graph to --out instead of <projectId>.<format> files in the --out directory.")
+  private boolean merge;
+  @Option(names = "--classpath", description = "Dependency jars to resolve library types from, separated by the platform path separator; may be repeated.")
+  private List<String> classpathEntries = new ArrayList<>();
+  @Option(names = "--maven-deps", description = "Also resolve from the dependencies of the nearest pom.xml above each source root, taken from the local Maven repository.")
+  private boolean mavenDeps;
+  @Option(names = "--maven-repo", description = "Local Maven repository for --maven-deps (default: ~/.m2/repository).")
+  private String mavenRepo;
+  @Option(names = "--classpath-index", description = "Directory of the per-jar symbol indexes, built once per jar checksum (default: ~/.cache/flow-adapter/jar-index).")
+  private String classpathIndexDir;
+  @Option(names = "--parallel-plugins", description = "Run plugins concurrently, each returning a fragment merged in plugin order, instead of one after another. Without --cache-dir and --watch; with them plugins already run per file on the scan workers.")
+  private boolean parallelPlugins;
+  @Option(names = "--resolve", description = "Call resolution: full (symbol solver, within the budgets below; default), fast (name and argument count against declared methods, edges marked with a confidence) or none (no call edges).")
+  private String resolve = "full";
+  @Option(names = "--resolve-call-budget-ms", description = "Time full resolution may spend on one call before it is resolved by name and arity instead; 0 (default) for no limit, which keeps the output independent of timing.")
+  private long callBudgetMillis;
+  @Option(names = "--resolve-file-budget-ms", description = "Time full resolution may spend on the calls of one file; its remaining calls are resolved by name and arity. 0 (default) for no limit.")
+  private long fileBudgetMillis;
+
+  private ScanProfile profile;
+  private Diagnostics diagnostics;
+  private Map<String, ScanCache> sharedCaches;
+  // inputs of the last scan, reused by watch mode
+  private List<FlowPlugin> plugins;
+  private ConfigLoader config;
+  private ClasspathIndex classpath;
+  private ScanCache cache;
+
+  /**
+   * Reuses an in-memory cache per source root and settings from {@code caches} across scans in
+   * this process, so scanning an unchanged project again only re-reads its files. Scans of the
+   * same source root must not run concurrently.
+   */
+  public ScanCommand withSharedCaches(Map<String, ScanCache> caches) {
+    this.sharedCaches = caches;
+    return this;
+  }
 
   @Override
   public void run() {
     try {
-      Path srcRoot = Paths.get(src);
-      if (!Files.exists(srcRoot)) {
-        throw new IllegalArgumentException("Missing src: " + srcRoot);
+      execute();
+    } catch (Exception e) {
+      e.printStackTrace();
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Scans, writes the graph to the output path and, with {@code --watch}, keeps updating it.
+   * Failures are thrown rather than exiting the JVM.
+   */
+  public void execute() throws Exception {
+    validate();
+    if (isMultiProject()) {
+      scanProjects();
+      return;
+    }
+    Path outPath = getOutPath();
+    Path parent = outPath.getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+
+    // registered before the initial scan so edits made while it runs are not missed
+    SourceWatcher watcher = watch ? newWatcher(srcRoot(), cfgPath()) : null;
+    CompactGraph graph = scanGraph();
+    ScanProfile.Timer exporting = phase("export");
+    try {
+      write(graph, outPath);
+    } finally {
+      exporting.stop();
+    }
+    graph = null; // not kept alive while watching
+    System.out.println("Graph written to: " + outPath.toAbsolutePath());
+    writeProfile(profilePath(outPath));
+    writeDiagnostics();
+
+    if (watcher != null) {
+      try (watcher) {
+        watch(watcher, outPath);
       }
+    }
+  }
 
-      Path cfgPath = Paths.get(configDir != null ? configDir : "src/main/resources");
-      ConfigLoader config = new ConfigLoader(cfgPath);
+  /**
+   * Scans a single project and converts it without writing anything, for callers that send the
+   * graph elsewhere with {@link #export}.
+   */
+  public CompactGraph scanGraph() throws Exception {
+    validate();
+    if (isMultiProject()) {
+      throw new IllegalArgumentException("Only a single project can be scanned into one graph without --merge");
+    }
+    Path srcRoot = srcRoot();
+    if (profiling) {
+      profile = new ScanProfile(profileTop);
+    }
+    diagnostics = newDiagnostics();
+    plugins = loadPlugins();
+    config = new ConfigLoader(cfgPath());
+    classpath = openClasspath(srcRoot);
+    cache = openCache(srcRoot);
 
-      GraphModel model = new GraphModel();
-      model.projectId = projectId;
-      model.schema = "gef:1.1";
+    UnifiedGraphBuilder graph = scan(projectId, srcRoot, threads, config, classpath, plugins, cache, null);
+    if (cacheDir != null) {
+      cache.save();
+    }
+    if (cache != null) {
+      cache.advance();
+    }
+    // only the compact form is kept once the scan is done
+    ScanProfile.Timer converting = phase("convert");
+    try {
+      return graph.build();
+    } finally {
+      converting.stop();
+    }
+  }
+
+  /**
+   * Writes {@code graph} to {@code out} in the configured format, without closing it.
+   */
+  public void export(CompactGraph graph, OutputStream out) throws IOException {
+    if ("bin".equals(format)) {
+      new GraphExporterBinary().write(graph, out);
+    } else {
+      new GraphExporterJson(compact).write(graph, out);
+    }
+  }
+
+  public Path getSrcRoot() {
+    return srcRoot().toAbsolutePath().normalize();
+  }
+
+  /**
+   * Whether several projects are scanned, from {@code --manifest} or repeated {@code --src}.
+   */
+  public boolean isMultiProject() {
+    return manifest != null || sources.size() > 1;
+  }
+
+  public boolean hasOut() {
+    return out != null;
+  }
+
+  public boolean isWatch() {
+    return watch;
+  }
+
+  public String getFormat() {
+    return format;
+  }
+
+  /**
+   * Checks the arguments without scanning; invalid ones throw {@link IllegalArgumentException}.
+   */
+  public void validate() {
+    if (!"json".equals(format) && !"bin".equals(format)) {
+      throw new IllegalArgumentException("Unknown format: " + format);
+    }
+    ResolveMode.parse(resolve);
+    SourceFilter.of(includes, excludes);
+    if (isMultiProject()) {
+      return; // checked per project
+    }
+    if (sources.isEmpty()) {
+      throw new IllegalArgumentException("Missing --src or --manifest");
+    }
+    if (projectId == null) {
+      throw new IllegalArgumentException("Missing --project");
+    }
+    if (!Files.exists(srcRoot())) {
+      throw new IllegalArgumentException("Missing src: " + srcRoot());
+    }
+  }
 
-      new JavaSourceScanner().analyze(model, srcRoot);
+  private Path srcRoot() {
+    return Paths.get(sources.get(0));
+  }
 
-      ServiceLoader<FlowPlugin> plugins = ServiceLoader.load(FlowPlugin.class);
+  public Path getOutPath() {
+    return out != null ? Paths.get(out) : Paths.get("flow." + format);
+  }
+
+  private Path cfgPath() {
+    return Paths.get(configDir != null ? configDir : "src/main/resources");
+  }
+
+  private ScanCache openCache(Path srcRoot) {
+    String fingerprint = cacheFingerprint(plugins, config, classpath);
+    if (cacheDir != null) {
+      return ScanCache.open(Paths.get(cacheDir), fingerprint);
+    }
+    if (sharedCaches != null) {
+      String key = getSrcRoot() + "\n" + fingerprint;
+      return sharedCaches.computeIfAbsent(key, k -> ScanCache.inMemory(fingerprint));
+    }
+    return watch ? ScanCache.inMemory(fingerprint) : null;
+  }
+
+  /**
+   * Scans {@code srcRoot} straight into a unified graph builder: per-file fragments are merged as
+   * whole files and plugins write into it directly, so no legacy model of the whole project is
+   * built.
+   */
+  private UnifiedGraphBuilder scan(String projectId, Path srcRoot, int threads, ConfigLoader config,
+                                   ClasspathIndex classpath, List<FlowPlugin> plugins, ScanCache cache,
+                                   Set<Path> changedFiles) throws Exception {
+    UnifiedGraphBuilder graph = new UnifiedGraphBuilder(projectId);
+    if (diagnostics == null) {
+      diagnostics = newDiagnostics();
+    }
+    plugins.forEach(p -> p.useDiagnostics(diagnostics));
+    SourceFilter filter = SourceFilter.of(includes, excludes);
+    plugins.forEach(p -> p.useSourceFilter(filter));
+
+    // with a cache, only plugins that work on parsed units run per file
+    List<FlowPlugin> perFile = cache != null ? plugins.stream().filter(ScanCommand::enrichesUnits).toList() : plugins;
+    JavaSourceScanner scanner = new JavaSourceScanner(threads).withIoThreads(ioThreads)
+        .withSourceFilter(filter)
+        .withDiagnostics(diagnostics)
+        .withCallLines(callLines).withProfile(profile)
+        .withClasspath(classpath).withPrefilter(prefilter(perFile))
+        .withResolveMode(ResolveMode.parse(resolve))
+        .withResolveBudget(Duration.ofMillis(callBudgetMillis), Duration.ofMillis(fileBudgetMillis));
+    if (cache != null) {
+      scanner.withCache(cache, perFileEnrichers(perFile, srcRoot, config))
+          .withChangedFiles(changedFiles);
+      scanner.scan(graph, srcRoot);
       for (FlowPlugin p : plugins) {
-        System.out.println("Running plugin: " + p.getClass().getName());
-        p.enrich(model, srcRoot, config);
+        if (!perFile.contains(p)) {
+          enrichOnce(p, graph, srcRoot, config);
+        }
+      }
+    } else {
+      CompilationUnitIndex units = scanner.scan(graph, srcRoot);
+      if (parallelPlugins && plugins.size() > 1) {
+        plugins.forEach(p -> System.out.println("Running plugin: " + p.getClass().getName()));
+        ConcurrentPlugins.run(plugins, graph, units, config, threads, profile, ScanCommand::pluginPhase);
+      } else {
+        for (int i = 0; i < plugins.size(); i++) {
+          FlowPlugin p = plugins.get(i);
+          System.out.println("Running plugin: " + p.getClass().getName());
+          ScanProfile.Timer running = phase(pluginPhase(p));
+          try {
+            p.contribute(graph, units.triggered(i), config);
+          } finally {
+            running.stop();
+          }
+        }
+      }
+    }
+    return graph;
+  }
+
+  /**
+   * One prefilter group per plugin, in plugin order, so that files none of a plugin's trigger
+   * tokens occur in are left out of its units (and skipped by its per-file enricher).
+   */
+  private static TokenPrefilter prefilter(List<FlowPlugin> plugins) {
+    return TokenPrefilter.of(plugins.stream().map(FlowPlugin::triggerTokens).toList());
+  }
+
+  /**
+   * Scans every project listed by {@code --manifest} and {@code --src <id>=<dir>}. Projects run
+   * concurrently, at most one per thread, and split the threads between them, so a fleet of small
+   * services keeps every core busy without oversubscribing it; JDK type lookups are shared by all
+   * of them. Each project's graph is identical to scanning it on its own.
+   */
+  private void scanProjects() throws Exception {
+    if (watch) {
+      throw new IllegalArgumentException("--watch scans a single project");
+    }
+    List<Project> projects = projects();
+    Path outPath = Paths.get(out != null ? out : merge ? "flow." + format : ".");
+    Path outDir = merge ? outPath.toAbsolutePath().getParent() : outPath;
+    Files.createDirectories(outDir);
+    if (profiling) {
+      profile = new ScanProfile(profileTop);
+    }
+    diagnostics = newDiagnostics();
+    plugins = loadPlugins();
+
+    int concurrent = Math.max(1, Math.min(threads, projects.size()));
+    int threadsPerProject = Math.max(1, threads / concurrent);
+    ExecutorService pool = Executors.newFixedThreadPool(concurrent);
+    try {
+      List<Future<UnifiedGraphBuilder>> graphs = new ArrayList<>();
+      for (Project project : projects) {
+        graphs.add(pool.submit(() -> scanProject(project, threadsPerProject)));
+      }
+      UnifiedGraphBuilder merged = merge ? new UnifiedGraphBuilder(projectId != null ? projectId : "merged") : null;
+      // project that first defined each method and endpoint of the merged graph
+      Map<String, String> definedBy = new HashMap<>();
+      for (int i = 0; i < projects.size(); i++) {
+        UnifiedGraphBuilder graph = graphs.get(i).get();
+        graphs.set(i, null); // done with it once written or merged
+        if (merged != null) {
+          String id = projects.get(i).id;
+          reportSharedNodes(merged.sharedNodes(graph), definedBy, id);
+          graph.nodeIds().forEach(node -> definedBy.putIfAbsent(node, id));
+          merged.merge(graph);
+        } else {
+          writeGraph(graph, outDir.resolve(projects.get(i).id + "." + format));
+        }
       }
+      if (merged != null) {
+        long shared = diagnostics.count("merge.shared-node");
+        if (shared > 0) {
+          logger.warn("{} methods or endpoints are defined by more than one project and were merged into one node each, "
+              + "{} of them with different attributes (kept from the later project); see merge.shared-node and "
+              + "merge.conflict in the diagnostics", shared, diagnostics.count("merge.conflict"));
+        }
+        writeGraph(merged, outPath);
+      }
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+    } finally {
+      pool.shutdownNow();
+    }
+    writeProfile(merge ? profilePath(outPath) : outDir.resolve("flow.profile.json"));
+    writeDiagnostics();
+  }
 
-      Path outPath = out != null ? Paths.get(out) : Paths.get("flow.json");
-      Path parent = outPath.getParent();
-      if (parent != null) {
-        Files.createDirectories(parent);
+  private UnifiedGraphBuilder scanProject(Project project, int threads) throws Exception {
+    ConfigLoader config = new ConfigLoader(project.config);
+    ClasspathIndex classpath = openClasspath(project.src);
+    ScanCache cache = cacheDir != null
+        ? ScanCache.open(Paths.get(cacheDir).resolve(project.id), cacheFingerprint(plugins, config, classpath))
+        : null;
+    UnifiedGraphBuilder graph = scan(project.id, project.src, threads, config, classpath, plugins, cache, null);
+    if (cache != null) {
+      cache.save();
+    }
+    return graph;
+  }
+
+  /**
+   * Counts the nodes {@code project} shares with the projects merged before it, per pair of
+   * projects, and those it defines differently also as conflicts.
+   */
+  private void reportSharedNodes(Map<String, Boolean> shared, Map<String, String> definedBy, String project) {
+    shared.forEach((node, differs) -> {
+      String pair = definedBy.get(node) + "/" + project;
+      diagnostics.report("merge.shared-node", pair, () -> node);
+      if (differs) {
+        diagnostics.report("merge.conflict", pair, () -> node);
+        if (diagnostics.isVerbose()) {
+          logger.warn("Projects {} define {} differently; keeping {}'s", pair, node, project);
+        }
       }
+    });
+  }
 
-      new GraphExporterJson().write(model, outPath);
-      System.out.println("Graph written to: " + outPath.toAbsolutePath());
-    } catch (Exception e) {
-      e.printStackTrace();
-      System.exit(1);
+  private void writeGraph(UnifiedGraphBuilder builder, Path outPath) throws IOException {
+    CompactGraph graph;
+    ScanProfile.Timer converting = phase("convert");
+    try {
+      graph = builder.build();
+    } finally {
+      converting.stop();
+    }
+    ScanProfile.Timer exporting = phase("export");
+    try {
+      write(graph, outPath);
+    } finally {
+      exporting.stop();
+    }
+    System.out.println("Graph written to: " + outPath.toAbsolutePath());
+  }
+
+  private List<Project> projects() throws IOException {
+    List<Project> projects = new ArrayList<>();
+    if (manifest != null) {
+      projects.addAll(readManifest(Paths.get(manifest)));
+    }
+    for (String source : sources) {
+      int eq = source.indexOf('=');
+      if (eq <= 0) {
+        throw new IllegalArgumentException("Name each source root as <projectId>=<dir> when scanning several projects: " + source);
+      }
+      Path srcRoot = Paths.get(source.substring(eq + 1));
+      projects.add(new Project(source.substring(0, eq), srcRoot, defaultConfig(srcRoot)));
+    }
+    Set<String> ids = new HashSet<>();
+    for (Project project : projects) {
+      if (!ids.add(project.id)) {
+        throw new IllegalArgumentException("Duplicate project id: " + project.id);
+      }
+      if (!Files.isDirectory(project.src)) {
+        throw new IllegalArgumentException("Missing src: " + project.src);
+      }
+    }
+    return projects;
+  }
+
+  /**
+   * Reads {@code <projectId>=<srcRoot>} entries in id order. Relative paths are resolved against
+   * the manifest's directory.
+   */
+  private List<Project> readManifest(Path file) throws IOException {
+    Properties props = new Properties();
+    try (InputStream in = Files.newInputStream(file)) {
+      props.load(in);
+    }
+    Path base = file.toAbsolutePath().getParent();
+    Map<String, String> entries = new TreeMap<>();
+    props.stringPropertyNames().forEach(k -> entries.put(k.trim(), props.getProperty(k).trim()));
+
+    List<Project> projects = new ArrayList<>();
+    for (Map.Entry<String, String> e : entries.entrySet()) {
+      if (e.getKey().endsWith(CONFIG_SUFFIX)) {
+        continue;
+      }
+      Path srcRoot = base.resolve(e.getValue()).normalize();
+      String cfg = entries.get(e.getKey() + CONFIG_SUFFIX);
+      projects.add(new Project(e.getKey(), srcRoot, cfg != null ? base.resolve(cfg).normalize() : defaultConfig(srcRoot)));
+    }
+    return projects;
+  }
+
+  /**
+   * {@code --config} when given, else the {@code resources} directory next to the source root,
+   * as in the standard {@code src/main/java} layout.
+   */
+  private Path defaultConfig(Path srcRoot) {
+    return configDir != null ? Paths.get(configDir) : srcRoot.toAbsolutePath().normalize().resolveSibling("resources");
+  }
+
+  /**
+   * Index of the {@code --classpath} jars plus, with {@code --maven-deps}, the dependencies of the
+   * nearest {@code pom.xml} above {@code srcRoot}; {@code null} when there are none.
+   */
+  private ClasspathIndex openClasspath(Path srcRoot) throws IOException {
+    Set<Path> jars = new LinkedHashSet<>();
+    for (String entries : classpathEntries) {
+      for (String entry : entries.split(Pattern.quote(File.pathSeparator))) {
+        if (!entry.isBlank()) {
+          jars.add(Paths.get(entry.trim()).toAbsolutePath().normalize());
+        }
+      }
+    }
+    if (mavenDeps) {
+      Path pom = nearestPom(srcRoot);
+      if (pom != null) {
+        jars.addAll(MavenClasspath.resolve(pom, mavenRepo != null ? Paths.get(mavenRepo) : MavenClasspath.defaultRepository()));
+      } else {
+        logger.warn("No pom.xml found above {}; --maven-deps adds nothing", srcRoot);
+      }
+    }
+    if (jars.isEmpty()) {
+      return null;
+    }
+    ScanProfile.Timer indexing = phase("classpath");
+    try {
+      Path indexDir = classpathIndexDir != null
+          ? Paths.get(classpathIndexDir)
+          : Paths.get(System.getProperty("user.home"), ".cache", "flow-adapter", "jar-index");
+      ClasspathIndex index = ClasspathIndex.open(new ArrayList<>(jars), JarIndexStore.at(indexDir));
+      logger.info("Resolving library types from {} jars", index.size());
+      return index;
+    } finally {
+      indexing.stop();
+    }
+  }
+
+  private static Path nearestPom(Path srcRoot) {
+    for (Path dir = srcRoot.toAbsolutePath().normalize(); dir != null; dir = dir.getParent()) {
+      if (Files.isRegularFile(dir.resolve("pom.xml"))) {
+        return dir.resolve("pom.xml");
+      }
+    }
+    return null;
+  }
+
+  private SourceWatcher newWatcher(Path srcRoot, Path cfgPath) throws IOException {
+    Path cfgRoot = cfgPath.toAbsolutePath().normalize();
+    List<Path> roots = new ArrayList<>(List.of(srcRoot));
+    if (Files.isDirectory(cfgPath)) {
+      roots.add(cfgPath);
+    }
+    return new SourceWatcher(roots,
+        p -> p.toString().endsWith(".java") || p.endsWith(SourceFilter.IGNORE_FILE)
+            || (p.startsWith(cfgRoot) && p.toString().endsWith(".properties")),
+        debounceMillis);
+  }
+
+  /**
+   * Rescans after every debounced batch of changes until the process is stopped. Only the changed
+   * files are read again; files whose resolved calls depended on them are re-analyzed, everything
+   * else is merged from the in-memory cache, and files that are gone drop out of the graph. A
+   * configuration change that alters the cache fingerprint re-analyzes everything.
+   */
+  private void watch(SourceWatcher watcher, Path outPath) throws Exception {
+    Path srcRoot = srcRoot();
+    Path cfgPath = cfgPath();
+    Path cfgRoot = cfgPath.toAbsolutePath().normalize();
+    System.out.println("Watching " + srcRoot.toAbsolutePath() + " for changes");
+    while (true) {
+      SourceWatcher.Changes changes = watcher.next();
+      long start = System.nanoTime();
+      profile = profiling ? new ScanProfile(profileTop) : null;
+      diagnostics = newDiagnostics();
+      if (changes.isOverflowed() || changes.getPaths().stream().anyMatch(p -> p.startsWith(cfgRoot))) {
+        config = new ConfigLoader(cfgPath);
+        String fingerprint = cacheFingerprint(plugins, config, classpath);
+        if (!fingerprint.equals(cache.getFingerprint())) {
+          cache = ScanCache.inMemory(fingerprint);
+        }
+      }
+      try {
+        UnifiedGraphBuilder builder = scan(projectId, srcRoot, threads, config, classpath, plugins, cache,
+            changes.isOverflowed() ? null : changes.getPaths());
+        cache.advance();
+        CompactGraph graph;
+        ScanProfile.Timer converting = phase("convert");
+        try {
+          graph = builder.build();
+        } finally {
+          converting.stop();
+        }
+        ScanProfile.Timer exporting = phase("export");
+        try {
+          write(graph, outPath);
+        } finally {
+          exporting.stop();
+        }
+      } catch (IOException e) {
+        // e.g. a file removed mid-scan; the event for it triggers another pass
+        logger.warn("Rescan failed: {}", e.getMessage(), e);
+        continue;
+      }
+      System.out.printf("Graph updated in %d ms (%d changed paths)%n",
+          (System.nanoTime() - start) / 1_000_000, changes.getPaths().size());
+      if (profile != null) {
+        System.out.print(profile.summary());
+      }
+      writeDiagnostics();
+    }
+  }
+
+  /**
+   * Writes to a temporary file next to {@code outPath} and moves it into place, so readers never
+   * see a partially written graph.
+   */
+  private void write(CompactGraph graph, Path outPath) throws IOException {
+    Path tmp = FileUtil.createTempSibling(outPath);
+    try {
+      if ("bin".equals(format)) {
+        new GraphExporterBinary().write(graph, tmp);
+      } else {
+        new GraphExporterJson(compact).write(graph, tmp);
+      }
+      Files.move(tmp, outPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  /**
+   * With a cache, plugins run per file right after the core analysis so their output is cached
+   * in the same fragment as the file's methods and calls. {@code plugins} must all
+   * {@linkplain #enrichesUnits enrich units}.
+   */
+  private List<UnitEnricher> perFileEnrichers(List<FlowPlugin> plugins, Path srcRoot, ConfigLoader config) {
+    List<UnitEnricher> enrichers = new ArrayList<>();
+    for (FlowPlugin p : plugins) {
+      System.out.println("Running plugin: " + p.getClass().getName());
+      UnitEnricher enricher = (fragment, file, cu) -> p.enrich(fragment, CompilationUnitIndex.of(srcRoot, file, cu), config);
+      enrichers.add(profile != null ? timed(pluginPhase(p), enricher) : enricher);
+    }
+    return enrichers;
+  }
+
+  /**
+   * Runs a plugin that only implements {@link FlowPlugin#enrich(GraphModel, Path, ConfigLoader)}
+   * over the whole source root. Such a plugin scans the tree itself, so it cannot run per file;
+   * it runs once per scan and its output is merged outside the cached fragments.
+   */
+  private void enrichOnce(FlowPlugin p, GraphWriter graph, Path srcRoot, ConfigLoader config) throws Exception {
+    System.out.println("Running plugin: " + p.getClass().getName());
+    ScanProfile.Timer running = phase(pluginPhase(p));
+    try {
+      GraphModel model = new GraphModel();
+      p.enrich(model, srcRoot, config);
+      graph.merge(model);
+    } finally {
+      running.stop();
+    }
+  }
+
+  /**
+   * Whether {@code plugin} overrides {@link FlowPlugin#enrich(GraphModel, CompilationUnitIndex,
+   * ConfigLoader)}, whose default re-scans the whole source root.
+   */
+  private static boolean enrichesUnits(FlowPlugin plugin) {
+    try {
+      return plugin.getClass().getMethod("enrich", GraphModel.class, CompilationUnitIndex.class, ConfigLoader.class)
+          .getDeclaringClass() != FlowPlugin.class;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Per-file enrichers run concurrently, so their time is summed per thread rather than measured
+   * around the whole phase; it is also part of the scanner's resolve phase.
+   */
+  private UnitEnricher timed(String phase, UnitEnricher enricher) {
+    return (fragment, file, cu) -> {
+      long wall = System.nanoTime();
+      long cpu = ScanProfile.threadCpuNanos();
+      try {
+        enricher.enrich(fragment, file, cu);
+      } finally {
+        profile.add(phase, System.nanoTime() - wall, cpu >= 0 ? ScanProfile.threadCpuNanos() - cpu : -1);
+      }
+    };
+  }
+
+  private void writeProfile(Path profilePath) throws IOException {
+    if (profile != null) {
+      profile.writeJson(profilePath);
+      System.out.print(profile.summary());
+      System.out.println("Profile written to: " + profilePath.toAbsolutePath());
+    }
+  }
+
+  private Diagnostics newDiagnostics() {
+    return new Diagnostics(Diagnostics.DEFAULT_SAMPLES, verbose);
+  }
+
+  /**
+   * Prints the diagnostics of the scan that just finished, if there are any, and writes them to
+   * {@code --diagnostics-json}.
+   */
+  private void writeDiagnostics() throws IOException {
+    if (diagnostics == null) {
+      return;
+    }
+    if (!diagnostics.isEmpty()) {
+      System.out.print(diagnostics.summary(5));
+    }
+    if (diagnosticsJson != null) {
+      diagnostics.writeJson(Paths.get(diagnosticsJson));
+      System.out.println("Diagnostics written to: " + Paths.get(diagnosticsJson).toAbsolutePath());
+    }
+  }
+
+  private static List<FlowPlugin> loadPlugins() {
+    List<FlowPlugin> plugins = new ArrayList<>();
+    ServiceLoader.load(FlowPlugin.class).forEach(plugins::add);
+    return plugins;
+  }
+
+  private ScanProfile.Timer phase(String name) {
+    return profile != null ? profile.start(name) : ScanProfile.Timer.none();
+  }
+
+  private static String pluginPhase(FlowPlugin plugin) {
+    return "plugin " + plugin.getClass().getSimpleName();
+  }
+
+  private static Path profilePath(Path outPath) {
+    String name = outPath.getFileName().toString();
+    int dot = name.lastIndexOf('.');
+    return outPath.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + ".profile.json");
+  }
+
+  private String cacheFingerprint(List<FlowPlugin> plugins, ConfigLoader config, ClasspathIndex classpath) {
+    List<String> parts = new ArrayList<>();
+    plugins.forEach(p -> parts.add(p.getClass().getName()));
+    parts.add("callLines=" + callLines);
+    if (ResolveMode.parse(resolve) != ResolveMode.FULL) {
+      parts.add("resolve=" + ResolveMode.parse(resolve));
+    } else if (callBudgetMillis > 0 || fileBudgetMillis > 0) {
+      parts.add("budgets=" + callBudgetMillis + "," + fileBudgetMillis);
+    }
+    if (classpath != null) {
+      parts.add("classpath=" + String.join(",", classpath.getChecksums()));
+    }
+    for (Map.Entry<String, String> e : new TreeMap<>(config.getProperties()).entrySet()) {
+      parts.add(e.getKey() + "=" + e.getValue());
+    }
+    return ScanCache.fingerprint(parts);
+  }
+
+  private static class Project {
+
+    final String id;
+    final Path src;
+    final Path config;
+
+    Project(String id, Path src, Path config) {
+      this.id = id;
+      this.src = src;
+      this.config = config;
     }
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,259 @@
+package com.flow.adapter.binary;
+
+import static com.flow.adapter.binary.BinaryGraphFormat.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only view of a graph written by {@link BinaryGraphWriter}. The file is memory-mapped and
+ * records are decoded on access, so opening it costs a header read regardless of graph size.
+ * Nodes and edges are addressed by index; strings are decoded once and then reused.
+ *
+ * <p>Instances are not thread-safe.
+ */
+public class BinaryGraph {
+
+  private final ByteBuffer bytes;
+  private final IntBuffer ints;
+  private final int graphId;
+  private final int stringCount;
+  private final int nodeCount;
+  private final int runCount;
+  private final int edgeCount;
+  private final int edgeDataCount;
+  private final int stringsAt;
+  private final int nodesAt;
+  private final int kindsAt;
+  private final int runsAt;
+  private final int edgesAt;
+  private final int edgeDataAt;
+  private final int dataAt;
+  private final int blobAt;
+  private final String[] decoded;
+  private Map<String, Integer> nodeIndex;
+
+  private BinaryGraph(ByteBuffer bytes) throws IOException {
+    this.bytes = bytes.order(ORDER);
+    this.ints = this.bytes.asIntBuffer();
+    if (bytes.capacity() < HEADER_INTS * Integer.BYTES || ints.get(0) != MAGIC) {
+      throw new IOException("Not a binary flow graph");
+    }
+    if (ints.get(1) != VERSION) {
+      throw new IOException("Unsupported binary graph version " + ints.get(1));
+    }
+    graphId = ints.get(2);
+    stringCount = ints.get(3);
+    nodeCount = ints.get(4);
+    int kindCount = ints.get(5);
+    runCount = ints.get(6);
+    edgeCount = ints.get(7);
+    edgeDataCount = ints.get(8);
+    stringsAt = HEADER_INTS;
+    nodesAt = stringsAt + stringCount * STRING_INTS;
+    kindsAt = nodesAt + nodeCount * NODE_INTS;
+    runsAt = kindsAt + kindCount * KIND_INTS;
+    edgesAt = runsAt + runCount * RUN_INTS;
+    edgeDataAt = edgesAt + edgeCount * EDGE_INTS;
+    dataAt = edgeDataAt + edgeDataCount * EDGE_DATA_INTS;
+    blobAt = (dataAt + ints.get(9)) * Integer.BYTES;
+    decoded = new String[stringCount];
+  }
+
+  public static BinaryGraph open(Path file) throws IOException {
+    try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+      return new BinaryGraph(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+    }
+  }
+
+  public String getGraphId() {
+    return string(graphId);
+  }
+
+  public int stringCount() {
+    return stringCount;
+  }
+
+  /**
+   * Entry of the string table, or {@code null} for {@code NONE}.
+   */
+  public String string(int index) {
+    if (index < 0) {
+      return null;
+    }
+    String s = decoded[index];
+    if (s == null) {
+      int first = ints.get(stringsAt + index * STRING_INTS);
+      int second = ints.get(stringsAt + index * STRING_INTS + 1);
+      if (first < 0) {
+        s = string(-first - 1) + JOIN + string(second);
+      } else {
+        byte[] b = new byte[second - first];
+        bytes.get(blobAt + first, b);
+        s = new String(b, StandardCharsets.UTF_8);
+      }
+      decoded[index] = s;
+    }
+    return s;
+  }
+
+  public int nodeCount() {
+    return nodeCount;
+  }
+
+  public String nodeId(int node) {
+    return string(nodeField(node, 0));
+  }
+
+  public String nodeType(int node) {
+    return string(nodeField(node, 1));
+  }
+
+  public String nodeName(int node) {
+    return string(nodeField(node, 2));
+  }
+
+  public Map<String, Object> nodeData(int node) {
+    return data(nodeField(node, 3));
+  }
+
+  /**
+   * Index of the node with the given id, or -1. The id lookup table is built on first use.
+   */
+  public int findNode(String id) {
+    if (nodeIndex == null) {
+      nodeIndex = new HashMap<>(nodeCount * 2);
+      for (int i = nodeCount - 1; i >= 0; i--) {
+        nodeIndex.put(nodeId(i), i);
+      }
+    }
+    return nodeIndex.getOrDefault(id, -1);
+  }
+
+  public int edgeCount() {
+    return edgeCount;
+  }
+
+  public String edgeId(int edge) {
+    int run = runOf(edge);
+    String prefix = string(kindField(runField(run, 1), 0));
+    int first = runField(run, 2);
+    return first == NONE || prefix == null ? prefix : prefix + (first + edge - runField(run, 0));
+  }
+
+  public String edgeType(int edge) {
+    return string(kindField(runField(runOf(edge), 1), 1));
+  }
+
+  /**
+   * Node index of the edge source, or -1 when the source id does not name a node in this graph;
+   * {@link #edgeFromId} still returns the id in that case.
+   */
+  public int edgeFrom(int edge) {
+    return Math.max(ints.get(edgesAt + edge * EDGE_INTS), -1);
+  }
+
+  public int edgeTo(int edge) {
+    return Math.max(ints.get(edgesAt + edge * EDGE_INTS + 1), -1);
+  }
+
+  public String edgeFromId(int edge) {
+    return endpointId(ints.get(edgesAt + edge * EDGE_INTS));
+  }
+
+  public String edgeToId(int edge) {
+    return endpointId(ints.get(edgesAt + edge * EDGE_INTS + 1));
+  }
+
+  public Map<String, Object> edgeData(int edge) {
+    int i = search(edgeDataAt, EDGE_DATA_INTS, edgeDataCount, edge);
+    if (i < 0 || ints.get(edgeDataAt + i * EDGE_DATA_INTS) != edge) {
+      return Collections.emptyMap();
+    }
+    return data(ints.get(edgeDataAt + i * EDGE_DATA_INTS + 1));
+  }
+
+  private int nodeField(int node, int field) {
+    return ints.get(nodesAt + node * NODE_INTS + field);
+  }
+
+  private int kindField(int kind, int field) {
+    return ints.get(kindsAt + kind * KIND_INTS + field);
+  }
+
+  private int runField(int run, int field) {
+    return ints.get(runsAt + run * RUN_INTS + field);
+  }
+
+  private int runOf(int edge) {
+    return search(runsAt, RUN_INTS, runCount, edge);
+  }
+
+  /**
+   * Index of the last record whose first int is {@code <= key}, or -1.
+   */
+  private int search(int at, int width, int count, int key) {
+    int lo = 0;
+    int hi = count - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      if (ints.get(at + mid * width) <= key) {
+        lo = mid + 1;
+      } else {
+        hi = mid - 1;
+      }
+    }
+    return hi;
+  }
+
+  private String endpointId(int value) {
+    if (value == ABSENT) {
+      return null;
+    }
+    return value >= 0 ? nodeId(value) : string(-value - 1);
+  }
+
+  private Map<String, Object> data(int offset) {
+    if (offset == NONE) {
+      return Collections.emptyMap();
+    }
+    int at = dataAt + offset;
+    int count = ints.get(at++);
+    Map<String, Object> map = new LinkedHashMap<>();
+    for (int i = 0; i < count; i++) {
+      int keyAndTag = ints.get(at++);
+      String key = string(keyAndTag >>> TAG_BITS);
+      int tag = keyAndTag & ((1 << TAG_BITS) - 1);
+      switch (tag) {
+        case TAG_STRING:
+          map.put(key, string(ints.get(at++)));
+          break;
+        case TAG_INT:
+          map.put(key, ints.get(at++));
+          break;
+        default: {
+          int n = ints.get(at++);
+          List<Object> values = new ArrayList<>(n);
+          for (int j = 0; j < n; j++) {
+            int v = ints.get(at++);
+            values.add(tag == TAG_INT_LIST ? (Object) v : string(v));
+          }
+          map.put(key, values);
+          break;
+        }
+      }
+    }
+    return map;
+  }
+}
@@ -0,0 +1,62 @@
+package com.flow.adapter.binary;
+
+import java.nio.ByteOrder;
+
+/**
+ * Layout of the {@code --format bin} graph file. Everything is little-endian and int-aligned:
+ *
+ * <pre>
+ * header    int[10]                magic, version, graphId, stringCount, nodeCount, kindCount,
+ *                                  runCount, edgeCount, edgeDataCount, dataWords
+ * strings   int[stringCount * 2]   start, end of the UTF-8 bytes; or -(left) - 1, right
+ * nodes     int[nodeCount * 4]     id, type, name, data
+ * kinds     int[kindCount * 2]     edge id prefix, edge type
+ * runs      int[runCount * 3]      first edge, kind, first id number
+ * edges     int[edgeCount * 2]     from, to
+ * edgeData  int[edgeDataCount * 2] edge index, data; ascending by edge, only non-empty maps
+ * data      int[dataWords]         attribute maps, referenced by word offset
+ * blob      byte[]                 UTF-8 string bytes
+ * </pre>
+ *
+ * String fields hold a string table index, or {@link #NONE}. Ids of the form {@code left#right}
+ * are stored as a joined entry over the two halves, so a method id shares its class id and
+ * signature with the CLASS node and the {@code signature} attribute.
+ *
+ * <p>Edge ids are split into a prefix and a numeric suffix ({@code "e-call-" + 17}). Consecutive
+ * edges with the same prefix and type and numbers counting up by one form a run, so an edge record
+ * is only its endpoints; ids without a numeric suffix use {@link #NONE} as the number. Edge
+ * endpoints hold the node index when the id names a node, otherwise {@code -(string index) - 1},
+ * or {@link #ABSENT} for no id. A data field is {@link #NONE} for an empty map, otherwise the word
+ * offset of {@code count, (key << 2 | tag, value...)*}.
+ */
+final class BinaryGraphFormat {
+
+  static final int MAGIC = 0x42574c46; // "FLWB"
+  static final int VERSION = 1;
+  static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+  static final int HEADER_INTS = 10;
+  static final int STRING_INTS = 2;
+  static final int NODE_INTS = 4;
+  static final int KIND_INTS = 2;
+  static final int RUN_INTS = 3;
+  static final int EDGE_INTS = 2;
+  static final int EDGE_DATA_INTS = 2;
+
+  static final int NONE = -1;
+  static final int ABSENT = Integer.MIN_VALUE;
+  static final char JOIN = '#';
+
+  static final int TAG_BITS = 2;
+  /** Value is one string index. */
+  static final int TAG_STRING = 0;
+  /** Value is a length followed by that many string indices. */
+  static final int TAG_STRING_LIST = 1;
+  /** Value is one int. */
+  static final int TAG_INT = 2;
+  /** Value is a length followed by that many ints. */
+  static final int TAG_INT_LIST = 3;
+
+  private BinaryGraphFormat() {
+  }
+}
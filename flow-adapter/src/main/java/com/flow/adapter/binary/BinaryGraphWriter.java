@@ -0,0 +1,269 @@
+package com.flow.adapter.binary;
+
+import static com.flow.adapter.binary.BinaryGraphFormat.*;
+
+import com.flow.adapter.Model.UnifiedGraphSink;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Collects a streamed unified graph into the compact binary layout described in
+ * {@link BinaryGraphFormat}. Every distinct string is stored once; nodes, edges and attributes
+ * are kept as int arrays until {@link #writeTo(Path)}.
+ */
+public class BinaryGraphWriter implements UnifiedGraphSink {
+
+  private final Map<String, Integer> strings = new HashMap<>();
+  private final ByteArrayOutputStream utf8 = new ByteArrayOutputStream();
+  private final IntList stringEntries = new IntList();
+  private final IntList nodes = new IntList();
+  private final Map<Long, Integer> kindIndex = new HashMap<>();
+  private final IntList kinds = new IntList();
+  private final IntList runs = new IntList();
+  private final IntList edges = new IntList();
+  private final IntList edgeData = new IntList();
+  private final IntList data = new IntList();
+  // string index -> node index + 1, so an edge endpoint can be stored as a node index
+  private int[] nodeOfString = new int[1024];
+  private final int graphId;
+  private int lastKind = NONE;
+  private int lastNumber = NONE;
+
+  public BinaryGraphWriter(String graphId) {
+    this.graphId = intern(graphId);
+  }
+
+  @Override
+  public void node(String id, String type, String name, Map<String, Object> attributes) {
+    int idIndex = intern(id);
+    int nodeIndex = nodes.size() / NODE_INTS;
+    if (idIndex >= nodeOfString.length) {
+      nodeOfString = Arrays.copyOf(nodeOfString, Math.max(idIndex + 1, nodeOfString.length * 2));
+    }
+    if (idIndex >= 0 && nodeOfString[idIndex] == 0) {
+      nodeOfString[idIndex] = nodeIndex + 1;
+    }
+    nodes.add(idIndex);
+    nodes.add(intern(type));
+    nodes.add(intern(name));
+    nodes.add(writeData(attributes));
+  }
+
+  @Override
+  public void edge(String id, String from, String to, String type, Map<String, Object> attributes) {
+    int split = id != null ? numericSuffixStart(id) : -1;
+    int prefix = split >= 0 ? intern(id.substring(0, split)) : intern(id);
+    int number = split >= 0 ? Integer.parseInt(id.substring(split)) : NONE;
+    int kind = kind(prefix, intern(type));
+    int edgeIndex = edges.size() / EDGE_INTS;
+
+    boolean continuesRun = kind == lastKind
+        && (number == NONE ? lastNumber == NONE : lastNumber != NONE && number == lastNumber + 1);
+    if (!continuesRun) {
+      runs.add(edgeIndex);
+      runs.add(kind);
+      runs.add(number);
+    }
+    lastKind = kind;
+    lastNumber = number;
+
+    edges.add(endpoint(from));
+    edges.add(endpoint(to));
+    int offset = writeData(attributes);
+    if (offset != NONE) {
+      edgeData.add(edgeIndex);
+      edgeData.add(offset);
+    }
+  }
+
+  public void writeTo(Path out) throws IOException {
+    try (FileChannel ch = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      writeTo(ch);
+    }
+  }
+
+  /**
+   * Writes the graph to {@code out} without closing it.
+   */
+  public void writeTo(OutputStream out) throws IOException {
+    writeTo(Channels.newChannel(out));
+  }
+
+  private void writeTo(WritableByteChannel ch) throws IOException {
+    int[] header = {MAGIC, VERSION, graphId, stringEntries.size() / STRING_INTS, nodes.size() / NODE_INTS,
+        kinds.size() / KIND_INTS, runs.size() / RUN_INTS, edges.size() / EDGE_INTS,
+        edgeData.size() / EDGE_DATA_INTS, data.size()};
+    ByteBuffer buf = ByteBuffer.allocate(1 << 16).order(ORDER);
+    writeInts(ch, buf, header, header.length);
+    for (IntList section : new IntList[] {stringEntries, nodes, kinds, runs, edges, edgeData, data}) {
+      writeInts(ch, buf, section.values, section.size());
+    }
+    flush(ch, buf);
+    ByteBuffer bytes = ByteBuffer.wrap(utf8.toByteArray());
+    while (bytes.hasRemaining()) {
+      ch.write(bytes);
+    }
+  }
+
+  private int intern(String s) {
+    if (s == null) {
+      return NONE;
+    }
+    Integer existing = strings.get(s);
+    if (existing != null) {
+      return existing;
+    }
+    int join = s.indexOf(JOIN);
+    if (join > 0 && join < s.length() - 1) {
+      int left = intern(s.substring(0, join));
+      int right = intern(s.substring(join + 1));
+      stringEntries.add(-left - 1);
+      stringEntries.add(right);
+    } else {
+      byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+      stringEntries.add(utf8.size());
+      utf8.write(bytes, 0, bytes.length);
+      stringEntries.add(utf8.size());
+    }
+    int index = stringEntries.size() / STRING_INTS - 1;
+    strings.put(s, index);
+    return index;
+  }
+
+  private int kind(int prefix, int type) {
+    return kindIndex.computeIfAbsent(((long) prefix << 32) | (type & 0xffffffffL), k -> {
+      kinds.add(prefix);
+      kinds.add(type);
+      return kinds.size() / KIND_INTS - 1;
+    });
+  }
+
+  private int endpoint(String id) {
+    int index = intern(id);
+    if (index == NONE) {
+      return ABSENT;
+    }
+    int node = index < nodeOfString.length ? nodeOfString[index] - 1 : NONE;
+    return node >= 0 ? node : -index - 1;
+  }
+
+  private int writeData(Map<String, Object> attributes) {
+    int start = data.size();
+    data.add(0);
+    int count = 0;
+    for (Map.Entry<String, Object> e : attributes.entrySet()) {
+      Object value = e.getValue();
+      if (value == null) {
+        continue;
+      }
+      writeValue(intern(e.getKey()), value);
+      count++;
+    }
+    if (count == 0) {
+      data.truncate(start);
+      return NONE;
+    }
+    data.set(start, count);
+    return start;
+  }
+
+  private void writeValue(int key, Object value) {
+    if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+      data.add(key << TAG_BITS | TAG_INT);
+      data.add(((Number) value).intValue());
+    } else if (value instanceof Collection && isIntCollection((Collection<?>) value)) {
+      Collection<?> values = (Collection<?>) value;
+      data.add(key << TAG_BITS | TAG_INT_LIST);
+      data.add(values.size());
+      values.forEach(v -> data.add(((Number) v).intValue()));
+    } else if (value instanceof Collection) {
+      Collection<?> values = (Collection<?>) value;
+      data.add(key << TAG_BITS | TAG_STRING_LIST);
+      data.add(values.size());
+      values.forEach(v -> data.add(intern(v != null ? v.toString() : null)));
+    } else {
+      data.add(key << TAG_BITS | TAG_STRING);
+      data.add(intern(value.toString()));
+    }
+  }
+
+  private static boolean isIntCollection(Collection<?> values) {
+    if (values.isEmpty()) {
+      return false;
+    }
+    for (Object v : values) {
+      if (!(v instanceof Integer)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int numericSuffixStart(String id) {
+    int i = id.length();
+    while (i > 0 && id.charAt(i - 1) >= '0' && id.charAt(i - 1) <= '9') {
+      i--;
+    }
+    int digits = id.length() - i;
+    // keep the round trip exact: no leading zeros, fits in a non-negative int
+    if (digits == 0 || digits > 9 || (digits > 1 && id.charAt(i) == '0')) {
+      return -1;
+    }
+    return i;
+  }
+
+  private static void writeInts(WritableByteChannel ch, ByteBuffer buf, int[] values, int length) throws IOException {
+    for (int i = 0; i < length; i++) {
+      if (buf.remaining() < Integer.BYTES) {
+        flush(ch, buf);
+      }
+      buf.putInt(values[i]);
+    }
+  }
+
+  private static void flush(WritableByteChannel ch, ByteBuffer buf) throws IOException {
+    buf.flip();
+    while (buf.hasRemaining()) {
+      ch.write(buf);
+    }
+    buf.clear();
+  }
+
+  private static class IntList {
+
+    int[] values = new int[1024];
+    private int size;
+
+    void add(int v) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = v;
+    }
+
+    void set(int index, int v) {
+      values[index] = v;
+    }
+
+    void truncate(int newSize) {
+      size = newSize;
+    }
+
+    int size() {
+      return size;
+    }
+  }
+}
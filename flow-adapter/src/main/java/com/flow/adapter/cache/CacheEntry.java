@@ -0,0 +1,25 @@
+package com.flow.adapter.cache;
+
+import com.flow.adapter.Model.GraphModel;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cached analysis result for one source file: its content digest, the graph fragment extracted
+ * from it (core scanner and plugins), and the inputs that fragment depended on.
+ */
+public class CacheEntry {
+
+  public String digest;
+  public GraphModel fragment;
+  // project-relative path -> digest of each file a resolution in this file resolved into
+  public Map<String, String> dependencies = new LinkedHashMap<>();
+  // type names looked up in the project sources without success
+  public Set<String> missingTypes = new LinkedHashSet<>();
+  // fully qualified names of the types declared in this file, nested types included
+  public List<String> declaredTypes = new ArrayList<>();
+}
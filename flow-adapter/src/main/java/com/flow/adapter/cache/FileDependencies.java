@@ -0,0 +1,31 @@
+package com.flow.adapter.cache;
+
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Source-level inputs observed while analyzing one file: the project files whose types were
+ * resolved, and the type names the source solver was asked for but could not find.
+ */
+public class FileDependencies {
+
+  private final Set<Path> files = new LinkedHashSet<>();
+  private final Set<String> missingTypes = new LinkedHashSet<>();
+
+  public void addFile(Path file) {
+    files.add(file);
+  }
+
+  public void addMissingType(String name) {
+    missingTypes.add(name);
+  }
+
+  public Set<Path> getFiles() {
+    return files;
+  }
+
+  public Set<String> getMissingTypes() {
+    return missingTypes;
+  }
+}
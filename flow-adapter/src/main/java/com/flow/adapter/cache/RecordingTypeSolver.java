@@ -0,0 +1,87 @@
+package com.flow.adapter.cache;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Wraps a worker's root type solver and records which files each lookup resolved into, so cached
+ * results can be invalidated when a file they depended on changes. It becomes the parent of the
+ * wrapped solver, so lookups made through {@link TypeSolver#getRoot()} pass through it as well and
+ * are recorded before any name cache below it can answer them. Instances are confined to a single
+ * scan worker; recording applies to the file that worker is currently analyzing.
+ */
+public class RecordingTypeSolver implements TypeSolver {
+
+  private final TypeSolver delegate;
+  private TypeSolver parent;
+  private FileDependencies current;
+  private List<String> capture;
+
+  public RecordingTypeSolver(TypeSolver delegate) {
+    this.delegate = delegate;
+    delegate.setParent(this);
+  }
+
+  public void startRecording(FileDependencies dependencies) {
+    this.current = dependencies;
+  }
+
+  public void stopRecording() {
+    this.current = null;
+  }
+
+  /**
+   * Starts collecting the names looked up until {@link #endCapture()}, so a memoized resolution
+   * can later {@link #replay} them and record the same dependencies without resolving again.
+   */
+  public void beginCapture() {
+    this.capture = new ArrayList<>();
+  }
+
+  public List<String> endCapture() {
+    List<String> names = capture != null ? List.copyOf(capture) : List.of();
+    capture = null;
+    return names;
+  }
+
+  public void replay(Collection<String> names) {
+    if (current != null) {
+      names.forEach(this::tryToSolveType);
+    }
+  }
+
+  @Override
+  public TypeSolver getParent() {
+    return parent;
+  }
+
+  @Override
+  public void setParent(TypeSolver parent) {
+    this.parent = parent;
+  }
+
+  @Override
+  public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+    SymbolReference<ResolvedReferenceTypeDeclaration> ref = delegate.tryToSolveType(name);
+    if (capture != null) {
+      capture.add(name);
+    }
+    if (current != null) {
+      if (ref.isSolved()) {
+        ref.getCorrespondingDeclaration().toAst()
+            .flatMap(Node::findCompilationUnit)
+            .flatMap(CompilationUnit::getStorage)
+            .ifPresent(storage -> current.addFile(storage.getPath()));
+      } else {
+        current.addMissingType(name);
+      }
+    }
+    return ref;
+  }
+}
@@ -0,0 +1,170 @@
+package com.flow.adapter.cache;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.flow.adapter.util.FileUtil;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * On-disk cache of per-file scan results keyed by content digest. An entry is reused only when the
+ * file itself, every file its call resolutions resolved into, and the set of types it failed to
+ * find are all unchanged; anything else is re-analyzed. The whole cache is discarded when the
+ * fingerprint (cache format, plugins, configuration) differs from the one it was written with.
+ */
+public class ScanCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(ScanCache.class);
+
+  static final int VERSION = 3;
+  private static final String MANIFEST = "scan-cache.json";
+  private static final ObjectMapper mapper = JsonMapper.builder()
+      .defaultPropertyInclusion(JsonInclude.Value.construct(JsonInclude.Include.NON_NULL, JsonInclude.Include.NON_NULL))
+      .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+      .build();
+
+  private final Path dir;
+  private final String fingerprint;
+  private Map<String, CacheEntry> previous;
+  private Map<String, CacheEntry> current = new LinkedHashMap<>();
+
+  private ScanCache(Path dir, String fingerprint, Map<String, CacheEntry> previous) {
+    this.dir = dir;
+    this.fingerprint = fingerprint;
+    this.previous = previous;
+  }
+
+  public static ScanCache open(Path dir, String fingerprint) {
+    Path manifest = dir.resolve(MANIFEST);
+    Map<String, CacheEntry> entries = new LinkedHashMap<>();
+    if (Files.isRegularFile(manifest)) {
+      try {
+        Manifest m = mapper.readValue(manifest.toFile(), Manifest.class);
+        if (m.version == VERSION && fingerprint.equals(m.fingerprint) && m.entries != null) {
+          entries = m.entries;
+        } else {
+          logger.info("Scan cache in {} was written with different settings; starting cold", dir);
+        }
+      } catch (IOException e) {
+        logger.warn("Ignoring unreadable scan cache {}: {}", manifest, e.getMessage());
+      }
+    }
+    return new ScanCache(dir, fingerprint, entries);
+  }
+
+  /**
+   * An empty cache that lives only as long as this process, e.g. across the rescans of a watch.
+   */
+  public static ScanCache inMemory(String fingerprint) {
+    return new ScanCache(null, fingerprint, new LinkedHashMap<>());
+  }
+
+  public String getFingerprint() {
+    return fingerprint;
+  }
+
+  /**
+   * Digest the previous entry for {@code relPath} was recorded with, or {@code null}.
+   */
+  public String digestOf(String relPath) {
+    CacheEntry entry = previous.get(relPath);
+    return entry != null ? entry.digest : null;
+  }
+
+  /**
+   * Makes the entries recorded during this scan the ones the next scan looks up.
+   */
+  public void advance() {
+    previous = current;
+    current = new LinkedHashMap<>();
+  }
+
+  /**
+   * Returns the previous entry for {@code relPath} if its content digest still matches.
+   */
+  public CacheEntry lookup(String relPath, String digest) {
+    CacheEntry entry = previous.get(relPath);
+    return entry != null && digest.equals(entry.digest) ? entry : null;
+  }
+
+  /**
+   * Checks that everything {@code entry} depended on is unchanged: each recorded dependency still
+   * has the same digest, and none of the types it could not find has since been declared.
+   */
+  public boolean isValid(CacheEntry entry, Map<String, String> digests, Set<String> newlyDeclaredTypes) {
+    for (Map.Entry<String, String> dep : entry.dependencies.entrySet()) {
+      if (!dep.getValue().equals(digests.get(dep.getKey()))) {
+        return false;
+      }
+    }
+    for (String missing : entry.missingTypes) {
+      if (newlyDeclaredTypes.contains(missing)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public void put(String relPath, CacheEntry entry) {
+    current.put(relPath, entry);
+  }
+
+  /**
+   * Writes the entries recorded during this scan, replacing the previous manifest atomically.
+   * Files that no longer exist drop out of the cache.
+   */
+  public void save() throws IOException {
+    if (dir == null) {
+      throw new IllegalStateException("In-memory scan cache cannot be saved");
+    }
+    Files.createDirectories(dir);
+    Manifest m = new Manifest();
+    m.version = VERSION;
+    m.fingerprint = fingerprint;
+    m.entries = current;
+    Path tmp = FileUtil.createTempSibling(dir.resolve(MANIFEST));
+    mapper.writeValue(tmp.toFile(), m);
+    Files.move(tmp, dir.resolve(MANIFEST), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  public static String digest(byte[] content) {
+    return HexFormat.of().formatHex(sha256().digest(content));
+  }
+
+  public static String fingerprint(Iterable<String> parts) {
+    MessageDigest md = sha256();
+    md.update(Integer.toString(VERSION).getBytes(java.nio.charset.StandardCharsets.UTF_8));
+    for (String part : parts) {
+      md.update((byte) 0);
+      md.update(part.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+    }
+    return HexFormat.of().formatHex(md.digest());
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
+  static class Manifest {
+
+    public int version;
+    public String fingerprint;
+    public Map<String, CacheEntry> entries;
+  }
+}
@@ -0,0 +1,115 @@
+package com.flow.adapter.classpath;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The dependency jars of one project, searched in classpath order. Each lookup only consults the
+ * jars that contain the candidate package, so names that are not on the classpath at all, which
+ * the solver asks about for every import candidate, fail with a few hash lookups.
+ *
+ * <p>Immutable and thread-safe; one instance is shared by all workers of a scan.
+ */
+public class ClasspathIndex {
+
+  private static final Logger logger = LoggerFactory.getLogger(ClasspathIndex.class);
+
+  private final List<JarSymbolIndex> jars;
+  private final List<String> checksums;
+  private final Map<String, List<JarSymbolIndex>> byPackage = new HashMap<>();
+
+  private ClasspathIndex(List<JarSymbolIndex> jars, List<String> checksums) {
+    this.jars = jars;
+    this.checksums = checksums;
+    for (JarSymbolIndex jar : jars) {
+      for (String pkg : jar.packages()) {
+        byPackage.computeIfAbsent(pkg, k -> new ArrayList<>(1)).add(jar);
+      }
+    }
+  }
+
+  /**
+   * Indexes the jars in {@code entries} through {@code store}; entries that are not jar files are
+   * skipped with a warning.
+   */
+  public static ClasspathIndex open(List<Path> entries, JarIndexStore store) throws IOException {
+    List<JarSymbolIndex> jars = new ArrayList<>();
+    List<String> checksums = new ArrayList<>();
+    for (Path entry : entries) {
+      if (!Files.isRegularFile(entry) || !entry.getFileName().toString().endsWith(".jar")) {
+        logger.warn("Skipping classpath entry that is not a jar file: {}", entry);
+        continue;
+      }
+      jars.add(store.index(entry));
+      checksums.add(store.checksum(entry));
+    }
+    store.save();
+    return new ClasspathIndex(jars, checksums);
+  }
+
+  /**
+   * Checksums of the jars in classpath order, for cache fingerprints.
+   */
+  public List<String> getChecksums() {
+    return checksums;
+  }
+
+  public int size() {
+    return jars.size();
+  }
+
+  /**
+   * Finds the first jar declaring {@code name} (source form, e.g. {@code a.b.Outer.Inner}).
+   */
+  public Hit find(String name) {
+    // the package is some prefix of the name; nested classes put class names after it
+    for (int dot = name.lastIndexOf('.'); dot > 0; dot = name.lastIndexOf('.', dot - 1)) {
+      List<JarSymbolIndex> candidates = byPackage.get(name.substring(0, dot));
+      if (candidates != null) {
+        for (JarSymbolIndex jar : candidates) {
+          String entry = jar.find(name);
+          if (entry != null) {
+            return new Hit(jar, entry);
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * A class file located in one of the jars.
+   */
+  public static class Hit {
+
+    private final JarSymbolIndex jar;
+    private final String entry;
+
+    Hit(JarSymbolIndex jar, String entry) {
+      this.jar = jar;
+      this.entry = entry;
+    }
+
+    public JarSymbolIndex getJar() {
+      return jar;
+    }
+
+    public String getEntry() {
+      return entry;
+    }
+
+    /**
+     * Binary class name, e.g. {@code a.b.Outer$Inner}.
+     */
+    public String getClassName() {
+      return entry.substring(0, entry.length() - ".class".length()).replace('/', '.');
+    }
+  }
+}
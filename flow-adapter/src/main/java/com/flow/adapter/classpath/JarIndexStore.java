@@ -0,0 +1,192 @@
+package com.flow.adapter.classpath;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Directory of {@link JarSymbolIndex} files named by the SHA-256 of the jar they index, so a jar
+ * is indexed once no matter where it lives or how many projects use it. Checksums are kept in a
+ * catalog keyed by jar path, size and modification time, which spares re-reading unchanged jars on
+ * every run. Stores are shared per directory within the process and are thread-safe.
+ *
+ * <p>Opened indexes hold their jar open. An index is closed once no jar in the catalog has its
+ * checksum any more, e.g. after the jar was replaced, and every index is closed by
+ * {@link #closeAll()}.
+ */
+public class JarIndexStore {
+
+  private static final Logger logger = LoggerFactory.getLogger(JarIndexStore.class);
+
+  private static final String CATALOG = "catalog.json";
+  private static final ObjectMapper mapper = JsonMapper.builder()
+      .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+      .build();
+  private static final Map<Path, JarIndexStore> stores = new ConcurrentHashMap<>();
+
+  private final Path dir;
+  private final Map<String, CatalogEntry> catalog = new ConcurrentHashMap<>();
+  private final Map<String, JarSymbolIndex> opened = new ConcurrentHashMap<>();
+  private volatile boolean dirty;
+
+  private JarIndexStore(Path dir) {
+    this.dir = dir;
+    Path file = dir.resolve(CATALOG);
+    if (Files.isRegularFile(file)) {
+      try {
+        Catalog c = mapper.readValue(file.toFile(), Catalog.class);
+        if (c.entries != null) {
+          catalog.putAll(c.entries);
+        }
+      } catch (IOException e) {
+        logger.warn("Ignoring unreadable jar index catalog {}: {}", file, e.getMessage());
+      }
+    }
+  }
+
+  public static JarIndexStore at(Path dir) {
+    return stores.computeIfAbsent(dir.toAbsolutePath().normalize(), JarIndexStore::new);
+  }
+
+  /**
+   * Returns the index of {@code jar}, building it on first use.
+   */
+  public JarSymbolIndex index(Path jar) throws IOException {
+    String checksum = checksum(jar);
+    JarSymbolIndex index = opened.get(checksum);
+    if (index != null) {
+      return index;
+    }
+    synchronized (this) {
+      index = opened.get(checksum);
+      if (index == null) {
+        Path file = dir.resolve(checksum + ".idx");
+        if (!Files.isRegularFile(file)) {
+          JarSymbolIndex.write(jar, file);
+          logger.info("Indexed {}", jar);
+        }
+        index = JarSymbolIndex.open(jar, file);
+        opened.put(checksum, index);
+      }
+    }
+    return index;
+  }
+
+  /**
+   * SHA-256 of {@code jar}, from the catalog when its size and modification time are unchanged.
+   */
+  public String checksum(Path jar) throws IOException {
+    Path abs = jar.toAbsolutePath().normalize();
+    BasicFileAttributes attrs = Files.readAttributes(abs, BasicFileAttributes.class);
+    CatalogEntry entry = catalog.get(abs.toString());
+    if (entry != null && entry.size == attrs.size() && entry.modified == attrs.lastModifiedTime().toMillis()) {
+      return entry.sha256;
+    }
+    CatalogEntry previous = entry;
+    entry = new CatalogEntry();
+    entry.size = attrs.size();
+    entry.modified = attrs.lastModifiedTime().toMillis();
+    entry.sha256 = sha256(abs);
+    catalog.put(abs.toString(), entry);
+    dirty = true;
+    if (previous != null && !previous.sha256.equals(entry.sha256)) {
+      evict(previous.sha256);
+    }
+    return entry.sha256;
+  }
+
+  /**
+   * Closes every index opened by any store in this process, e.g. when a long-running server
+   * stops. Later {@link #index} calls open them again.
+   */
+  public static void closeAll() {
+    stores.values().forEach(JarIndexStore::close);
+  }
+
+  private synchronized void close() {
+    opened.values().forEach(JarIndexStore::closeQuietly);
+    opened.clear();
+  }
+
+  /**
+   * Closes the index of {@code checksum} unless another jar in the catalog still has it.
+   */
+  private synchronized void evict(String checksum) {
+    if (catalog.values().stream().anyMatch(e -> checksum.equals(e.sha256))) {
+      return;
+    }
+    JarSymbolIndex index = opened.remove(checksum);
+    if (index != null) {
+      closeQuietly(index);
+    }
+  }
+
+  private static void closeQuietly(JarSymbolIndex index) {
+    try {
+      index.close();
+    } catch (IOException e) {
+      logger.warn("Could not close {}: {}", index.getJar(), e.getMessage());
+    }
+  }
+
+  /**
+   * Writes the catalog if checksums were added since it was read.
+   */
+  public synchronized void save() throws IOException {
+    if (!dirty) {
+      return;
+    }
+    Files.createDirectories(dir);
+    Catalog c = new Catalog();
+    c.entries = new TreeMap<>(catalog);
+    Path tmp = Files.createTempFile(dir, CATALOG, ".tmp");
+    try {
+      mapper.writeValue(tmp.toFile(), c);
+      Files.move(tmp, dir.resolve(CATALOG), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+    dirty = false;
+  }
+
+  private static String sha256(Path file) throws IOException {
+    MessageDigest md;
+    try {
+      md = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+    try (InputStream in = new DigestInputStream(Files.newInputStream(file), md)) {
+      in.transferTo(OutputStream.nullOutputStream());
+    }
+    return HexFormat.of().formatHex(md.digest());
+  }
+
+  static class Catalog {
+
+    public Map<String, CatalogEntry> entries;
+  }
+
+  static class CatalogEntry {
+
+    public long size;
+    public long modified;
+    public String sha256;
+  }
+}
@@ -0,0 +1,249 @@
+package com.flow.adapter.classpath;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Memory-mapped index of the classes in one jar, written once per jar content and reused by every
+ * later scan. Opening it reads only the header; lookups binary-search the mapped file, so a
+ * classpath of hundreds of jars costs nothing until a name is actually looked up.
+ *
+ * <pre>
+ * header    int[4]                 magic, version, classCount, packageCount
+ * classes   int[classCount * 4]    name start, name length, entry start, entry length
+ * packages  int[packageCount * 2]  start, length
+ * blob      byte[]                 UTF-8 bytes
+ * </pre>
+ *
+ * Class names are in source form ({@code a.b.Outer.Inner}) and sorted by their UTF-8 bytes; the
+ * entry is the class file's path in the jar. Instances are thread-safe; the jar itself is opened on
+ * the first {@link #open(String)} and held until {@link #close()}.
+ */
+public class JarSymbolIndex implements Closeable {
+
+  private static final int MAGIC = 0x49504346; // "FCPI"
+  private static final int VERSION = 1;
+  private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+  private static final int HEADER_INTS = 4;
+  private static final int CLASS_INTS = 4;
+  private static final int PACKAGE_INTS = 2;
+
+  private final Path jar;
+  private final ByteBuffer bytes;
+  private final int classCount;
+  private final int packageCount;
+  private final int classesAt;
+  private final int packagesAt;
+  private final int blobAt;
+  private volatile ZipFile zip;
+  private boolean closed;
+
+  private JarSymbolIndex(Path jar, ByteBuffer bytes) throws IOException {
+    this.jar = jar;
+    this.bytes = bytes.order(ORDER);
+    if (bytes.capacity() < HEADER_INTS * Integer.BYTES || bytes.getInt(0) != MAGIC) {
+      throw new IOException("Not a jar symbol index");
+    }
+    if (bytes.getInt(4) != VERSION) {
+      throw new IOException("Unsupported jar symbol index version " + bytes.getInt(4));
+    }
+    classCount = bytes.getInt(8);
+    packageCount = bytes.getInt(12);
+    classesAt = HEADER_INTS * Integer.BYTES;
+    packagesAt = classesAt + classCount * CLASS_INTS * Integer.BYTES;
+    blobAt = packagesAt + packageCount * PACKAGE_INTS * Integer.BYTES;
+  }
+
+  /**
+   * Maps {@code index}, a file written by {@link #write} for {@code jar}.
+   */
+  public static JarSymbolIndex open(Path jar, Path index) throws IOException {
+    try (FileChannel ch = FileChannel.open(index, StandardOpenOption.READ)) {
+      return new JarSymbolIndex(jar, ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+    }
+  }
+
+  /**
+   * Lists the class files of {@code jar} and writes their index to {@code index}, replacing it
+   * atomically.
+   */
+  public static void write(Path jar, Path index) throws IOException {
+    TreeMap<byte[], byte[]> classes = new TreeMap<>(Arrays::compareUnsigned);
+    TreeSet<String> packages = new TreeSet<>();
+    try (ZipFile zip = new ZipFile(jar.toFile())) {
+      Enumeration<? extends ZipEntry> entries = zip.entries();
+      while (entries.hasMoreElements()) {
+        String entry = entries.nextElement().getName();
+        if (!entry.endsWith(".class") || entry.startsWith("META-INF/")
+            || entry.endsWith("module-info.class") || entry.endsWith("package-info.class")) {
+          continue;
+        }
+        String binaryName = entry.substring(0, entry.length() - ".class".length()).replace('/', '.');
+        int dot = binaryName.lastIndexOf('.');
+        packages.add(dot > 0 ? binaryName.substring(0, dot) : "");
+        classes.putIfAbsent(binaryName.replace('$', '.').getBytes(StandardCharsets.UTF_8),
+            entry.getBytes(StandardCharsets.UTF_8));
+      }
+    }
+
+    List<byte[]> packageBytes = new ArrayList<>(packages.size());
+    packages.forEach(p -> packageBytes.add(p.getBytes(StandardCharsets.UTF_8)));
+    int blobSize = 0;
+    for (var e : classes.entrySet()) {
+      blobSize += e.getKey().length + e.getValue().length;
+    }
+    for (byte[] p : packageBytes) {
+      blobSize += p.length;
+    }
+    int headerSize = (HEADER_INTS + classes.size() * CLASS_INTS + packageBytes.size() * PACKAGE_INTS) * Integer.BYTES;
+    ByteBuffer out = ByteBuffer.allocate(headerSize + blobSize).order(ORDER);
+    out.putInt(MAGIC).putInt(VERSION).putInt(classes.size()).putInt(packageBytes.size());
+    int blob = 0;
+    for (var e : classes.entrySet()) {
+      out.putInt(blob).putInt(e.getKey().length).putInt(blob + e.getKey().length).putInt(e.getValue().length);
+      blob += e.getKey().length + e.getValue().length;
+    }
+    for (byte[] p : packageBytes) {
+      out.putInt(blob).putInt(p.length);
+      blob += p.length;
+    }
+    for (var e : classes.entrySet()) {
+      out.put(e.getKey()).put(e.getValue());
+    }
+    for (byte[] p : packageBytes) {
+      out.put(p);
+    }
+    out.flip();
+
+    Files.createDirectories(index.toAbsolutePath().getParent());
+    Path tmp = Files.createTempFile(index.toAbsolutePath().getParent(), index.getFileName().toString(), ".tmp");
+    try {
+      try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+        while (out.hasRemaining()) {
+          ch.write(out);
+        }
+      }
+      Files.move(tmp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  public Path getJar() {
+    return jar;
+  }
+
+  public int getClassCount() {
+    return classCount;
+  }
+
+  /**
+   * Packages that contain at least one class, for routing lookups to the jars that can answer
+   * them.
+   */
+  public List<String> packages() {
+    List<String> packages = new ArrayList<>(packageCount);
+    for (int i = 0; i < packageCount; i++) {
+      int at = packagesAt + i * PACKAGE_INTS * Integer.BYTES;
+      packages.add(string(bytes.getInt(at), bytes.getInt(at + Integer.BYTES)));
+    }
+    return packages;
+  }
+
+  /**
+   * Path of the class file declaring {@code name} (source form) in the jar, or {@code null}.
+   */
+  public String find(String name) {
+    byte[] key = name.getBytes(StandardCharsets.UTF_8);
+    int lo = 0;
+    int hi = classCount - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      int at = classesAt + mid * CLASS_INTS * Integer.BYTES;
+      int cmp = compare(bytes.getInt(at), bytes.getInt(at + Integer.BYTES), key);
+      if (cmp < 0) {
+        lo = mid + 1;
+      } else if (cmp > 0) {
+        hi = mid - 1;
+      } else {
+        return string(bytes.getInt(at + 2 * Integer.BYTES), bytes.getInt(at + 3 * Integer.BYTES));
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Opens the class file at {@code entry}, a path returned by {@link #find}.
+   */
+  public InputStream open(String entry) throws IOException {
+    ZipEntry zipEntry = zip().getEntry(entry);
+    if (zipEntry == null) {
+      throw new IOException(entry + " is missing from " + jar);
+    }
+    return zip().getInputStream(zipEntry);
+  }
+
+  private ZipFile zip() throws IOException {
+    ZipFile z = zip;
+    if (z == null) {
+      synchronized (this) {
+        if (closed) {
+          throw new IOException("Index of " + jar + " is closed");
+        }
+        z = zip;
+        if (z == null) {
+          z = zip = new ZipFile(jar.toFile());
+        }
+      }
+    }
+    return z;
+  }
+
+  /**
+   * Closes the jar if it was opened. Lookups in the index still work, but class files can no
+   * longer be opened.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    closed = true;
+    ZipFile z = zip;
+    zip = null;
+    if (z != null) {
+      z.close();
+    }
+  }
+
+  private int compare(int start, int length, byte[] key) {
+    int n = Math.min(length, key.length);
+    for (int i = 0; i < n; i++) {
+      int cmp = Byte.toUnsignedInt(bytes.get(blobAt + start + i)) - Byte.toUnsignedInt(key[i]);
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    return length - key.length;
+  }
+
+  private String string(int start, int length) {
+    byte[] b = new byte[length];
+    bytes.get(blobAt + start, b);
+    return new String(b, StandardCharsets.UTF_8);
+  }
+}
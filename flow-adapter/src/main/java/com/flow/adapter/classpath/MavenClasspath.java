@@ -0,0 +1,352 @@
+package com.flow.adapter.classpath;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * Derives a project's dependency jars from its {@code pom.xml} and the local Maven repository,
+ * without running Maven or downloading anything. Compile, provided and runtime dependencies are
+ * followed transitively through the poms installed next to the jars; the first version of an
+ * artifact met breadth-first wins, as in Maven. Versions come from the dependency, the
+ * {@code dependencyManagement} of the project (which also governs transitive dependencies), its
+ * parents and imported BOMs, or else the newest version installed locally. Exclusions and profiles
+ * are not evaluated; artifacts missing from the repository are skipped with a warning.
+ */
+public class MavenClasspath {
+
+  private static final Logger logger = LoggerFactory.getLogger(MavenClasspath.class);
+  private static final Pattern PROPERTY = Pattern.compile("\\$\\{([^}]+)}");
+  private static final Set<String> ROOT_SCOPES = Set.of("compile", "provided", "runtime");
+  private static final Set<String> TRANSITIVE_SCOPES = Set.of("compile", "runtime");
+
+  private final Path repository;
+  private final DocumentBuilder xml;
+  private final Map<Path, Optional<Pom>> poms = new HashMap<>();
+
+  private MavenClasspath(Path repository) {
+    this.repository = repository;
+    try {
+      DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+      factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+      this.xml = factory.newDocumentBuilder();
+    } catch (ParserConfigurationException e) {
+      throw new IllegalStateException("No XML parser available", e);
+    }
+  }
+
+  /**
+   * The default local repository, {@code ~/.m2/repository}.
+   */
+  public static Path defaultRepository() {
+    return Path.of(System.getProperty("user.home"), ".m2", "repository");
+  }
+
+  /**
+   * Jar files of the dependencies of {@code pom}, in resolution order.
+   */
+  public static List<Path> resolve(Path pom, Path repository) throws IOException {
+    return new MavenClasspath(repository).resolve(pom);
+  }
+
+  private List<Path> resolve(Path pomFile) throws IOException {
+    Pom root = load(pomFile.toAbsolutePath().normalize())
+        .orElseThrow(() -> new IOException("Cannot read " + pomFile));
+    Map<String, Path> jars = new LinkedHashMap<>();
+    Set<String> seen = new HashSet<>();
+    Deque<Dependency> queue = new ArrayDeque<>();
+    for (Dependency d : root.dependencies) {
+      if (ROOT_SCOPES.contains(d.scope)) {
+        queue.add(d.withVersion(root.managedVersion(d)));
+      }
+    }
+    while (!queue.isEmpty()) {
+      Dependency d = queue.poll();
+      if (!seen.add(d.key())) {
+        continue;
+      }
+      String version = d.version;
+      if (version == null || version.contains("${")) {
+        version = newestInstalled(d);
+      }
+      if (version == null) {
+        logger.warn("No version of {} found in {}", d.key(), repository);
+        continue;
+      }
+      Path dir = artifactDir(d.groupId, d.artifactId).resolve(version);
+      if ("jar".equals(d.type)) {
+        Path jar = dir.resolve(d.artifactId + "-" + version + (d.classifier != null ? "-" + d.classifier : "") + ".jar");
+        if (Files.isRegularFile(jar)) {
+          jars.put(d.key(), jar);
+        } else {
+          logger.warn("Dependency {}:{} is not in the local repository", d.key(), version);
+        }
+      }
+      Optional<Pom> pom = load(dir.resolve(d.artifactId + "-" + version + ".pom"));
+      if (pom.isPresent()) {
+        for (Dependency t : pom.get().dependencies) {
+          if (TRANSITIVE_SCOPES.contains(t.scope) && !t.optional && !seen.contains(t.key())) {
+            String managed = root.managed.get(t.key());
+            queue.add(t.withVersion(managed != null ? managed : pom.get().managedVersion(t)));
+          }
+        }
+      }
+    }
+    return new ArrayList<>(jars.values());
+  }
+
+  private Optional<Pom> load(Path file) {
+    Optional<Pom> cached = poms.get(file);
+    if (cached != null) {
+      return cached;
+    }
+    poms.put(file, Optional.empty()); // guards against parent cycles
+    Optional<Pom> pom = Optional.empty();
+    if (Files.isRegularFile(file)) {
+      try {
+        pom = Optional.of(parse(file));
+      } catch (IOException | SAXException e) {
+        logger.warn("Could not read {}: {}", file, e.getMessage());
+      }
+    }
+    poms.put(file, pom);
+    return pom;
+  }
+
+  private Pom parse(Path file) throws IOException, SAXException {
+    Element project = xml.parse(file.toFile()).getDocumentElement();
+    Pom pom = new Pom();
+    Element parentRef = child(project, "parent");
+    Pom parent = parentRef != null ? loadParent(file, parentRef) : null;
+    if (parent != null) {
+      pom.properties.putAll(parent.properties);
+      pom.managed.putAll(parent.managed);
+    }
+
+    String groupId = Optional.ofNullable(text(project, "groupId")).orElse(text(parentRef, "groupId"));
+    String version = Optional.ofNullable(text(project, "version")).orElse(text(parentRef, "version"));
+    Element props = child(project, "properties");
+    if (props != null) {
+      for (Element p : children(props)) {
+        pom.properties.put(p.getTagName(), p.getTextContent().trim());
+      }
+    }
+    put(pom.properties, "project.groupId", groupId);
+    put(pom.properties, "project.version", version);
+    put(pom.properties, "project.artifactId", text(project, "artifactId"));
+    put(pom.properties, "project.parent.version", text(parentRef, "version"));
+
+    Element management = child(child(project, "dependencyManagement"), "dependencies");
+    for (Dependency d : dependencies(management, pom)) {
+      if ("import".equals(d.scope) && "pom".equals(d.type) && d.version != null) {
+        load(artifactDir(d.groupId, d.artifactId).resolve(d.version).resolve(d.artifactId + "-" + d.version + ".pom"))
+            .ifPresent(bom -> bom.managed.forEach(pom.managed::putIfAbsent));
+      } else if (d.version != null) {
+        pom.managed.put(d.key(), d.version);
+      }
+    }
+    pom.dependencies.addAll(dependencies(child(project, "dependencies"), pom));
+    return pom;
+  }
+
+  private Pom loadParent(Path file, Element parentRef) {
+    String relativePath = Optional.ofNullable(text(parentRef, "relativePath")).orElse("../pom.xml");
+    Path local = file.getParent().resolve(relativePath).normalize();
+    if (Files.isDirectory(local)) {
+      local = local.resolve("pom.xml");
+    }
+    String groupId = text(parentRef, "groupId");
+    String artifactId = text(parentRef, "artifactId");
+    String version = text(parentRef, "version");
+    Optional<Pom> parent = Optional.empty();
+    if (!relativePath.isEmpty() && Files.isRegularFile(local)) {
+      parent = load(local).filter(p -> artifactId != null && artifactId.equals(p.properties.get("project.artifactId")));
+    }
+    if (parent.isEmpty() && groupId != null && artifactId != null && version != null) {
+      parent = load(artifactDir(groupId, artifactId).resolve(version).resolve(artifactId + "-" + version + ".pom"));
+    }
+    return parent.orElse(null);
+  }
+
+  private List<Dependency> dependencies(Element list, Pom pom) {
+    List<Dependency> deps = new ArrayList<>();
+    if (list == null) {
+      return deps;
+    }
+    for (Element e : children(list)) {
+      if (!"dependency".equals(e.getTagName())) {
+        continue;
+      }
+      Dependency d = new Dependency();
+      d.groupId = pom.interpolate(text(e, "groupId"));
+      d.artifactId = pom.interpolate(text(e, "artifactId"));
+      d.version = pom.interpolate(text(e, "version"));
+      d.scope = Optional.ofNullable(text(e, "scope")).orElse("compile");
+      d.type = Optional.ofNullable(text(e, "type")).orElse("jar");
+      d.classifier = pom.interpolate(text(e, "classifier"));
+      d.optional = "true".equals(text(e, "optional"));
+      if (d.groupId != null && d.artifactId != null) {
+        deps.add(d);
+      }
+    }
+    return deps;
+  }
+
+  private String newestInstalled(Dependency d) throws IOException {
+    Path dir = artifactDir(d.groupId, d.artifactId);
+    if (!Files.isDirectory(dir)) {
+      return null;
+    }
+    try (Stream<Path> versions = Files.list(dir)) {
+      return versions.filter(Files::isDirectory)
+          .map(p -> p.getFileName().toString())
+          .max(MavenClasspath::compareVersions)
+          .orElse(null);
+    }
+  }
+
+  private Path artifactDir(String groupId, String artifactId) {
+    return repository.resolve(groupId.replace('.', '/')).resolve(artifactId);
+  }
+
+  /**
+   * Orders versions by their numeric parts, with a qualifier sorting before the plain release.
+   */
+  static int compareVersions(String a, String b) {
+    String[] pa = a.split("[.-]");
+    String[] pb = b.split("[.-]");
+    for (int i = 0; i < Math.max(pa.length, pb.length); i++) {
+      String x = i < pa.length ? pa[i] : null;
+      String y = i < pb.length ? pb[i] : null;
+      if (x == null || y == null) {
+        boolean xNumeric = x != null && x.chars().allMatch(Character::isDigit);
+        boolean yNumeric = y != null && y.chars().allMatch(Character::isDigit);
+        return x == null ? (yNumeric ? -1 : 1) : (xNumeric ? 1 : -1);
+      }
+      boolean numeric = x.chars().allMatch(Character::isDigit) && y.chars().allMatch(Character::isDigit)
+          && !x.isEmpty() && !y.isEmpty();
+      int cmp = numeric
+          ? Comparator.<String>comparingInt(String::length).thenComparing(Comparator.naturalOrder()).compare(x, y)
+          : x.compareToIgnoreCase(y);
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    return 0;
+  }
+
+  private static void put(Map<String, String> map, String key, String value) {
+    if (value != null) {
+      map.put(key, value);
+    }
+  }
+
+  private static Element child(Element parent, String name) {
+    if (parent == null) {
+      return null;
+    }
+    for (Element e : children(parent)) {
+      if (name.equals(e.getTagName())) {
+        return e;
+      }
+    }
+    return null;
+  }
+
+  private static List<Element> children(Element parent) {
+    List<Element> elements = new ArrayList<>();
+    NodeList nodes = parent.getChildNodes();
+    for (int i = 0; i < nodes.getLength(); i++) {
+      if (nodes.item(i).getNodeType() == Node.ELEMENT_NODE) {
+        elements.add((Element) nodes.item(i));
+      }
+    }
+    return elements;
+  }
+
+  private static String text(Element parent, String name) {
+    Element e = child(parent, name);
+    return e != null ? e.getTextContent().trim() : null;
+  }
+
+  private static class Pom {
+
+    final Map<String, String> properties = new HashMap<>();
+    final Map<String, String> managed = new HashMap<>();
+    final List<Dependency> dependencies = new ArrayList<>();
+
+    String managedVersion(Dependency d) {
+      return d.version != null ? d.version : managed.get(d.key());
+    }
+
+    String interpolate(String value) {
+      if (value == null) {
+        return null;
+      }
+      for (int depth = 0; depth < 10 && value.contains("${"); depth++) {
+        Matcher m = PROPERTY.matcher(value);
+        StringBuilder sb = new StringBuilder();
+        while (m.find()) {
+          String replacement = properties.get(m.group(1));
+          m.appendReplacement(sb, Matcher.quoteReplacement(replacement != null ? replacement : m.group()));
+        }
+        m.appendTail(sb);
+        if (sb.toString().equals(value)) {
+          break;
+        }
+        value = sb.toString();
+      }
+      return value;
+    }
+  }
+
+  private static class Dependency {
+
+    String groupId;
+    String artifactId;
+    String version;
+    String scope;
+    String type;
+    String classifier;
+    boolean optional;
+
+    String key() {
+      return groupId + ":" + artifactId;
+    }
+
+    Dependency withVersion(String version) {
+      Dependency d = new Dependency();
+      d.groupId = groupId;
+      d.artifactId = artifactId;
+      d.version = version;
+      d.scope = scope;
+      d.type = type;
+      d.classifier = classifier;
+      d.optional = optional;
+      return d;
+    }
+  }
+}
@@ -0,0 +1,189 @@
+package com.flow.adapter.diagnostics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Collects the events of a scan that used to be logged one line each (unresolved calls, files
+ * that failed to parse, edges added by plugins) and reports them once, at the end. Events are
+ * counted by category and by key, usually the type the event is about, with {@link LongAdder}s,
+ * so scan workers do not contend on a counter; the first few examples of each category are kept,
+ * and are only formatted when kept.
+ *
+ * <p>Keys past {@value #MAX_KEYS} per category are counted as {@value #OTHER}. With
+ * {@link #isVerbose()}, callers also log every event as it happens. Thread-safe.
+ */
+public class Diagnostics {
+
+  public static final int DEFAULT_SAMPLES = 5;
+  static final int MAX_KEYS = 1000;
+  static final String OTHER = "(other)";
+  // examples in the summary are cut to their first line and this many characters
+  private static final int EXAMPLE_WIDTH = 200;
+
+  private static final ObjectMapper mapper = JsonMapper.builder()
+      .enable(SerializationFeature.INDENT_OUTPUT)
+      .build();
+
+  private final int sampleLimit;
+  private final boolean verbose;
+  private final ConcurrentMap<String, Category> categories = new ConcurrentHashMap<>();
+
+  public Diagnostics() {
+    this(DEFAULT_SAMPLES, false);
+  }
+
+  /**
+   * @param sampleLimit examples kept per category
+   * @param verbose     whether callers should also log each event
+   */
+  public Diagnostics(int sampleLimit, boolean verbose) {
+    this.sampleLimit = Math.max(0, sampleLimit);
+    this.verbose = verbose;
+  }
+
+  public boolean isVerbose() {
+    return verbose;
+  }
+
+  /**
+   * Counts an event of {@code category} about {@code key}; {@code example} describes it and is only
+   * called while the category still has room for examples.
+   */
+  public void report(String category, String key, Supplier<String> example) {
+    Category c = categories.computeIfAbsent(category, n -> new Category(sampleLimit));
+    c.total.increment();
+    c.counter(key != null ? key : "").increment();
+    if (c.sampled.get() < sampleLimit) {
+      int slot = c.sampled.getAndIncrement();
+      if (slot < sampleLimit) {
+        c.samples.set(slot, example.get());
+      }
+    }
+  }
+
+  public long count(String category) {
+    Category c = categories.get(category);
+    return c != null ? c.total.sum() : 0;
+  }
+
+  public long count(String category, String key) {
+    Category c = categories.get(category);
+    LongAdder n = c != null ? c.byKey.get(key) : null;
+    return n != null ? n.sum() : 0;
+  }
+
+  public boolean isEmpty() {
+    return categories.isEmpty();
+  }
+
+  /**
+   * Categories sorted by name, each with its total, its keys by descending count and its examples.
+   */
+  public Map<String, Object> toReport() {
+    Map<String, Object> report = new LinkedHashMap<>();
+    categories.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(e -> {
+      Category c = e.getValue();
+      Map<String, Object> entry = new LinkedHashMap<>();
+      entry.put("count", c.total.sum());
+      Map<String, Long> keys = new LinkedHashMap<>();
+      c.sortedKeys().forEach(k -> keys.put(k.getKey(), k.getValue()));
+      entry.put("keys", keys);
+      entry.put("examples", c.examples());
+      report.put(e.getKey(), entry);
+    });
+    return report;
+  }
+
+  /**
+   * One line per category with its total and its {@code topKeys} most frequent keys, followed by
+   * its examples.
+   */
+  public String summary(int topKeys) {
+    StringBuilder sb = new StringBuilder("Diagnostics\n");
+    categories.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(e -> {
+      Category c = e.getValue();
+      List<Map.Entry<String, Long>> keys = c.sortedKeys();
+      sb.append(String.format("  %-28s %8d", e.getKey(), c.total.sum()));
+      if (!(keys.size() == 1 && keys.get(0).getKey().isEmpty())) {
+        sb.append("  ");
+        for (int i = 0; i < Math.min(topKeys, keys.size()); i++) {
+          sb.append(i > 0 ? ", " : "").append(keys.get(i).getKey()).append(" (").append(keys.get(i).getValue()).append(')');
+        }
+        if (keys.size() > topKeys) {
+          sb.append(", ... ").append(keys.size() - topKeys).append(" more");
+        }
+      }
+      sb.append('\n');
+      c.examples().forEach(x -> sb.append("      e.g. ").append(firstLine(x)).append('\n'));
+    });
+    return sb.toString();
+  }
+
+  public void writeJson(Path out) throws IOException {
+    mapper.writeValue(out.toFile(), toReport());
+  }
+
+  private static String firstLine(String example) {
+    String line = example.strip();
+    int eol = line.indexOf('\n');
+    if (eol >= 0) {
+      line = line.substring(0, eol).strip() + " ...";
+    }
+    return line.length() > EXAMPLE_WIDTH ? line.substring(0, EXAMPLE_WIDTH) + " ..." : line;
+  }
+
+  private static final class Category {
+
+    final LongAdder total = new LongAdder();
+    final ConcurrentMap<String, LongAdder> byKey = new ConcurrentHashMap<>();
+    final AtomicInteger sampled = new AtomicInteger();
+    final AtomicReferenceArray<String> samples;
+
+    Category(int sampleLimit) {
+      this.samples = new AtomicReferenceArray<>(sampleLimit);
+    }
+
+    LongAdder counter(String key) {
+      LongAdder n = byKey.get(key);
+      if (n == null) {
+        n = byKey.size() < MAX_KEYS ? byKey.computeIfAbsent(key, k -> new LongAdder())
+            : byKey.computeIfAbsent(OTHER, k -> new LongAdder());
+      }
+      return n;
+    }
+
+    List<Map.Entry<String, Long>> sortedKeys() {
+      List<Map.Entry<String, Long>> keys = new ArrayList<>();
+      byKey.forEach((k, n) -> keys.add(Map.entry(k, n.sum())));
+      keys.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+          .thenComparing(Map.Entry.comparingByKey()));
+      return keys;
+    }
+
+    List<String> examples() {
+      List<String> out = new ArrayList<>();
+      for (int i = 0; i < samples.length(); i++) {
+        String s = samples.get(i);
+        if (s != null) {
+          out.add(s);
+        }
+      }
+      return out;
+    }
+  }
+}
@@ -0,0 +1,261 @@
+package com.flow.adapter.profile;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Per-scan timing and resource report. Phases are timed as wall time plus process CPU time (all
+ * threads), so a parallel phase shows CPU above wall. Work that runs per file on several threads
+ * at once (e.g. plugins with a cache) is accumulated as the sum of per-thread wall and CPU time.
+ * Peak heap is the sum of heap-pool peaks since the profile was created. Stages of the scan
+ * pipeline, which overlap in time, are reported separately from phases (see {@link StageStats}).
+ *
+ * <p>Thread-safe; phases and files may be recorded from scan workers.
+ */
+public class ScanProfile {
+
+  private static final ObjectMapper mapper = JsonMapper.builder()
+      .enable(SerializationFeature.INDENT_OUTPUT)
+      .build();
+
+  private final int slowestLimit;
+  private final long startNanos = System.nanoTime();
+  private final long startGcMillis = gcMillis();
+  private final List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+  private final Map<String, long[]> phases = new LinkedHashMap<>();
+  private final Map<String, StageStats> stages = new LinkedHashMap<>();
+  private final PriorityQueue<FileTime> slowest = new PriorityQueue<>(Comparator.comparingLong(f -> f.nanos));
+  private int files;
+  private long resolvedCalls;
+  private long unresolvedCalls;
+  private long cacheHits;
+  private long cacheMisses;
+
+  public ScanProfile(int slowestLimit) {
+    this.slowestLimit = slowestLimit;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+        pool.resetPeakUsage();
+        heapPools.add(pool);
+      }
+    }
+  }
+
+  /**
+   * Starts timing {@code phase}; stopping the returned timer adds the elapsed wall and process CPU
+   * time to it. Repeated phases accumulate.
+   */
+  public Timer start(String phase) {
+    return new Timer(this, phase, System.nanoTime(), processCpuNanos());
+  }
+
+  /**
+   * Adds time measured elsewhere, e.g. per file on a worker thread.
+   */
+  public synchronized void add(String phase, long wallNanos, long cpuNanos) {
+    long[] t = phases.computeIfAbsent(phase, k -> new long[2]);
+    t[0] += wallNanos;
+    t[1] += Math.max(0, cpuNanos);
+  }
+
+  /**
+   * Counters of pipeline stage {@code name}, shared by every scan this profile covers.
+   */
+  public synchronized StageStats stage(String name) {
+    return stages.computeIfAbsent(name, StageStats::new);
+  }
+
+  /**
+   * Keeps {@code file} if it is among the slowest files seen so far.
+   */
+  public synchronized void recordFile(Path file, long nanos) {
+    if (slowestLimit <= 0) {
+      return;
+    }
+    if (slowest.size() < slowestLimit) {
+      slowest.add(new FileTime(file, nanos));
+    } else if (slowest.peek().nanos < nanos) {
+      slowest.poll();
+      slowest.add(new FileTime(file, nanos));
+    }
+  }
+
+  /**
+   * Adds the file and call counts of one scanned source root; a multi-project run reports totals.
+   */
+  public synchronized void addScan(int files, long resolved, long unresolved, long hits, long misses) {
+    this.files += files;
+    this.resolvedCalls += resolved;
+    this.unresolvedCalls += unresolved;
+    this.cacheHits += hits;
+    this.cacheMisses += misses;
+  }
+
+  /**
+   * CPU time of the calling thread, or -1 when the JVM does not measure it.
+   */
+  public static long threadCpuNanos() {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : -1;
+  }
+
+  public synchronized Map<String, Object> toReport() {
+    double totalSeconds = (System.nanoTime() - startNanos) / 1e9;
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("totalSeconds", round(totalSeconds));
+    report.put("files", files);
+    report.put("filesPerSecond", round(totalSeconds > 0 ? files / totalSeconds : 0));
+
+    Map<String, Object> phaseReport = new LinkedHashMap<>();
+    phases.forEach((name, t) -> {
+      Map<String, Object> p = new LinkedHashMap<>();
+      p.put("wallMs", t[0] / 1_000_000);
+      p.put("cpuMs", t[1] / 1_000_000);
+      phaseReport.put(name, p);
+    });
+    report.put("phases", phaseReport);
+
+    if (!stages.isEmpty()) {
+      Map<String, Object> pipeline = new LinkedHashMap<>();
+      stages.forEach((name, stage) -> pipeline.put(name, stage.toReport()));
+      report.put("pipeline", pipeline);
+    }
+
+    Map<String, Object> resolution = new LinkedHashMap<>();
+    resolution.put("resolved", resolvedCalls);
+    resolution.put("unresolved", unresolvedCalls);
+    resolution.put("cacheHits", cacheHits);
+    resolution.put("cacheMisses", cacheMisses);
+    report.put("resolution", resolution);
+
+    List<Map<String, Object>> slowFiles = new ArrayList<>();
+    slowest.stream().sorted(Comparator.comparingLong((FileTime f) -> f.nanos).reversed()).forEach(f -> {
+      Map<String, Object> entry = new LinkedHashMap<>();
+      entry.put("file", f.file.toString());
+      entry.put("ms", round(f.nanos / 1e6));
+      slowFiles.add(entry);
+    });
+    report.put("slowestFiles", slowFiles);
+
+    long peak = 0;
+    for (MemoryPoolMXBean pool : heapPools) {
+      peak += pool.getPeakUsage().getUsed();
+    }
+    Map<String, Object> memory = new LinkedHashMap<>();
+    memory.put("peakHeapMb", peak / (1024 * 1024));
+    memory.put("gcMs", gcMillis() - startGcMillis);
+    report.put("memory", memory);
+    return report;
+  }
+
+  public String summary() {
+    Map<String, Object> r = toReport();
+    StringBuilder sb = new StringBuilder("Scan profile\n");
+    sb.append(String.format("  total %.2fs, %d files (%.1f files/s)%n",
+        r.get("totalSeconds"), r.get("files"), r.get("filesPerSecond")));
+    sb.append(String.format("  %-32s %10s %10s%n", "phase", "wall ms", "cpu ms"));
+    ((Map<?, ?>) r.get("phases")).forEach((name, p) -> sb.append(String.format("  %-32s %10d %10d%n",
+        name, ((Map<?, ?>) p).get("wallMs"), ((Map<?, ?>) p).get("cpuMs"))));
+    synchronized (this) {
+      if (!stages.isEmpty()) {
+        sb.append("  pipeline:\n");
+        stages.values().forEach(stage -> sb.append("    ").append(stage).append('\n'));
+      }
+    }
+    Map<?, ?> res = (Map<?, ?>) r.get("resolution");
+    sb.append(String.format("  calls: %d resolved, %d unresolved; memo: %d hits, %d misses%n",
+        res.get("resolved"), res.get("unresolved"), res.get("cacheHits"), res.get("cacheMisses")));
+    Map<?, ?> mem = (Map<?, ?>) r.get("memory");
+    sb.append(String.format("  peak heap %d MB, GC %d ms%n", mem.get("peakHeapMb"), mem.get("gcMs")));
+    List<?> slow = (List<?>) r.get("slowestFiles");
+    if (!slow.isEmpty()) {
+      sb.append("  slowest files:\n");
+      slow.forEach(f -> sb.append(String.format("  %10.1f ms  %s%n", ((Map<?, ?>) f).get("ms"), ((Map<?, ?>) f).get("file"))));
+    }
+    return sb.toString();
+  }
+
+  public void writeJson(Path out) throws IOException {
+    mapper.writeValue(out.toFile(), toReport());
+  }
+
+  private static double round(double v) {
+    return Math.round(v * 100) / 100.0;
+  }
+
+  private static long processCpuNanos() {
+    OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    if (os instanceof com.sun.management.OperatingSystemMXBean) {
+      return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+    }
+    return -1;
+  }
+
+  private static long gcMillis() {
+    long total = 0;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      total += Math.max(0, gc.getCollectionTime());
+    }
+    return total;
+  }
+
+  /**
+   * A running phase, from {@link #start}, or {@link #none()} when nothing is profiled.
+   */
+  public static final class Timer {
+
+    private static final Timer NONE = new Timer(null, null, 0, 0);
+
+    private final ScanProfile profile;
+    private final String phase;
+    private final long wallStart;
+    private final long cpuStart;
+
+    private Timer(ScanProfile profile, String phase, long wallStart, long cpuStart) {
+      this.profile = profile;
+      this.phase = phase;
+      this.wallStart = wallStart;
+      this.cpuStart = cpuStart;
+    }
+
+    /**
+     * A timer whose {@link #stop()} records nothing.
+     */
+    public static Timer none() {
+      return NONE;
+    }
+
+    public void stop() {
+      if (profile != null) {
+        long cpu = cpuStart >= 0 ? processCpuNanos() - cpuStart : -1;
+        profile.add(phase, System.nanoTime() - wallStart, cpu);
+      }
+    }
+  }
+
+  private static class FileTime {
+
+    final Path file;
+    final long nanos;
+
+    FileTime(Path file, long nanos) {
+      this.file = file;
+      this.nanos = nanos;
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package com.flow.adapter.profile;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of one stage of the scan pipeline: items processed, time its workers were busy, time
+ * they were blocked handing items to a full queue, and the depth of its input queue each time an
+ * item was taken from it. Utilization is busy time over the summed lifetime of the stage's
+ * workers; a stage near 1 with a deep input queue is the bottleneck, a stage with a shallow queue
+ * and low utilization is starved by the one before it. Repeated runs of a stage accumulate.
+ *
+ * <p>Thread-safe.
+ */
+public class StageStats {
+
+  private final String name;
+  private final AtomicInteger workers = new AtomicInteger();
+  private final LongAdder items = new LongAdder();
+  private final LongAdder busyNanos = new LongAdder();
+  private final LongAdder blockedNanos = new LongAdder();
+  private final LongAdder workerNanos = new LongAdder();
+  private final LongAdder depthSum = new LongAdder();
+  private final LongAdder depthSamples = new LongAdder();
+  private final AtomicLong peakDepth = new AtomicLong();
+  private volatile int queueCapacity;
+
+  public StageStats(String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Adds a worker that ran for {@code nanos}.
+   */
+  public void worker(long nanos) {
+    workers.incrementAndGet();
+    workerNanos.add(nanos);
+  }
+
+  public void item(long nanos) {
+    items.increment();
+    busyNanos.add(nanos);
+  }
+
+  public void blocked(long nanos) {
+    blockedNanos.add(nanos);
+  }
+
+  /**
+   * Records the depth of the input queue, counting the item being taken.
+   */
+  public void queueDepth(int depth, int capacity) {
+    queueCapacity = capacity;
+    depthSum.add(depth);
+    depthSamples.increment();
+    peakDepth.accumulateAndGet(depth, Math::max);
+  }
+
+  public long getItems() {
+    return items.sum();
+  }
+
+  public double getUtilization() {
+    long lifetime = workerNanos.sum();
+    return lifetime > 0 ? Math.min(1.0, (double) busyNanos.sum() / lifetime) : 0;
+  }
+
+  public double getMeanQueueDepth() {
+    long samples = depthSamples.sum();
+    return samples > 0 ? (double) depthSum.sum() / samples : 0;
+  }
+
+  public long getPeakQueueDepth() {
+    return peakDepth.get();
+  }
+
+  public Map<String, Object> toReport() {
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("workers", workers.get());
+    report.put("items", getItems());
+    report.put("busyMs", busyNanos.sum() / 1_000_000);
+    report.put("blockedMs", blockedNanos.sum() / 1_000_000);
+    report.put("utilization", Math.round(getUtilization() * 100) / 100.0);
+    if (queueCapacity > 0) {
+      Map<String, Object> queue = new LinkedHashMap<>();
+      queue.put("capacity", queueCapacity);
+      queue.put("peak", getPeakQueueDepth());
+      queue.put("mean", Math.round(getMeanQueueDepth() * 100) / 100.0);
+      report.put("queue", queue);
+    }
+    return report;
+  }
+
+  @Override
+  public String toString() {
+    String s = String.format("%s: %d items on %d workers, %.0f%% busy, %d ms blocked", name, getItems(),
+        workers.get(), getUtilization() * 100, blockedNanos.sum() / 1_000_000);
+    if (queueCapacity > 0) {
+      s += String.format(", queue %.1f mean / %d peak of %d", getMeanQueueDepth(), getPeakQueueDepth(),
+          queueCapacity);
+    }
+    return s;
+  }
+}
@@ -0,0 +1,70 @@
+package com.flow.adapter.scanners;
+
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+
+/**
+ * Root type solver of a scan worker that enforces a time budget on the resolution in progress.
+ * JavaParser's resolution cannot be interrupted, but it looks types up through the root solver
+ * throughout, so every lookup checks the deadline and aborts the resolution with
+ * {@link Exceeded} once it has passed. Like {@code RecordingTypeSolver}, it becomes the parent of
+ * the wrapped solver so lookups made through {@link TypeSolver#getRoot()} are checked too.
+ *
+ * <p>Confined to one scan worker.
+ */
+class BudgetTypeSolver implements TypeSolver {
+
+  private final TypeSolver delegate;
+  private TypeSolver parent;
+  private long deadline;
+  private boolean armed;
+
+  BudgetTypeSolver(TypeSolver delegate) {
+    this.delegate = delegate;
+    delegate.setParent(this);
+  }
+
+  /**
+   * Aborts every lookup made after {@code deadline} (a {@link System#nanoTime()} value) until
+   * {@link #disarm()}.
+   */
+  void arm(long deadline) {
+    this.deadline = deadline;
+    this.armed = true;
+  }
+
+  void disarm() {
+    this.armed = false;
+  }
+
+  @Override
+  public TypeSolver getParent() {
+    return parent;
+  }
+
+  @Override
+  public void setParent(TypeSolver parent) {
+    this.parent = parent;
+  }
+
+  @Override
+  public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+    if (armed && System.nanoTime() - deadline > 0) {
+      throw new Exceeded();
+    }
+    return delegate.tryToSolveType(name);
+  }
+
+  /**
+   * Thrown through the symbol solver when a resolution runs out of time.
+   */
+  static final class Exceeded extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    Exceeded() {
+      super("resolution time budget exceeded", null, false, false);
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package com.flow.adapter.scanners;
+
+import com.flow.adapter.classpath.ClasspathIndex;
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.javassistmodel.JavassistFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import javassist.ClassPath;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.NotFoundException;
+
+/**
+ * Resolves types from dependency jars through a {@link ClasspathIndex}, reading class files with
+ * Javassist like JavaParser's {@code JarTypeSolver}, but without listing every jar up front: the
+ * class pool asks the shared index for each class it needs and only that entry is read.
+ *
+ * <p>Not thread-safe: each scan worker owns an instance (and class pool) wrapping the shared
+ * index.
+ */
+public class ClasspathTypeSolver implements TypeSolver {
+
+  private final ClasspathIndex index;
+  private final ClassPool pool = new ClassPool();
+  private TypeSolver parent;
+
+  public ClasspathTypeSolver(ClasspathIndex index) {
+    this.index = index;
+    pool.appendClassPath(new IndexClassPath(index));
+  }
+
+  @Override
+  public TypeSolver getParent() {
+    return parent;
+  }
+
+  @Override
+  public void setParent(TypeSolver parent) {
+    this.parent = parent;
+  }
+
+  @Override
+  public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+    ClasspathIndex.Hit hit = index.find(name);
+    if (hit == null) {
+      return SymbolReference.unsolved();
+    }
+    try {
+      CtClass ctClass = pool.get(hit.getClassName());
+      return SymbolReference.solved(JavassistFactory.toTypeDeclaration(ctClass, getRoot()));
+    } catch (NotFoundException e) {
+      return SymbolReference.unsolved();
+    }
+  }
+
+  /**
+   * Serves class files to the pool by binary name from the index.
+   */
+  private static class IndexClassPath implements ClassPath {
+
+    private final ClasspathIndex index;
+
+    IndexClassPath(ClasspathIndex index) {
+      this.index = index;
+    }
+
+    @Override
+    public InputStream openClassfile(String className) throws NotFoundException {
+      ClasspathIndex.Hit hit = locate(className);
+      if (hit == null) {
+        return null;
+      }
+      try {
+        return hit.getJar().open(hit.getEntry());
+      } catch (IOException e) {
+        throw new NotFoundException(className + ": " + e.getMessage());
+      }
+    }
+
+    @Override
+    public URL find(String className) {
+      ClasspathIndex.Hit hit = locate(className);
+      if (hit == null) {
+        return null;
+      }
+      try {
+        return new URL("jar:" + hit.getJar().getJar().toUri() + "!/" + hit.getEntry());
+      } catch (MalformedURLException e) {
+        return null;
+      }
+    }
+
+    private ClasspathIndex.Hit locate(String className) {
+      ClasspathIndex.Hit hit = index.find(className.replace('$', '.'));
+      return hit != null && hit.getClassName().equals(className) ? hit : null;
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package com.flow.adapter.scanners;
+
+import com.github.javaparser.ast.CompilationUnit;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Scan-scoped index of parsed compilation units, keyed by source file in walk order. The core
+ * scanner fills it in a single pass so plugins can visit the shared ASTs instead of walking and
+ * re-parsing the source tree themselves.
+ */
+public class CompilationUnitIndex {
+
+  private final Path root;
+  private final Map<Path, CompilationUnit> units = new LinkedHashMap<>();
+  // prefilter masks of the files that were checked; see TokenPrefilter
+  private final Map<Path, Long> triggers = new HashMap<>();
+
+  public CompilationUnitIndex(Path root) {
+    this.root = root;
+  }
+
+  public static CompilationUnitIndex of(Path root, Path file, CompilationUnit cu) {
+    CompilationUnitIndex index = new CompilationUnitIndex(root);
+    index.add(file, cu);
+    return index;
+  }
+
+  public Path getRoot() {
+    return root;
+  }
+
+  public void add(Path file, CompilationUnit cu) {
+    units.put(file, cu);
+  }
+
+  /**
+   * Adds a unit together with the {@link TokenPrefilter} mask of its file.
+   */
+  public void add(Path file, CompilationUnit cu, long triggers) {
+    units.put(file, cu);
+    if (triggers != TokenPrefilter.all()) {
+      this.triggers.put(file, triggers);
+    }
+  }
+
+  /**
+   * The units whose files matched prefilter group {@code group}, in walk order; files that were
+   * not checked are always included. Returns this index when nothing would be left out.
+   */
+  public CompilationUnitIndex triggered(int group) {
+    if (triggers.isEmpty()) {
+      return this;
+    }
+    CompilationUnitIndex subset = new CompilationUnitIndex(root);
+    units.forEach((file, cu) -> {
+      Long mask = triggers.get(file);
+      if (mask == null || TokenPrefilter.matched(mask, group)) {
+        subset.add(file, cu);
+      }
+    });
+    return subset.size() == size() ? this : subset;
+  }
+
+  public Optional<CompilationUnit> get(Path file) {
+    return Optional.ofNullable(units.get(file));
+  }
+
+  public Set<Path> files() {
+    return Collections.unmodifiableSet(units.keySet());
+  }
+
+  public Collection<CompilationUnit> units() {
+    return Collections.unmodifiableCollection(units.values());
+  }
+
+  public int size() {
+    return units.size();
+  }
+
+  public void forEach(BiConsumer<Path, CompilationUnit> action) {
+    units.forEach(action);
+  }
+}
@@ -1,64 +1,545 @@
 package com.flow.adapter.scanners;
 
 import com.flow.adapter.Model.GraphModel;
+import com.flow.adapter.Model.GraphWriter;
+import com.flow.adapter.cache.CacheEntry;
+import com.flow.adapter.cache.FileDependencies;
+import com.flow.adapter.cache.RecordingTypeSolver;
+import com.flow.adapter.cache.ScanCache;
+import com.flow.adapter.classpath.ClasspathIndex;
+import com.flow.adapter.diagnostics.Diagnostics;
+import com.flow.adapter.profile.ScanProfile;
+import com.flow.adapter.profile.StageStats;
 import com.flow.adapter.util.PackageUtil;
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
 import com.github.javaparser.ParserConfiguration;
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
-import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.resolution.TypeSolver;
 import com.github.javaparser.symbolsolver.JavaSymbolSolver;
 import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.stream.Stream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Parses and analyzes every Java file under a source root. Each worker thread owns its own
+ * {@link JavaParser} and symbol solver, analyzes a file into a private {@link GraphModel} fragment,
+ * and the fragments are merged in walk order so the result does not depend on the thread count.
+ * Project types are resolved from the parsed units through a shared {@link SourceTypeIndex}.
+ * Walking, reading and parsing, and then analysis and merging, overlap in a {@link ScanPipeline}.
+ */
 public class JavaSourceScanner implements SourceCodeAnalyzer {
 
   private static final Logger logger = LoggerFactory.getLogger(JavaSourceScanner.class);
+  public static final int DEFAULT_IO_THREADS = 8;
+
+  private final int threads;
+  private int ioThreads = DEFAULT_IO_THREADS;
+  private final ResolutionCache resolutionCache = new ResolutionCache();
+  private ScanCache cache;
+  private List<UnitEnricher> enrichers = List.of();
+  private boolean recordCallLines;
+  private ScanProfile profile;
+  private Set<Path> changedFiles;
+  private ClasspathIndex classpath;
+  private TokenPrefilter prefilter;
+  private SourceFilter sourceFilter = SourceFilter.all();
+  private Diagnostics diagnostics = new Diagnostics();
+  private ResolveMode resolveMode = ResolveMode.FULL;
+  private long callBudgetNanos;
+  private long fileBudgetNanos;
+  private final Map<String, StageStats> stages = new LinkedHashMap<>();
+
+  public JavaSourceScanner() {
+    this(1);
+  }
+
+  public JavaSourceScanner(int threads) {
+    this.threads = Math.max(1, threads);
+  }
+
+  /**
+   * Reuses per-file results from {@code cache} and records fresh ones into it. Because cached
+   * files are not parsed again, per-file plugin work must be supplied as {@code enrichers} so its
+   * output is cached together with the core fragment.
+   */
+  public JavaSourceScanner withCache(ScanCache cache, List<UnitEnricher> enrichers) {
+    this.cache = cache;
+    this.enrichers = List.copyOf(enrichers);
+    return this;
+  }
+
+  /**
+   * Keeps the source line of every call site on its call edge, next to the call-site count.
+   */
+  public JavaSourceScanner withCallLines(boolean recordCallLines) {
+    this.recordCallLines = recordCallLines;
+    return this;
+  }
+
+  /**
+   * Limits digesting to {@code changedFiles} (absolute, normalized paths) when the caller knows
+   * which files changed since the cache's previous scan, e.g. from file system events. Other files
+   * keep the digest of their previous cache entry. {@code null} digests every file.
+   */
+  public JavaSourceScanner withChangedFiles(Set<Path> changedFiles) {
+    this.changedFiles = changedFiles;
+    return this;
+  }
+
+  /**
+   * Resolves types that are neither in the project nor in the JDK from the jars of
+   * {@code classpath}, so calls into libraries become edges instead of resolution failures.
+   */
+  public JavaSourceScanner withClasspath(ClasspathIndex classpath) {
+    this.classpath = classpath;
+    return this;
+  }
+
+  /**
+   * Scans only the files {@code filter} accepts, together with the {@code .flowignore} file of the
+   * source root, which is honoured without a filter as well.
+   */
+  public JavaSourceScanner withSourceFilter(SourceFilter filter) {
+    this.sourceFilter = filter;
+    return this;
+  }
+
+  /**
+   * Checks the bytes of every parsed file against {@code prefilter}, whose groups are the trigger
+   * tokens of the plugins in enricher order. Enrichers and the plugins' views of the compilation
+   * unit index then skip files their tokens do not occur in.
+   */
+  public JavaSourceScanner withPrefilter(TokenPrefilter prefilter) {
+    this.prefilter = prefilter;
+    return this;
+  }
+
+  /**
+   * Resolves calls in {@code mode}; {@link ResolveMode#FULL} by default.
+   */
+  public JavaSourceScanner withResolveMode(ResolveMode mode) {
+    this.resolveMode = mode;
+    return this;
+  }
+
+  /**
+   * Limits the time full resolution may spend on one call and on all calls of one file; calls over
+   * either limit are resolved by name and arity instead. {@code null} or zero means no limit.
+   */
+  public JavaSourceScanner withResolveBudget(Duration perCall, Duration perFile) {
+    this.callBudgetNanos = perCall != null ? perCall.toNanos() : 0;
+    this.fileBudgetNanos = perFile != null ? perFile.toNanos() : 0;
+    return this;
+  }
+
+  /**
+   * Reads source files on {@code ioThreads} threads, independently of the parse and analysis
+   * workers; more than the core count pays off when reads wait on a slow or remote file system.
+   */
+  public JavaSourceScanner withIoThreads(int ioThreads) {
+    this.ioThreads = Math.max(1, ioThreads);
+    return this;
+  }
+
+  /**
+   * Counts unresolved calls and files that failed to parse or enrich into {@code diagnostics}
+   * instead of logging each one, unless it is verbose.
+   */
+  public JavaSourceScanner withDiagnostics(Diagnostics diagnostics) {
+    this.diagnostics = diagnostics;
+    return this;
+  }
+
+  /**
+   * Records phase timings, per-file times, resolution counts and pipeline stage counters into
+   * {@code profile}.
+   */
+  public JavaSourceScanner withProfile(ScanProfile profile) {
+    this.profile = profile;
+    return this;
+  }
+
+  public ResolutionCache getResolutionCache() {
+    return resolutionCache;
+  }
+
+  /**
+   * Counters of the pipeline stages run so far (walk, read, parse, analyze, merge), with queue
+   * depths and utilization; with a profile, they are the profile's, shared with other scans.
+   */
+  public List<StageStats> getStageStats() {
+    synchronized (stages) {
+      return new ArrayList<>(stages.values());
+    }
+  }
 
   @Override
   public void analyze(GraphModel model, Path srcRoot) throws IOException {
-    configureParser(srcRoot);
-    MethodCallAnalyzer analyzer = new MethodCallAnalyzer();
-    scanJavaFiles(model, srcRoot, analyzer);
+    scan(model, srcRoot);
+  }
+
+  /**
+   * Analyzes every Java file under {@code srcRoot} into {@code model} and returns the parsed
+   * compilation units so plugins can reuse them without parsing the tree again. With a cache, only
+   * files that had to be re-analyzed are parsed and present in the returned index. Each file's
+   * fragment is merged into {@code model} as a whole, in walk order.
+   *
+   * <p>All files are parsed before any call is resolved, so the symbol solver can look project
+   * types up in the parsed units instead of reading and parsing the sources a second time. Without
+   * a cache, files are parsed while the tree is still being walked, and merged while later files
+   * are still being analyzed.
+   */
+  public CompilationUnitIndex scan(GraphWriter model, Path srcRoot) throws IOException {
+    CompilationUnitIndex units = new CompilationUnitIndex(srcRoot);
+    Session session = new Session(srcRoot, cache != null);
+    SourceWalker walker = new SourceWalker(sourceFilter.withIgnoreFile(srcRoot), ioThreads);
+    List<Path> files;
+
+    if (cache == null) {
+      files = new ArrayList<>();
+      List<ParsedFile> parsed;
+      ScanProfile.Timer parsing = phase("parse");
+      try {
+        parsed = pipeline(srcRoot).parse(sink -> walker.walk(srcRoot, file -> {
+          files.add(file);
+          sink.accept(file);
+        }), (file, bytes) -> parseFile(session.parser(), file, bytes));
+      } finally {
+        parsing.stop();
+      }
+      analyzeAll(parsed, Map.of(), session, p -> mergeFile(model, units, p));
+    } else {
+      ScanProfile.Timer walking = phase("walk");
+      try {
+        files = walker.list(srcRoot);
+      } finally {
+        walking.stop();
+      }
+      scanIncremental(model, units, files, session);
+    }
+    if (walker.getSkippedDirectories() > 0 || walker.getSkippedFiles() > 0) {
+      logger.info("Source filter skipped {} directories and {} files under {}", walker.getSkippedDirectories(),
+          walker.getSkippedFiles(), srcRoot);
+    }
+    logger.info("Call resolution cache: {} hits ({} negative), {} misses",
+        resolutionCache.getHits(), resolutionCache.getNegativeHits(), resolutionCache.getMisses());
+    if (resolveMode != ResolveMode.FULL || resolutionCache.getOverBudgetCalls() > 0) {
+      logger.info("Resolve mode {}: {} calls over budget, {} resolved by name and arity",
+          resolveMode.name().toLowerCase(Locale.ROOT), resolutionCache.getOverBudgetCalls(),
+          resolutionCache.getGuessedCalls());
+    }
+    getStageStats().forEach(stage -> logger.debug("Pipeline {}", stage));
+    if (profile != null) {
+      profile.addScan(files.size(), resolutionCache.getResolvedCalls(), resolutionCache.getUnresolvedCalls(),
+          resolutionCache.getHits(), resolutionCache.getMisses());
+    }
+    return units;
+  }
+
+  private void scanIncremental(GraphWriter model, CompilationUnitIndex units, List<Path> files,
+                               Session session) throws IOException {
+    Path srcRoot = units.getRoot();
+    List<String> digestList;
+    ScanProfile.Timer digesting = phase("digest");
+    try {
+      digestList = runAll(files, srcRoot, file -> digestOf(srcRoot, file));
+    } finally {
+      digesting.stop();
+    }
+    Map<String, String> digests = new HashMap<>();
+    for (int i = 0; i < files.size(); i++) {
+      digests.put(relativize(srcRoot, files.get(i)), digestList.get(i));
+    }
+
+    List<Path> changed = new ArrayList<>();
+    for (Path file : files) {
+      String rel = relativize(srcRoot, file);
+      if (cache.lookup(rel, digests.get(rel)) == null) {
+        changed.add(file);
+      }
+    }
+    List<ParsedFile> fresh = parseAll(changed, session);
+
+    Set<String> declaredTypes = new HashSet<>();
+    fresh.forEach(p -> declaredTypes.addAll(declaredTypes(p.cu)));
+    List<Path> stale = new ArrayList<>();
+    for (Path file : files) {
+      String rel = relativize(srcRoot, file);
+      CacheEntry entry = cache.lookup(rel, digests.get(rel));
+      if (entry != null && !cache.isValid(entry, digests, declaredTypes)) {
+        stale.add(file);
+      }
+    }
+    fresh.addAll(parseAll(stale, session));
+
+    // types of files that are not parsed again are found through their cache entries
+    Map<String, Path> declaringFiles = new HashMap<>();
+    for (Path file : files) {
+      String rel = relativize(srcRoot, file);
+      CacheEntry entry = cache.lookup(rel, digests.get(rel));
+      if (entry != null) {
+        entry.declaredTypes.forEach(type -> declaringFiles.putIfAbsent(type, file));
+      }
+    }
+    analyzeAll(fresh, declaringFiles, session, p -> { });
+
+    Map<Path, ParsedFile> byFile = new HashMap<>();
+    fresh.forEach(p -> byFile.put(p.file, p));
+    ScanProfile.Timer merging = phase("merge");
+    try {
+      mergeIncremental(model, units, files, byFile, digests);
+    } finally {
+      merging.stop();
+    }
+    logger.info("Incremental scan: {} files reused from cache, {} changed, {} re-resolved",
+        files.size() - fresh.size(), changed.size(), stale.size());
+  }
+
+  private void mergeIncremental(GraphWriter model, CompilationUnitIndex units, List<Path> files,
+                                Map<Path, ParsedFile> byFile, Map<String, String> digests) {
+    Path srcRoot = units.getRoot();
+    for (Path file : files) {
+      String rel = relativize(srcRoot, file);
+      ParsedFile p = byFile.get(file);
+      if (p != null) {
+        mergeFile(model, units, p);
+        // edges resolved by name after a budget ran out depend on timing; analyze the file again
+        if (!p.overBudget) {
+          cache.put(rel, toEntry(srcRoot, p, digests.get(rel), digests));
+        }
+      } else {
+        CacheEntry entry = cache.lookup(rel, digests.get(rel));
+        if (entry != null) {
+          model.merge(entry.fragment);
+          cache.put(rel, entry);
+        }
+      }
+    }
+  }
+
+  private String digestOf(Path srcRoot, Path file) throws IOException {
+    if (changedFiles != null && !changedFiles.contains(file.toAbsolutePath().normalize())) {
+      String previous = cache.digestOf(relativize(srcRoot, file));
+      if (previous != null) {
+        return previous;
+      }
+    }
+    return ScanCache.digest(Files.readAllBytes(file));
+  }
+
+  private List<ParsedFile> parseAll(List<Path> files, Session session) throws IOException {
+    if (files.isEmpty()) {
+      return new ArrayList<>();
+    }
+    ScanProfile.Timer parsing = phase("parse");
+    try {
+      return pipeline(session.srcRoot).parse(sink -> {
+        for (Path file : files) {
+          sink.accept(file);
+        }
+      }, (file, bytes) -> parseFile(session.parser(), file, bytes));
+    } finally {
+      parsing.stop();
+    }
+  }
+
+  /**
+   * Analyzes {@code parsed}, resolving project types from the parsed units first and from
+   * {@code declaringFiles} for types of files that were not parsed, and hands each file to
+   * {@code merge} in order as soon as it and the files before it are done.
+   */
+  private void analyzeAll(List<ParsedFile> parsed, Map<String, Path> declaringFiles, Session session,
+                          Consumer<ParsedFile> merge) throws IOException {
+    List<CompilationUnit> cus = new ArrayList<>(parsed.size());
+    parsed.forEach(p -> cus.add(p.cu));
+    ScanProfile.Timer resolving = phase("resolve");
+    try {
+      session.startAnalysis(resolveMode != ResolveMode.NONE ? SourceTypeIndex.of(cus) : SourceTypeIndex.of(List.of()),
+          declaringFiles);
+      pipeline(session.srcRoot).analyze(parsed, p -> {
+        long start = System.nanoTime();
+        analyzeFile(session.worker(), p);
+        p.nanos += System.nanoTime() - start;
+      }, merge);
+    } finally {
+      resolving.stop();
+    }
+    if (profile != null) {
+      parsed.forEach(p -> profile.recordFile(p.file, p.nanos));
+    }
+  }
+
+  private ScanProfile.Timer phase(String name) {
+    return profile != null ? profile.start(name) : ScanProfile.Timer.none();
+  }
+
+  private ScanPipeline pipeline(Path srcRoot) {
+    return new ScanPipeline(srcRoot, ioThreads, threads, this::stage, diagnostics, workerThreads());
+  }
+
+  private StageStats stage(String name) {
+    synchronized (stages) {
+      return stages.computeIfAbsent(name, n -> profile != null ? profile.stage(n) : new StageStats(n));
+    }
+  }
+
+  private CacheEntry toEntry(Path srcRoot, ParsedFile p, String digest, Map<String, String> digests) {
+    CacheEntry entry = new CacheEntry();
+    entry.digest = digest;
+    entry.fragment = p.fragment;
+    String self = relativize(srcRoot, p.file);
+    for (Path dep : p.dependencies.getFiles()) {
+      String rel = relativize(srcRoot, dep);
+      String depDigest = digests.get(rel);
+      if (depDigest != null && !rel.equals(self)) {
+        entry.dependencies.put(rel, depDigest);
+      }
+    }
+    entry.missingTypes.addAll(p.dependencies.getMissingTypes());
+    entry.declaredTypes.addAll(declaredTypes(p.cu));
+    return entry;
   }
 
-  private void configureParser(Path srcRoot) {
-    CombinedTypeSolver solver = createTypeSolver(srcRoot);
-    ParserConfiguration config = new ParserConfiguration();
-    config.setSymbolResolver(new JavaSymbolSolver(solver));
-    StaticJavaParser.setConfiguration(config);
+  private Set<String> declaredTypes(CompilationUnit cu) {
+    Set<String> names = new LinkedHashSet<>();
+    for (TypeDeclaration<?> td : cu.findAll(TypeDeclaration.class)) {
+      td.getFullyQualifiedName().ifPresent(names::add);
+    }
+    return names;
+  }
+
+  private String relativize(Path srcRoot, Path file) {
+    return srcRoot.toAbsolutePath().normalize()
+        .relativize(file.toAbsolutePath().normalize())
+        .toString().replace('\\', '/');
+  }
+
+  /**
+   * Runs {@code task} for every item, on the worker pool when more than one thread is configured,
+   * and returns the results in the order of {@code items}.
+   */
+  private <I, R> List<R> runAll(List<I> items, Path srcRoot, Task<I, R> task) throws IOException {
+    List<R> results = new ArrayList<>(items.size());
+    if (threads == 1 || items.size() < 2) {
+      for (I item : items) {
+        results.add(task.run(item));
+      }
+      return results;
+    }
+    ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, items.size()), workerThreads());
+    try {
+      List<Future<R>> futures = new ArrayList<>(items.size());
+      for (I item : items) {
+        futures.add(pool.submit(() -> task.run(item)));
+      }
+      for (Future<R> future : futures) {
+        results.add(future.get());
+      }
+      return results;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while scanning " + srcRoot);
+    } catch (ExecutionException e) {
+      throw new IOException("Scan failed for " + srcRoot, e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
   }
 
-  private CombinedTypeSolver createTypeSolver(Path srcRoot) {
-    CombinedTypeSolver solver = new CombinedTypeSolver();
-    solver.add(new ReflectionTypeSolver());
-    solver.add(new JavaParserTypeSolver(srcRoot));
-    return solver;
+  private ThreadFactory workerThreads() {
+    AtomicInteger counter = new AtomicInteger();
+    return r -> {
+      Thread t = new Thread(r, "flow-scan-" + counter.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    };
   }
 
-  private void scanJavaFiles(GraphModel model, Path srcRoot, MethodCallAnalyzer analyzer) throws IOException {
-    try (Stream<Path> walk = Files.walk(srcRoot)) {
-      walk.filter(p -> p.toString().endsWith(".java"))
-          .forEach(p -> parseFile(model, p, analyzer));
+  private ParsedFile parseFile(JavaParser parser, Path file, byte[] bytes) {
+    long start = System.nanoTime();
+    try {
+      ParseResult<CompilationUnit> result = parser.parse(new ByteArrayInputStream(bytes));
+      if (!result.isSuccessful() || result.getResult().isEmpty()) {
+        throw new ParseProblemException(result.getProblems());
+      }
+      CompilationUnit cu = result.getResult().get();
+      cu.setStorage(file, parser.getParserConfiguration().getCharacterEncoding());
+      ParsedFile parsed = new ParsedFile(file, cu);
+      parsed.triggers = prefilter == null ? TokenPrefilter.all() : prefilter.match(bytes);
+      parsed.nanos = System.nanoTime() - start;
+      return parsed;
+    } catch (Exception e) {
+      parseFailed(file, e);
+      return null;
     }
   }
 
-  private void parseFile(GraphModel model, Path file, MethodCallAnalyzer analyzer) {
+  private void analyzeFile(Worker worker, ParsedFile p) {
+    worker.analyzer.startFile();
+    worker.startRecording(p.dependencies);
     try {
-      CompilationUnit cu = StaticJavaParser.parse(file);
-      processClasses(model, cu, analyzer);
+      processClasses(p.fragment, p.cu, worker.analyzer);
     } catch (Exception e) {
+      parseFailed(p.file, e);
+    } finally {
+      worker.stopRecording();
+      p.overBudget = worker.analyzer.isFileOverBudget();
+    }
+    for (int i = 0; i < enrichers.size(); i++) {
+      if (!TokenPrefilter.matched(p.triggers, i)) {
+        continue;
+      }
+      try {
+        enrichers.get(i).enrich(p.fragment, p.file, p.cu);
+      } catch (Exception e) {
+        diagnostics.report("plugin.failed", e.getClass().getSimpleName(), () -> p.file + ": " + e.getMessage());
+        if (diagnostics.isVerbose()) {
+          logger.warn("Enrichment failed for file {}", p.file, e);
+        }
+      }
+    }
+  }
+
+  private void parseFailed(Path file, Exception e) {
+    diagnostics.report("parse.failed", e.getClass().getSimpleName(), () -> file + ": " + e.getMessage());
+    if (diagnostics.isVerbose()) {
       logger.error("Parse fail: {} -> {}", file, e.getMessage(), e);
     }
   }
 
+  private void mergeFile(GraphWriter model, CompilationUnitIndex units, ParsedFile parsed) {
+    if (parsed != null) {
+      units.add(parsed.file, parsed.cu, parsed.triggers);
+      model.merge(parsed.fragment);
+    }
+  }
+
   private void processClasses(GraphModel model, CompilationUnit cu, MethodCallAnalyzer analyzer) {
     cu.findAll(ClassOrInterfaceDeclaration.class)
         .forEach(cls -> processClass(model, cu, cls, analyzer));
@@ -78,4 +559,115 @@ public class JavaSourceScanner implements SourceCodeAnalyzer {
   private String buildFqn(String pkg, String className) {
     return pkg.isEmpty() ? className : pkg + "." + className;
   }
-}
\ No newline at end of file
+
+  @FunctionalInterface
+  private interface Task<I, R> {
+
+    R run(I item) throws IOException;
+  }
+
+  /**
+   * Per-scan parser and solver state. Parsers are created per thread; every parsed unit carries a
+   * {@link WorkerSymbolResolver}, which routes resolution to the calling thread's {@link Worker}.
+   * Workers are rebuilt when analysis starts so they see the type index of the units just parsed.
+   */
+  private final class Session {
+
+    final Path srcRoot;
+    final boolean recordDependencies;
+    final WorkerSymbolResolver resolver = new WorkerSymbolResolver(() -> worker().symbolSolver);
+    final ThreadLocal<JavaParser> parsers = ThreadLocal.withInitial(this::createParser);
+    volatile ThreadLocal<Worker> workers;
+
+    Session(Path srcRoot, boolean recordDependencies) {
+      this.srcRoot = srcRoot;
+      this.recordDependencies = recordDependencies;
+      startAnalysis(SourceTypeIndex.of(List.of()), Map.of());
+    }
+
+    void startAnalysis(SourceTypeIndex index, Map<String, Path> declaringFiles) {
+      workers = ThreadLocal.withInitial(() -> new Worker(index, new SourceFileTypeSolver(declaringFiles, this::parser),
+          classpath, recordDependencies, resolutionCache, recordCallLines, resolveMode, callBudgetNanos,
+          fileBudgetNanos, diagnostics));
+    }
+
+    JavaParser parser() {
+      return parsers.get();
+    }
+
+    Worker worker() {
+      return workers.get();
+    }
+
+    private JavaParser createParser() {
+      ParserConfiguration config = new ParserConfiguration();
+      if (resolveMode != ResolveMode.NONE) {
+        config.setSymbolResolver(resolver);
+      }
+      return new JavaParser(config);
+    }
+  }
+
+  /**
+   * Symbol solver owned by one scan thread. JavaParser's solvers keep unsynchronized caches, so
+   * they are never shared between threads; only the immutable {@link SourceTypeIndex} and the
+   * {@link JdkTypeSolver} class map are.
+   */
+  private static class Worker {
+
+    private final JavaSymbolSolver symbolSolver;
+    private final RecordingTypeSolver recorder;
+    private final MethodCallAnalyzer analyzer;
+
+    Worker(SourceTypeIndex index, TypeSolver unparsedSources, ClasspathIndex classpath,
+           boolean recordDependencies, ResolutionCache resolutionCache, boolean recordCallLines,
+           ResolveMode mode, long callBudgetNanos, long fileBudgetNanos, Diagnostics diagnostics) {
+      CombinedTypeSolver solver = new CombinedTypeSolver();
+      solver.add(new JdkTypeSolver());
+      solver.add(new SourceIndexTypeSolver(index, unparsedSources));
+      if (classpath != null) {
+        solver.add(new ClasspathTypeSolver(classpath));
+      }
+      // the recorder sits above the combined solver's name cache, so every file records its lookups
+      recorder = recordDependencies ? new RecordingTypeSolver(solver) : null;
+      TypeSolver root = recorder != null ? recorder : solver;
+      // the budget sits on top so that lookups through getRoot() are checked as well
+      BudgetTypeSolver budget = mode == ResolveMode.FULL && (callBudgetNanos > 0 || fileBudgetNanos > 0)
+          ? new BudgetTypeSolver(root) : null;
+      if (budget != null) {
+        root = budget;
+      }
+      symbolSolver = new JavaSymbolSolver(root);
+      analyzer = new MethodCallAnalyzer(resolutionCache, recorder, recordCallLines, mode, root, budget,
+          callBudgetNanos, fileBudgetNanos, diagnostics);
+    }
+
+    void startRecording(FileDependencies dependencies) {
+      if (recorder != null) {
+        recorder.startRecording(dependencies);
+      }
+    }
+
+    void stopRecording() {
+      if (recorder != null) {
+        recorder.stopRecording();
+      }
+    }
+  }
+
+  private static class ParsedFile {
+
+    final Path file;
+    final CompilationUnit cu;
+    final GraphModel fragment = new GraphModel();
+    final FileDependencies dependencies = new FileDependencies();
+    long nanos;
+    long triggers = TokenPrefilter.all();
+    boolean overBudget;
+
+    ParsedFile(Path file, CompilationUnit cu) {
+      this.file = file;
+      this.cu = cu;
+    }
+  }
+}
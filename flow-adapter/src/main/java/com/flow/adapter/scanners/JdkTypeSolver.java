@@ -0,0 +1,86 @@
+package com.flow.adapter.scanners;
+
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.reflectionmodel.ReflectionFactory;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves {@code java.*} and {@code javax.*} types by reflection, like JavaParser's
+ * {@code ReflectionTypeSolver}, but remembers which names exist in a map shared by every worker and
+ * every scan in the process. Names that are not JDK classes, which the solver is asked about for
+ * each candidate import of each file, then fail with a lookup instead of a
+ * {@code ClassNotFoundException} from the class loader.
+ *
+ * <p>Only the name-to-class map is shared; declarations are created per call against this
+ * instance's root solver, so each worker still owns its own solver chain.
+ */
+public class JdkTypeSolver implements TypeSolver {
+
+  private static final ClassLoader loader = JdkTypeSolver.class.getClassLoader();
+  private static final Map<String, Optional<Class<?>>> classes = new ConcurrentHashMap<>();
+
+  private TypeSolver parent;
+
+  @Override
+  public TypeSolver getParent() {
+    return parent;
+  }
+
+  @Override
+  public void setParent(TypeSolver parent) {
+    this.parent = parent;
+  }
+
+  @Override
+  public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+    Class<?> clazz = find(name);
+    return clazz != null
+        ? SymbolReference.solved(ReflectionFactory.typeDeclarationFor(clazz, getRoot()))
+        : SymbolReference.unsolved();
+  }
+
+  private static Class<?> find(String name) {
+    if (!name.startsWith("java.") && !name.startsWith("javax.")) {
+      return null;
+    }
+    Optional<Class<?>> cached = classes.get(name);
+    if (cached == null) {
+      // not computeIfAbsent: nested names recurse into their enclosing type's entry
+      cached = Optional.ofNullable(load(name));
+      classes.putIfAbsent(name, cached);
+    }
+    return cached.orElse(null);
+  }
+
+  /**
+   * Same lookup order as {@code ClassLoaderTypeSolver}: the name as a top-level class, then as a
+   * member of the type named by everything before its last dot.
+   */
+  private static Class<?> load(String name) {
+    try {
+      return loader.loadClass(name);
+    } catch (NoClassDefFoundError e) {
+      return null;
+    } catch (ClassNotFoundException e) {
+      int dot = name.lastIndexOf('.');
+      if (dot < 0) {
+        return null;
+      }
+      Class<?> outer = find(name.substring(0, dot));
+      if (outer == null) {
+        return null;
+      }
+      String simpleName = name.substring(dot + 1);
+      for (Class<?> member : outer.getDeclaredClasses()) {
+        if (member.getSimpleName().equals(simpleName)) {
+          return member;
+        }
+      }
+      return null;
+    }
+  }
+}
@@ -0,0 +1,246 @@
+package com.flow.adapter.scanners;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Parser for plugins that harvest declarations (annotations, signatures) from sources they parse
+ * themselves: comments are not attributed, tokens are not stored, lexical preservation is off and
+ * no symbol resolver is attached. Without stored tokens, nodes have no ranges. Unless bodies are
+ * requested, method and constructor bodies are cut from the source before parsing, so they cost
+ * a scan of their characters instead of lexing and a subtree.
+ *
+ * <p>Cutting keeps any body that declares a local class, since plugins find classes anywhere in
+ * the unit. Sources containing unicode escapes, and sources that no longer parse once cut, are
+ * parsed whole. Not thread-safe.
+ */
+public class LeanParser {
+
+  // where the last significant token leaves a following '{'
+  private static final int OTHER = 0;
+  private static final int AFTER_PARAMS = 1;
+  private static final int THROWS = 2;
+
+  private final JavaParser parser;
+  private final boolean bodies;
+
+  private LeanParser(boolean bodies) {
+    ParserConfiguration config = new ParserConfiguration()
+        .setAttributeComments(false)
+        .setStoreTokens(false)
+        .setLexicalPreservationEnabled(false);
+    this.parser = new JavaParser(config);
+    this.bodies = bodies;
+  }
+
+  /**
+   * Keeps method bodies, for plugins that look at statements or calls.
+   */
+  public static LeanParser withBodies() {
+    return new LeanParser(true);
+  }
+
+  /**
+   * Leaves method and constructor bodies empty.
+   */
+  public static LeanParser withoutBodies() {
+    return new LeanParser(false);
+  }
+
+  public CompilationUnit parse(Path file) throws IOException {
+    Charset encoding = parser.getParserConfiguration().getCharacterEncoding();
+    CompilationUnit cu = parse(new String(Files.readAllBytes(file), encoding));
+    cu.setStorage(file, encoding);
+    return cu;
+  }
+
+  public CompilationUnit parse(String source) {
+    if (!bodies) {
+      String stripped = stripBodies(source);
+      if (stripped != source) {
+        ParseResult<CompilationUnit> result = parser.parse(stripped);
+        if (result.isSuccessful() && result.getResult().isPresent()) {
+          return result.getResult().get();
+        }
+      }
+    }
+    ParseResult<CompilationUnit> result = parser.parse(source);
+    if (!result.isSuccessful() || result.getResult().isEmpty()) {
+      throw new ParseProblemException(result.getProblems());
+    }
+    return result.getResult().get();
+  }
+
+  /**
+   * Removes the content of every block that follows a parameter list or throws clause (method,
+   * constructor, and, harmlessly, statement bodies), leaving {@code {}}. Returns {@code source}
+   * itself when nothing was removed.
+   */
+  public static String stripBodies(String source) {
+    if (source.contains("\\u")) {
+      return source;
+    }
+    int n = source.length();
+    List<int[]> ranges = new ArrayList<>();
+    Deque<Block> open = new ArrayDeque<>();
+    int state = OTHER;
+    char prev = 0; // last significant punctuation, or 'a' for a word
+    String prevWord = null;
+    boolean recordHeader = false;
+    int i = 0;
+    while (i < n) {
+      char c = source.charAt(i);
+      if (Character.isWhitespace(c)) {
+        i++;
+        continue;
+      }
+      if (c == '/' && i + 1 < n && source.charAt(i + 1) == '/') {
+        int eol = source.indexOf('\n', i);
+        i = eol < 0 ? n : eol;
+        continue;
+      }
+      if (c == '/' && i + 1 < n && source.charAt(i + 1) == '*') {
+        int end = source.indexOf("*/", i + 2);
+        i = end < 0 ? n : end + 2;
+        continue;
+      }
+      if (c == '"' && source.startsWith("\"\"\"", i)) {
+        i = skipQuoted(source, i + 3, "\"\"\"");
+        state = OTHER;
+        prev = '"';
+        continue;
+      }
+      if (c == '"' || c == '\'') {
+        i = skipQuoted(source, i + 1, c == '"' ? "\"" : "'");
+        state = OTHER;
+        prev = c;
+        continue;
+      }
+      if (Character.isJavaIdentifierStart(c)) {
+        int start = i;
+        while (i < n && Character.isJavaIdentifierPart(source.charAt(i))) {
+          i++;
+        }
+        String word = source.substring(start, i);
+        if (prev != '.' && (word.equals("class") || word.equals("interface") || word.equals("enum"))) {
+          open.forEach(b -> b.declaresType = true);
+        }
+        if (prev == 'a' && "record".equals(prevWord)) {
+          recordHeader = true;
+        }
+        if (state == AFTER_PARAMS && word.equals("throws")) {
+          state = THROWS;
+        } else if (state != THROWS) {
+          state = OTHER;
+        }
+        prev = 'a';
+        prevWord = word;
+        continue;
+      }
+      if (Character.isDigit(c)) {
+        while (i < n && (Character.isLetterOrDigit(source.charAt(i)) || source.charAt(i) == '_'
+            || source.charAt(i) == '.')) {
+          i++;
+        }
+        state = OTHER;
+        prev = '0';
+        continue;
+      }
+      switch (c) {
+        case '{':
+          open.push(new Block(i, (state == AFTER_PARAMS || state == THROWS) && !recordHeader));
+          recordHeader = false;
+          state = OTHER;
+          break;
+        case '}':
+          Block block = open.poll();
+          if (block != null && block.body && !block.declaresType && i > block.start + 1) {
+            ranges.add(new int[]{block.start + 1, i});
+          }
+          recordHeader = false;
+          state = OTHER;
+          break;
+        case ')':
+          state = AFTER_PARAMS;
+          break;
+        case ';':
+          recordHeader = false;
+          state = OTHER;
+          break;
+        case '.':
+        case ',':
+        case '@':
+          if (state != THROWS) {
+            state = OTHER;
+          }
+          break;
+        default:
+          state = OTHER;
+      }
+      prev = c;
+      i++;
+    }
+    if (ranges.isEmpty()) {
+      return source;
+    }
+    // outermost first; nested ranges inside a removed one are dropped with it
+    ranges.sort((a, b) -> Integer.compare(a[0], b[0]));
+    StringBuilder out = new StringBuilder(source.length());
+    int copied = 0;
+    for (int[] range : ranges) {
+      if (range[0] >= copied) {
+        out.append(source, copied, range[0]);
+        copied = range[1];
+      }
+    }
+    return out.append(source, copied, n).toString();
+  }
+
+  /**
+   * Index just past the closing {@code quote} of a literal starting at {@code i}, honouring
+   * backslash escapes.
+   */
+  private static int skipQuoted(String source, int i, String quote) {
+    int n = source.length();
+    while (i < n) {
+      char c = source.charAt(i);
+      if (c == '\\') {
+        i += 2;
+      } else if (source.startsWith(quote, i)) {
+        return i + quote.length();
+      } else if (c == '\n' && quote.length() == 1) {
+        return i;
+      } else {
+        i++;
+      }
+    }
+    return n;
+  }
+
+  /**
+   * An open brace: where it is, whether it follows a parameter list or throws clause, and whether
+   * a type is declared inside it.
+   */
+  private static class Block {
+
+    final int start;
+    final boolean body;
+    boolean declaresType;
+
+    Block(int start, boolean body) {
+      this.start = start;
+      this.body = body;
+    }
+  }
+}
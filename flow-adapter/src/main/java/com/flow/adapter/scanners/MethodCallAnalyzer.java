@@ -1,15 +1,31 @@
 package com.flow.adapter.scanners;
 
 import com.flow.adapter.Model.GraphModel;
+import com.flow.adapter.cache.RecordingTypeSolver;
+import com.flow.adapter.diagnostics.Diagnostics;
+import com.flow.adapter.scanners.ResolutionCache.Resolution;
 import com.flow.adapter.util.PackageUtil;
 import com.flow.adapter.util.SignatureUtil;
 import com.flow.adapter.util.VisibilityUtil;
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.expr.TypePatternExpr;
 import com.github.javaparser.resolution.MethodAmbiguityException;
+import com.github.javaparser.resolution.TypeSolver;
 import com.github.javaparser.resolution.UnsolvedSymbolException;
 import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -17,9 +33,79 @@ public class MethodCallAnalyzer {
 
   private static final Logger logger = LoggerFactory.getLogger(MethodCallAnalyzer.class);
 
+  private final ResolutionCache cache;
+  private final RecordingTypeSolver recorder;
+  private final boolean recordLines;
+  private final ResolveMode mode;
+  private final NameArityResolver byName;
+  private final BudgetTypeSolver budget;
+  private final long callBudgetNanos;
+  private final long fileBudgetNanos;
+  private final Diagnostics diagnostics;
+  // resolution time spent on the current file
+  private long fileNanos;
+  // whether a call of the current file fell back because a budget ran out
+  private boolean fileOverBudget;
+
+  public MethodCallAnalyzer() {
+    this(null, null, false);
+  }
+
+  /**
+   * @param cache    shared resolution memo, or {@code null} to resolve every call
+   * @param recorder the worker's dependency-recording solver, or {@code null} when no incremental
+   *                 cache is in use; memo hits replay their type lookups through it
+   * @param recordLines keep the source line of every call site on its call edge
+   */
+  public MethodCallAnalyzer(ResolutionCache cache, RecordingTypeSolver recorder, boolean recordLines) {
+    this(cache, recorder, recordLines, ResolveMode.FULL, null, null, 0, 0, new Diagnostics());
+  }
+
+  /**
+   * @param mode            how calls are resolved
+   * @param typeSolver      the worker's root type solver, for {@link ResolveMode#FAST} lookups and
+   *                        the fallback of calls over budget; {@code null} resolves in full only
+   * @param budget          the root solver when it enforces budgets, otherwise {@code null}
+   * @param callBudgetNanos time one call may take to resolve in full, 0 for no limit
+   * @param fileBudgetNanos time all calls of a file may take to resolve in full, 0 for no limit;
+   *                        further calls of the file are resolved by name and arity
+   * @param diagnostics     where unresolved calls are counted
+   */
+  MethodCallAnalyzer(ResolutionCache cache, RecordingTypeSolver recorder, boolean recordLines, ResolveMode mode,
+                     TypeSolver typeSolver, BudgetTypeSolver budget, long callBudgetNanos, long fileBudgetNanos,
+                     Diagnostics diagnostics) {
+    this.cache = cache;
+    this.recorder = recorder;
+    this.recordLines = recordLines;
+    this.mode = mode;
+    this.byName = typeSolver != null ? new NameArityResolver(typeSolver) : null;
+    this.budget = budget;
+    this.callBudgetNanos = callBudgetNanos;
+    this.fileBudgetNanos = fileBudgetNanos;
+    this.diagnostics = diagnostics;
+  }
+
+  /**
+   * Starts the per-file time budget over.
+   */
+  public void startFile() {
+    fileNanos = 0;
+    fileOverBudget = false;
+  }
+
+  /**
+   * Whether a call of the current file was resolved by name because a budget ran out, so its
+   * edges depend on timing and should not be reused.
+   */
+  public boolean isFileOverBudget() {
+    return fileOverBudget;
+  }
+
   public void analyze(GraphModel model, CompilationUnit cu, String fqn, String pkg, String module, MethodDeclaration md) {
     GraphModel.MethodNode node = createMethodNode(model, fqn, pkg, module, md);
-    processMethodCalls(model, cu, md, node.id);
+    if (mode != ResolveMode.NONE) {
+      processMethodCalls(model, cu, md, node.id);
+    }
   }
 
   private GraphModel.MethodNode createMethodNode(GraphModel model, String fqn, String pkg, String module, MethodDeclaration md) {
@@ -37,36 +123,234 @@ public class MethodCallAnalyzer {
   }
 
   private void processMethodCalls(GraphModel model, CompilationUnit cu, MethodDeclaration md, String callerId) {
-    md.findAll(MethodCallExpr.class).forEach(call -> processMethodCall(model, cu, call, callerId));
+    List<MethodCallExpr> calls = md.findAll(MethodCallExpr.class);
+    if (calls.isEmpty()) {
+      return;
+    }
+    Set<String> locals = cache != null ? localNames(md) : Set.of();
+    calls.forEach(call -> processMethodCall(model, cu, call, callerId, locals));
   }
 
-  private void processMethodCall(GraphModel model, CompilationUnit cu, MethodCallExpr call, String callerId) {
+  private void processMethodCall(GraphModel model, CompilationUnit cu, MethodCallExpr call, String callerId,
+                                 Set<String> locals) {
     try {
-      ResolvedMethodDeclaration resolved = call.resolve();
-      GraphModel.MethodNode target = createTargetMethodNode(model, resolved);
-      addCallEdge(model, callerId, target.id);
-    } catch (UnsolvedSymbolException | MethodAmbiguityException ex) {
-      logger.warn("Could not resolve symbol or method ambiguity for call in {}: {}",
-          cu.getPrimaryTypeName().orElse("unknown"), ex.getMessage());
+      Resolution resolution = mode == ResolveMode.FAST ? byName.resolve(call) : resolveWithinBudget(call, locals);
+      if (cache != null) {
+        cache.recordOutcome(resolution.isResolved());
+        if (resolution.confidence != null) {
+          cache.recordGuessed();
+        }
+      }
+      if (resolution.isResolved()) {
+        GraphModel.MethodNode target = createTargetMethodNode(model, resolution);
+        Integer line = recordLines ? call.getBegin().map(pos -> pos.line).orElse(null) : null;
+        model.addCall(callerId, target.id, line, resolution.confidence);
+      } else {
+        String where = cu.getPrimaryTypeName().orElse("unknown");
+        diagnostics.report(resolution.failureKind, resolution.failureTarget,
+            () -> where + ": " + resolution.failure);
+        if (diagnostics.isVerbose()) {
+          logger.warn("Could not resolve call in {}: {}", where, resolution.failure);
+        }
+      }
     } catch (Exception ex) {
-      logger.error("Unexpected error while processing method call in {}: {}",
-          cu.getPrimaryTypeName().orElse("unknown"), ex.getMessage(), ex);
+      String where = cu.getPrimaryTypeName().orElse("unknown");
+      diagnostics.report("call.error", ex.getClass().getSimpleName(), () -> where + ": " + ex.getMessage());
+      if (diagnostics.isVerbose()) {
+        logger.error("Unexpected error while processing method call in {}: {}", where, ex.getMessage(), ex);
+      }
+    }
+  }
+
+  /**
+   * Resolves in full unless the file's budget is spent, and falls back to name and arity when the
+   * call runs out of time. Time spent is counted against the file either way.
+   */
+  private Resolution resolveWithinBudget(MethodCallExpr call, Set<String> locals) {
+    if (budget == null) {
+      return resolve(call, locals);
+    }
+    if (fileBudgetNanos > 0 && fileNanos >= fileBudgetNanos) {
+      return overBudget(call, null);
+    }
+    long start = System.nanoTime();
+    long allowed = Long.MAX_VALUE;
+    if (callBudgetNanos > 0) {
+      allowed = callBudgetNanos;
+    }
+    if (fileBudgetNanos > 0) {
+      allowed = Math.min(allowed, fileBudgetNanos - fileNanos);
+    }
+    budget.arm(start + allowed);
+    try {
+      return resolve(call, locals);
+    } catch (BudgetTypeSolver.Exceeded e) {
+      budget.disarm();
+      return overBudget(call, System.nanoTime() - start);
+    } finally {
+      budget.disarm();
+      fileNanos += System.nanoTime() - start;
+    }
+  }
+
+  private Resolution overBudget(MethodCallExpr call, Long spentNanos) {
+    fileOverBudget = true;
+    if (cache != null) {
+      cache.recordOverBudget();
+    }
+    if (spentNanos != null) {
+      String at = call.getBegin().map(Object::toString).orElse("?");
+      diagnostics.report("call.over-budget", "#" + call.getNameAsString(),
+          () -> call + " at " + at + " after " + spentNanos / 1_000_000 + " ms");
+      if (diagnostics.isVerbose()) {
+        logger.warn("Call resolution gave up after {} ms, resolving by name and arity: {} at {}",
+            spentNanos / 1_000_000, call, at);
+      }
+    }
+    return byName != null ? byName.resolve(call)
+        : Resolution.failed("call.over-budget", "#" + call.getNameAsString(), "resolution time budget exceeded",
+            List.of());
+  }
+
+  /**
+   * Resolves through the memo when the call can be keyed. The key is the solved scope type when
+   * available; when the scope itself cannot be typed (e.g. a field of a third-party type), it falls
+   * back to the scope text within the enclosing type, which is only safe for names that cannot be
+   * shadowed by a local variable.
+   */
+  private Resolution resolve(MethodCallExpr call, Set<String> locals) {
+    if (cache == null) {
+      return resolveUncached(call);
+    }
+    String key;
+    try {
+      key = callKey(call, scopeKey(call, locals));
+    } catch (RuntimeException ex) {
+      key = null;
+    }
+    if (key == null) {
+      return resolveUncached(call);
+    }
+    Resolution hit = cache.get(key);
+    if (hit != null) {
+      if (recorder != null) {
+        recorder.replay(hit.queriedTypes);
+      }
+      return hit;
+    }
+    Resolution resolution = resolveUncached(call);
+    cache.put(key, resolution);
+    return resolution;
+  }
+
+  private Resolution resolveUncached(MethodCallExpr call) {
+    if (recorder != null) {
+      recorder.beginCapture();
+    }
+    try {
+      ResolvedMethodDeclaration resolved = call.resolve();
+      return Resolution.resolved(resolved.declaringType().getQualifiedName(), resolved.getName(),
+          SignatureUtil.signatureOf(resolved), VisibilityUtil.visibilityOf(resolved), capturedTypes());
+    } catch (UnsolvedSymbolException ex) {
+      return Resolution.failed("call.unsolved-symbol", unsolvedTarget(ex, call), ex.getMessage(), capturedTypes());
+    } catch (MethodAmbiguityException ex) {
+      return Resolution.failed("call.ambiguous", "#" + call.getNameAsString(), ex.getMessage(), capturedTypes());
+    } catch (RuntimeException ex) {
+      capturedTypes();
+      throw ex;
+    }
+  }
+
+  /**
+   * The symbol the solver could not find, or the called method's name when the solver put a
+   * sentence in its place.
+   */
+  private static String unsolvedTarget(UnsolvedSymbolException ex, MethodCallExpr call) {
+    String name = ex.getName();
+    if (name == null || name.isEmpty() || name.contains(" ") || name.contains("(")) {
+      return "#" + call.getNameAsString();
+    }
+    return name;
+  }
+
+  private List<String> capturedTypes() {
+    return recorder != null ? recorder.endCapture() : List.of();
+  }
+
+  private String scopeKey(MethodCallExpr call, Set<String> locals) {
+    Optional<Expression> scope = call.getScope();
+    if (scope.isEmpty()) {
+      String owner = enclosingType(call);
+      return owner != null ? "this:" + owner : null;
+    }
+    try {
+      return scope.get().calculateResolvedType().describe();
+    } catch (UnsolvedSymbolException ex) {
+      Expression s = scope.get();
+      if (s instanceof NameExpr && !locals.contains(((NameExpr) s).getNameAsString())) {
+        String owner = enclosingType(call);
+        return owner != null ? "name:" + owner + ":" + s : null;
+      }
+      return null;
+    }
+  }
+
+  private String callKey(MethodCallExpr call, String scopeKey) {
+    if (scopeKey == null) {
+      return null;
+    }
+    StringBuilder key = new StringBuilder(scopeKey).append('#');
+    call.getTypeArguments().ifPresent(args -> key.append(args).append(' '));
+    key.append(call.getNameAsString()).append('(');
+    for (int i = 0; i < call.getArguments().size(); i++) {
+      if (i > 0) {
+        key.append(',');
+      }
+      key.append(call.getArgument(i).calculateResolvedType().describe());
     }
+    return key.append(')').toString();
   }
 
-  private GraphModel.MethodNode createTargetMethodNode(GraphModel model, ResolvedMethodDeclaration resolved) {
-    String className = resolved.declaringType().getQualifiedName();
-    String sig = SignatureUtil.signatureOf(resolved);
+  /**
+   * Fully qualified name of the innermost named type around {@code node}, or {@code null} inside
+   * anonymous and local classes where lookup depends on more than the type name.
+   */
+  private String enclosingType(Node node) {
+    Optional<Node> current = node.getParentNode();
+    while (current.isPresent()) {
+      Node n = current.get();
+      if (n instanceof ObjectCreationExpr && ((ObjectCreationExpr) n).getAnonymousClassBody().isPresent()) {
+        return null;
+      }
+      if (n instanceof TypeDeclaration) {
+        return ((TypeDeclaration<?>) n).getFullyQualifiedName().orElse(null);
+      }
+      current = n.getParentNode();
+    }
+    return null;
+  }
+
+  private Set<String> localNames(MethodDeclaration md) {
+    Set<String> names = new HashSet<>();
+    md.findAll(Parameter.class).forEach(p -> names.add(p.getNameAsString()));
+    md.findAll(VariableDeclarator.class).forEach(v -> names.add(v.getNameAsString()));
+    md.findAll(TypePatternExpr.class).forEach(p -> names.add(p.getNameAsString()));
+    return names;
+  }
+
+  private GraphModel.MethodNode createTargetMethodNode(GraphModel model, Resolution resolved) {
+    String className = resolved.className;
+    String sig = resolved.signature;
     String id = className + "#" + sig;
 
     GraphModel.MethodNode node = model.ensureMethod(id);
     node.id = id;
     node.className = className;
-    node.methodName = resolved.getName();
+    node.methodName = resolved.methodName;
     node.signature = sig;
     node.packageName = extractPackage(className);
     node.moduleName = PackageUtil.deriveModule(node.packageName);
-    node.visibility = VisibilityUtil.visibilityOf(resolved);
+    node.visibility = resolved.visibility;
     return node;
   }
 
@@ -74,11 +358,4 @@ public class MethodCallAnalyzer {
     int idx = className.lastIndexOf('.');
     return idx > 0 ? className.substring(0, idx) : "";
   }
-
-  private void addCallEdge(GraphModel model, String fromId, String toId) {
-    GraphModel.CallEdge edge = new GraphModel.CallEdge();
-    edge.from = fromId;
-    edge.to = toId;
-    model.calls.add(edge);
-  }
 }
@@ -0,0 +1,571 @@
+package com.flow.adapter.scanners;
+
+import com.flow.adapter.Model.GraphModel;
+import com.flow.adapter.scanners.ResolutionCache.Resolution;
+import com.flow.adapter.util.SignatureUtil;
+import com.flow.adapter.util.VisibilityUtil;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.EnumConstantDeclaration;
+import com.github.javaparser.ast.body.EnumDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.RecordDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.CastExpr;
+import com.github.javaparser.ast.expr.CharLiteralExpr;
+import com.github.javaparser.ast.expr.DoubleLiteralExpr;
+import com.github.javaparser.ast.expr.EnclosedExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.LambdaExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.Name;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.expr.SuperExpr;
+import com.github.javaparser.ast.expr.ThisExpr;
+import com.github.javaparser.ast.expr.VariableDeclarationExpr;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.CatchClause;
+import com.github.javaparser.ast.stmt.ExpressionStmt;
+import com.github.javaparser.ast.stmt.ForEachStmt;
+import com.github.javaparser.ast.stmt.ForStmt;
+import com.github.javaparser.ast.stmt.Statement;
+import com.github.javaparser.ast.stmt.SwitchEntry;
+import com.github.javaparser.ast.stmt.TryStmt;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.Type;
+import com.github.javaparser.ast.type.UnknownType;
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.UnsolvedSymbolException;
+import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.resolution.types.ResolvedReferenceType;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Resolves method calls without the symbol solver's type inference: the receiver's type is read
+ * off the syntax (the enclosing type, the declared type of a parameter, local or field, a type
+ * name, {@code new X()} or a cast) and the method is looked up by name and argument count among
+ * the methods declared by that type, then by its ancestors level by level. Types are still found
+ * through the worker's type solver, so the lookups are recorded as dependencies like the solver's.
+ *
+ * <p>A single candidate gives a {@code high} confidence edge. Among overloads with the same arity,
+ * the one whose parameter types match most of the arguments whose types are evident from the
+ * syntax (literals, declared variables, {@code new}, casts) is taken with {@code low} confidence;
+ * a tie leaves the call unresolved, as does a receiver whose type is not evident (e.g. the result
+ * of another call, or a {@code var}). Confined to one scan worker.
+ */
+class NameArityResolver {
+
+  private final TypeSolver solver;
+
+  NameArityResolver(TypeSolver solver) {
+    this.solver = solver;
+  }
+
+  Resolution resolve(MethodCallExpr call) {
+    String name = call.getNameAsString();
+    int arity = call.getArguments().size();
+    List<ResolvedReferenceTypeDeclaration> receivers = new ArrayList<>();
+    boolean skipOwn = false;
+    Optional<Expression> scope = call.getScope();
+    if (scope.isEmpty()) {
+      receivers.addAll(enclosingTypes(call));
+    } else if (scope.get() instanceof SuperExpr && ((SuperExpr) scope.get()).getTypeName().isEmpty()) {
+      List<ResolvedReferenceTypeDeclaration> enclosing = enclosingTypes(call);
+      if (!enclosing.isEmpty()) {
+        receivers.add(enclosing.get(0));
+        skipOwn = true;
+      }
+    } else {
+      ResolvedReferenceTypeDeclaration type = typeOf(scope.get(), call);
+      if (type != null) {
+        receivers.add(type);
+      }
+    }
+    if (receivers.isEmpty()) {
+      return Resolution.failed("call.receiver-unknown", "#" + name,
+          "Receiver type of " + call + " is not evident from the source", List.of());
+    }
+    for (ResolvedReferenceTypeDeclaration receiver : receivers) {
+      List<ResolvedMethodDeclaration> candidates = methods(receiver, name, arity, skipOwn);
+      if (!candidates.isEmpty()) {
+        return pick(call, candidates);
+      }
+    }
+    String receiver = receivers.get(0).getQualifiedName();
+    return Resolution.failed("call.no-matching-method", receiver,
+        "No method " + name + " with " + arity + " arguments in " + receiver, List.of());
+  }
+
+  /**
+   * Methods named {@code name} that accept {@code arity} arguments, from the first of the type and
+   * its ancestor levels that has any.
+   */
+  private List<ResolvedMethodDeclaration> methods(ResolvedReferenceTypeDeclaration type, String name, int arity,
+                                                  boolean skipOwn) {
+    Set<String> seen = new HashSet<>();
+    List<ResolvedReferenceTypeDeclaration> level = List.of(type);
+    seen.add(type.getQualifiedName());
+    boolean own = true;
+    while (!level.isEmpty()) {
+      Map<String, ResolvedMethodDeclaration> found = new LinkedHashMap<>();
+      List<ResolvedReferenceTypeDeclaration> next = new ArrayList<>();
+      for (ResolvedReferenceTypeDeclaration t : level) {
+        if (!(own && skipOwn)) {
+          for (ResolvedMethodDeclaration m : declaredMethods(t)) {
+            if (m.getName().equals(name) && accepts(m, arity)) {
+              try {
+                found.putIfAbsent(signature(m), m);
+              } catch (RuntimeException e) {
+                // a library method whose signature cannot be described is no candidate
+              }
+            }
+          }
+        }
+        for (ResolvedReferenceTypeDeclaration ancestor : ancestors(t)) {
+          if (seen.add(ancestor.getQualifiedName())) {
+            next.add(ancestor);
+          }
+        }
+      }
+      if (!found.isEmpty()) {
+        return new ArrayList<>(found.values());
+      }
+      level = next;
+      own = false;
+    }
+    return List.of();
+  }
+
+  private Set<ResolvedMethodDeclaration> declaredMethods(ResolvedReferenceTypeDeclaration type) {
+    try {
+      return type.getDeclaredMethods();
+    } catch (RuntimeException e) {
+      return Set.of();
+    }
+  }
+
+  private List<ResolvedReferenceTypeDeclaration> ancestors(ResolvedReferenceTypeDeclaration type) {
+    List<ResolvedReferenceTypeDeclaration> result = new ArrayList<>();
+    try {
+      for (ResolvedReferenceType ancestor : type.getAncestors(true)) {
+        ancestor.getTypeDeclaration().ifPresent(result::add);
+      }
+    } catch (RuntimeException e) {
+      // unresolvable supertypes end the search on this path
+    }
+    return result;
+  }
+
+  private boolean accepts(ResolvedMethodDeclaration m, int arity) {
+    int params = m.getNumberOfParams();
+    return params == arity || (m.hasVariadicParameter() && arity >= params - 1);
+  }
+
+  private Resolution pick(MethodCallExpr call, List<ResolvedMethodDeclaration> candidates) {
+    candidates.sort((a, b) -> signature(a).compareTo(signature(b)));
+    if (candidates.size() == 1) {
+      return guessed(candidates.get(0), GraphModel.CallEdge.CONFIDENCE_HIGH);
+    }
+    List<String> evident = new ArrayList<>();
+    for (Expression arg : call.getArguments()) {
+      evident.add(evidentType(arg, call));
+    }
+    ResolvedMethodDeclaration best = null;
+    int bestScore = -1;
+    boolean tie = false;
+    for (ResolvedMethodDeclaration m : candidates) {
+      int score = score(m, evident);
+      if (score > bestScore) {
+        best = m;
+        bestScore = score;
+        tie = false;
+      } else if (score == bestScore) {
+        tie = true;
+      }
+    }
+    if (tie) {
+      return Resolution.failed("call.ambiguous", best.declaringType().getQualifiedName(),
+          "Ambiguous call " + call + " among " + candidates.size() + " overloads", List.of());
+    }
+    return guessed(best, GraphModel.CallEdge.CONFIDENCE_LOW);
+  }
+
+  /**
+   * Two points per argument whose evident type matches the parameter's, and one for a method that
+   * takes exactly as many arguments as given, so fixed arity beats varargs.
+   */
+  private int score(ResolvedMethodDeclaration m, List<String> evident) {
+    int params = m.getNumberOfParams();
+    int score = params == evident.size() && !m.hasVariadicParameter() ? 1 : 0;
+    for (int i = 0; i < evident.size() && params > 0; i++) {
+      if (evident.get(i) == null) {
+        continue;
+      }
+      int p = Math.min(i, params - 1);
+      try {
+        String type = simpleName(m.getParam(p).getType().describe());
+        if (p == params - 1 && m.hasVariadicParameter() && type.endsWith("[]")) {
+          type = type.substring(0, type.length() - 2);
+        }
+        if (type.equals(evident.get(i))) {
+          score += 2;
+        }
+      } catch (RuntimeException e) {
+        // parameter type not resolvable: no points
+      }
+    }
+    return score;
+  }
+
+  private Resolution guessed(ResolvedMethodDeclaration m, String confidence) {
+    return Resolution.guessed(m.declaringType().getQualifiedName(), m.getName(), signature(m),
+        VisibilityUtil.visibilityOf(m), confidence);
+  }
+
+  /**
+   * The resolved signature, as the symbol solver's edges use; for source methods whose parameter
+   * types cannot be resolved, the signature as declared, as their method nodes use.
+   */
+  private String signature(ResolvedMethodDeclaration m) {
+    try {
+      return SignatureUtil.signatureOf(m);
+    } catch (RuntimeException e) {
+      Optional<Node> ast = m.toAst();
+      if (ast.isPresent() && ast.get() instanceof MethodDeclaration) {
+        return SignatureUtil.signatureOf((MethodDeclaration) ast.get());
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * The types around {@code node}, innermost first: named types, local classes and anonymous
+   * classes (as the type they extend).
+   */
+  private List<ResolvedReferenceTypeDeclaration> enclosingTypes(Node node) {
+    List<ResolvedReferenceTypeDeclaration> types = new ArrayList<>();
+    for (Node n = node.getParentNode().orElse(null); n != null; n = n.getParentNode().orElse(null)) {
+      try {
+        if (n instanceof TypeDeclaration) {
+          types.add(((TypeDeclaration<?>) n).resolve());
+        } else if (n instanceof ObjectCreationExpr && ((ObjectCreationExpr) n).getAnonymousClassBody().isPresent()) {
+          ResolvedReferenceTypeDeclaration type = resolveType(((ObjectCreationExpr) n).getType(), n);
+          if (type != null) {
+            types.add(type);
+          }
+        }
+      } catch (RuntimeException e) {
+        // skip types that cannot be resolved
+      }
+    }
+    return types;
+  }
+
+  private ResolvedReferenceTypeDeclaration typeOf(Expression scope, MethodCallExpr call) {
+    if (scope instanceof EnclosedExpr) {
+      return typeOf(((EnclosedExpr) scope).getInner(), call);
+    }
+    if (scope instanceof ThisExpr) {
+      Optional<Name> typeName = ((ThisExpr) scope).getTypeName();
+      if (typeName.isPresent()) {
+        return resolveName(typeName.get().asString(), call);
+      }
+      List<ResolvedReferenceTypeDeclaration> enclosing = enclosingTypes(call);
+      return enclosing.isEmpty() ? null : enclosing.get(0);
+    }
+    if (scope instanceof SuperExpr) {
+      return ((SuperExpr) scope).getTypeName().map(n -> resolveName(n.asString(), call)).orElse(null);
+    }
+    if (scope instanceof NameExpr) {
+      String name = ((NameExpr) scope).getNameAsString();
+      Type declared = declaredType(name, call);
+      if (declared != null) {
+        return declared instanceof ClassOrInterfaceType ? resolveType((ClassOrInterfaceType) declared, call) : null;
+      }
+      // not a variable in sight; type names are capitalized by convention
+      return Character.isUpperCase(name.charAt(0)) ? resolveName(name, call) : null;
+    }
+    if (scope instanceof FieldAccessExpr) {
+      FieldAccessExpr access = (FieldAccessExpr) scope;
+      if (access.getScope() instanceof ThisExpr && ((ThisExpr) access.getScope()).getTypeName().isEmpty()) {
+        Type declared = fieldType(access.getNameAsString(), call);
+        return declared instanceof ClassOrInterfaceType ? resolveType((ClassOrInterfaceType) declared, call) : null;
+      }
+      return resolveName(access.toString(), call);
+    }
+    if (scope instanceof ObjectCreationExpr) {
+      return resolveType(((ObjectCreationExpr) scope).getType(), call);
+    }
+    if (scope instanceof CastExpr && ((CastExpr) scope).getType() instanceof ClassOrInterfaceType) {
+      return resolveType((ClassOrInterfaceType) ((CastExpr) scope).getType(), call);
+    }
+    return null;
+  }
+
+  /**
+   * Simple name of the type of {@code arg} when it is evident from the syntax, e.g. {@code String}
+   * for a string literal; {@code null} otherwise.
+   */
+  private String evidentType(Expression arg, MethodCallExpr call) {
+    if (arg.isStringLiteralExpr() || arg.isTextBlockLiteralExpr()) {
+      return "String";
+    }
+    if (arg.isIntegerLiteralExpr()) {
+      return "int";
+    }
+    if (arg.isLongLiteralExpr()) {
+      return "long";
+    }
+    if (arg.isBooleanLiteralExpr()) {
+      return "boolean";
+    }
+    if (arg instanceof CharLiteralExpr) {
+      return "char";
+    }
+    if (arg instanceof DoubleLiteralExpr) {
+      String value = ((DoubleLiteralExpr) arg).getValue();
+      return value.endsWith("f") || value.endsWith("F") ? "float" : "double";
+    }
+    if (arg instanceof EnclosedExpr) {
+      return evidentType(((EnclosedExpr) arg).getInner(), call);
+    }
+    Type type = null;
+    if (arg instanceof ObjectCreationExpr) {
+      type = ((ObjectCreationExpr) arg).getType();
+    } else if (arg instanceof CastExpr) {
+      type = ((CastExpr) arg).getType();
+    } else if (arg instanceof NameExpr) {
+      type = declaredType(((NameExpr) arg).getNameAsString(), call);
+    }
+    if (type instanceof ClassOrInterfaceType) {
+      return ((ClassOrInterfaceType) type).getNameAsString();
+    }
+    return type != null && type.isPrimitiveType() ? type.asString() : null;
+  }
+
+  /**
+   * Declared type of the variable {@code name} visible at {@code node}: the innermost parameter,
+   * local, resource, field or enum constant of that name. {@link UnknownType} when it is declared
+   * without a usable type (e.g. an implicitly typed lambda parameter), {@code null} when no such
+   * variable is in sight.
+   */
+  private Type declaredType(String name, Node node) {
+    Node child = node;
+    for (Node n = node.getParentNode().orElse(null); n != null; child = n, n = n.getParentNode().orElse(null)) {
+      Type type = declaredIn(n, child, name);
+      if (type != null) {
+        return type;
+      }
+    }
+    return null;
+  }
+
+  private Type declaredIn(Node scope, Node child, String name) {
+    if (scope instanceof CallableDeclaration) {
+      return parameterType(((CallableDeclaration<?>) scope).getParameters(), name);
+    }
+    if (scope instanceof LambdaExpr) {
+      return parameterType(((LambdaExpr) scope).getParameters(), name);
+    }
+    if (scope instanceof CatchClause) {
+      Parameter p = ((CatchClause) scope).getParameter();
+      return p.getNameAsString().equals(name) ? p.getType() : null;
+    }
+    if (scope instanceof ForEachStmt) {
+      return variableType(((ForEachStmt) scope).getVariable().getVariables(), name);
+    }
+    if (scope instanceof ForStmt) {
+      return localType(((ForStmt) scope).getInitialization(), name);
+    }
+    if (scope instanceof TryStmt) {
+      return localType(((TryStmt) scope).getResources(), name);
+    }
+    if (scope instanceof BlockStmt) {
+      return statementsType(((BlockStmt) scope).getStatements(), child, name);
+    }
+    if (scope instanceof SwitchEntry) {
+      return statementsType(((SwitchEntry) scope).getStatements(), child, name);
+    }
+    if (scope instanceof TypeDeclaration) {
+      return memberType((TypeDeclaration<?>) scope, name);
+    }
+    if (scope instanceof ObjectCreationExpr) {
+      Optional<NodeList<BodyDeclaration<?>>> body = ((ObjectCreationExpr) scope).getAnonymousClassBody();
+      return body.map(members -> fieldType(members, name)).orElse(null);
+    }
+    return null;
+  }
+
+  private Type parameterType(NodeList<Parameter> parameters, String name) {
+    for (Parameter p : parameters) {
+      if (p.getNameAsString().equals(name)) {
+        return p.isVarArgs() ? new UnknownType() : p.getType();
+      }
+    }
+    return null;
+  }
+
+  private Type variableType(NodeList<VariableDeclarator> variables, String name) {
+    for (VariableDeclarator v : variables) {
+      if (v.getNameAsString().equals(name)) {
+        return v.getType();
+      }
+    }
+    return null;
+  }
+
+  private Type localType(NodeList<Expression> expressions, String name) {
+    for (Expression e : expressions) {
+      if (e instanceof VariableDeclarationExpr) {
+        Type type = variableType(((VariableDeclarationExpr) e).getVariables(), name);
+        if (type != null) {
+          return type;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Locals declared by the statements before {@code child}, the latest first.
+   */
+  private Type statementsType(NodeList<Statement> statements, Node child, String name) {
+    int end = child instanceof Statement ? statements.indexOf(child) : statements.size();
+    for (int i = (end < 0 ? statements.size() : end) - 1; i >= 0; i--) {
+      Statement s = statements.get(i);
+      if (s instanceof ExpressionStmt && ((ExpressionStmt) s).getExpression() instanceof VariableDeclarationExpr) {
+        Type type = variableType(((VariableDeclarationExpr) ((ExpressionStmt) s).getExpression()).getVariables(), name);
+        if (type != null) {
+          return type;
+        }
+      }
+    }
+    return null;
+  }
+
+  private Type memberType(TypeDeclaration<?> type, String name) {
+    Type field = fieldType(type.getMembers(), name);
+    if (field != null) {
+      return field;
+    }
+    if (type instanceof RecordDeclaration) {
+      return parameterType(((RecordDeclaration) type).getParameters(), name);
+    }
+    if (type instanceof EnumDeclaration) {
+      for (EnumConstantDeclaration constant : ((EnumDeclaration) type).getEntries()) {
+        if (constant.getNameAsString().equals(name)) {
+          return new ClassOrInterfaceType(null, type.getNameAsString());
+        }
+      }
+    }
+    return null;
+  }
+
+  private Type fieldType(NodeList<BodyDeclaration<?>> members, String name) {
+    for (BodyDeclaration<?> member : members) {
+      if (member instanceof FieldDeclaration) {
+        Type type = variableType(((FieldDeclaration) member).getVariables(), name);
+        if (type != null) {
+          return type;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Type of the field {@code name} of the innermost enclosing type that declares one.
+   */
+  private Type fieldType(String name, Node node) {
+    for (Node n = node.getParentNode().orElse(null); n != null; n = n.getParentNode().orElse(null)) {
+      if (n instanceof TypeDeclaration) {
+        Type type = memberType((TypeDeclaration<?>) n, name);
+        if (type != null) {
+          return type;
+        }
+      }
+    }
+    return null;
+  }
+
+  private ResolvedReferenceTypeDeclaration resolveType(ClassOrInterfaceType type, Node context) {
+    return resolveName(type.getNameWithScope(), context);
+  }
+
+  /**
+   * Finds the type {@code name} refers to at {@code context}, trying member types of the
+   * enclosing types, single-type imports, the package, on-demand imports, {@code java.lang} and
+   * finally the name as a qualified name.
+   */
+  private ResolvedReferenceTypeDeclaration resolveName(String name, Node context) {
+    int dot = name.indexOf('.');
+    String first = dot < 0 ? name : name.substring(0, dot);
+    String rest = dot < 0 ? "" : name.substring(dot);
+    Set<String> candidates = new LinkedHashSet<>();
+    for (Node n = context; n != null; n = n.getParentNode().orElse(null)) {
+      if (n instanceof TypeDeclaration) {
+        TypeDeclaration<?> td = (TypeDeclaration<?>) n;
+        Optional<String> fqn = td.getFullyQualifiedName();
+        if (fqn.isPresent()) {
+          if (td.getNameAsString().equals(first)) {
+            candidates.add(fqn.get() + rest);
+          }
+          candidates.add(fqn.get() + "." + name);
+        }
+      }
+    }
+    Optional<CompilationUnit> cu = context.findCompilationUnit();
+    if (cu.isPresent()) {
+      for (ImportDeclaration imp : cu.get().getImports()) {
+        if (!imp.isStatic() && !imp.isAsterisk() && imp.getName().getIdentifier().equals(first)) {
+          candidates.add(imp.getNameAsString() + rest);
+        }
+      }
+      String pkg = cu.get().getPackageDeclaration().map(pd -> pd.getNameAsString()).orElse("");
+      candidates.add(pkg.isEmpty() ? name : pkg + "." + name);
+      for (ImportDeclaration imp : cu.get().getImports()) {
+        if (!imp.isStatic() && imp.isAsterisk()) {
+          candidates.add(imp.getNameAsString() + "." + name);
+        }
+      }
+    }
+    candidates.add("java.lang." + name);
+    candidates.add(name);
+    for (String candidate : candidates) {
+      try {
+        SymbolReference<ResolvedReferenceTypeDeclaration> ref = solver.tryToSolveType(candidate);
+        if (ref.isSolved()) {
+          return ref.getCorrespondingDeclaration();
+        }
+      } catch (UnsolvedSymbolException e) {
+        // try the next candidate
+      }
+    }
+    return null;
+  }
+
+  private static String simpleName(String described) {
+    int generic = described.indexOf('<');
+    String raw = generic < 0 ? described : described.substring(0, generic)
+        + described.substring(described.lastIndexOf('>') + 1);
+    return raw.substring(raw.lastIndexOf('.') + 1);
+  }
+}
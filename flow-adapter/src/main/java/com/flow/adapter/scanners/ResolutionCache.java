@@ -0,0 +1,203 @@
+package com.flow.adapter.scanners;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, thread-safe memo of method call resolutions shared by all scan workers. Keys identify a
+ * call by what the symbol solver's outcome depends on (scope type, method name, argument types),
+ * so identical calls such as {@code repository.save(x)} resolve once per scan. Failures are cached
+ * too, so calls into unresolvable third-party types fail fast after the first attempt.
+ *
+ * <p>The map is split into independently locked LRU segments to keep contention low.
+ */
+public class ResolutionCache {
+
+  public static final int DEFAULT_CAPACITY = 100_000;
+  private static final int SEGMENTS = 16;
+
+  private final Segment[] segments = new Segment[SEGMENTS];
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder negativeHits = new LongAdder();
+  private final LongAdder resolvedCalls = new LongAdder();
+  private final LongAdder unresolvedCalls = new LongAdder();
+  private final LongAdder overBudgetCalls = new LongAdder();
+  private final LongAdder guessedCalls = new LongAdder();
+
+  public ResolutionCache() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public ResolutionCache(int capacity) {
+    int perSegment = Math.max(1, capacity / SEGMENTS);
+    for (int i = 0; i < SEGMENTS; i++) {
+      segments[i] = new Segment(perSegment);
+    }
+  }
+
+  public Resolution get(String key) {
+    Resolution r = segmentFor(key).get(key);
+    if (r == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+      if (!r.isResolved()) {
+        negativeHits.increment();
+      }
+    }
+    return r;
+  }
+
+  public void put(String key, Resolution resolution) {
+    segmentFor(key).put(key, resolution);
+  }
+
+  /**
+   * Counts the outcome of one analyzed call site, whether it came from the memo or the solver.
+   */
+  public void recordOutcome(boolean resolved) {
+    (resolved ? resolvedCalls : unresolvedCalls).increment();
+  }
+
+  /**
+   * Counts a call whose resolution ran out of time, in the call's or the file's budget.
+   */
+  public void recordOverBudget() {
+    overBudgetCalls.increment();
+  }
+
+  /**
+   * Counts a call resolved by name and arity rather than by the symbol solver.
+   */
+  public void recordGuessed() {
+    guessedCalls.increment();
+  }
+
+  public long getOverBudgetCalls() {
+    return overBudgetCalls.sum();
+  }
+
+  public long getGuessedCalls() {
+    return guessedCalls.sum();
+  }
+
+  public long getResolvedCalls() {
+    return resolvedCalls.sum();
+  }
+
+  public long getUnresolvedCalls() {
+    return unresolvedCalls.sum();
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  public long getNegativeHits() {
+    return negativeHits.sum();
+  }
+
+  public int size() {
+    int size = 0;
+    for (Segment s : segments) {
+      size += s.size();
+    }
+    return size;
+  }
+
+  private Segment segmentFor(String key) {
+    int h = key.hashCode();
+    return segments[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+  }
+
+  /**
+   * Outcome of resolving a call: either the target method, or the failure that was raised.
+   * {@code confidence} is null when the symbol solver found the target (see
+   * {@code GraphModel.CallEdge#confidence}). A failure has a kind (its diagnostics category) and
+   * a target, the type or name it is about. {@code queriedTypes} lists the project type lookups
+   * the original resolution performed, so a cache hit can replay them for incremental dependency
+   * tracking.
+   */
+  public static final class Resolution {
+
+    final String className;
+    final String methodName;
+    final String signature;
+    final String visibility;
+    final String confidence;
+    final String failure;
+    final String failureKind;
+    final String failureTarget;
+    final List<String> queriedTypes;
+
+    private Resolution(String className, String methodName, String signature, String visibility,
+                       String confidence, String failure, String failureKind, String failureTarget,
+                       List<String> queriedTypes) {
+      this.className = className;
+      this.methodName = methodName;
+      this.signature = signature;
+      this.visibility = visibility;
+      this.confidence = confidence;
+      this.failure = failure;
+      this.failureKind = failureKind;
+      this.failureTarget = failureTarget;
+      this.queriedTypes = queriedTypes;
+    }
+
+    static Resolution resolved(String className, String methodName, String signature, String visibility,
+                               List<String> queriedTypes) {
+      return new Resolution(className, methodName, signature, visibility, null, null, null, null, queriedTypes);
+    }
+
+    static Resolution guessed(String className, String methodName, String signature, String visibility,
+                              String confidence) {
+      return new Resolution(className, methodName, signature, visibility, confidence, null, null, null, List.of());
+    }
+
+    static Resolution failed(String kind, String target, String failure, List<String> queriedTypes) {
+      return new Resolution(null, null, null, null, null, failure, kind, target, queriedTypes);
+    }
+
+    Resolution withQueriedTypes(List<String> queriedTypes) {
+      return new Resolution(className, methodName, signature, visibility, confidence, failure, failureKind,
+          failureTarget, queriedTypes);
+    }
+
+    boolean isResolved() {
+      return failure == null;
+    }
+  }
+
+  private static final class Segment {
+
+    private final Map<String, Resolution> map;
+
+    Segment(int capacity) {
+      this.map = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Resolution> eldest) {
+          return size() > capacity;
+        }
+      };
+    }
+
+    synchronized Resolution get(String key) {
+      return map.get(key);
+    }
+
+    synchronized void put(String key, Resolution value) {
+      map.put(key, value);
+    }
+
+    synchronized int size() {
+      return map.size();
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package com.flow.adapter.scanners;
+
+import java.util.Locale;
+
+/**
+ * How method calls are resolved into call edges.
+ */
+public enum ResolveMode {
+
+  /**
+   * The symbol solver, within the scan's time budgets; calls that exceed them fall back to
+   * {@link #FAST}.
+   */
+  FULL,
+
+  /**
+   * Name and argument count against the methods declared by the receiver's type, with the
+   * receiver's type taken from the syntax; edges carry a {@code confidence}.
+   */
+  FAST,
+
+  /**
+   * No call resolution: methods, classes and plugin output only.
+   */
+  NONE;
+
+  /**
+   * Parses {@code full}, {@code fast} or {@code none}, in any case.
+   */
+  public static ResolveMode parse(String value) {
+    try {
+      return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unknown resolve mode '" + value + "', expected full, fast or none");
+    }
+  }
+}
@@ -0,0 +1,312 @@
+package com.flow.adapter.scanners;
+
+import com.flow.adapter.diagnostics.Diagnostics;
+import com.flow.adapter.profile.StageStats;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the per-file stages of a scan as two pipelines over bounded queues. Parsing: one thread
+ * walks the tree, reader threads load file contents, and parse workers parse them, so walking,
+ * disk or network reads and parsing overlap, and a slow stage blocks the ones before it instead of
+ * letting the whole tree pile up in memory. Analysis: once every file is parsed (call resolution
+ * looks project types up in all of them), workers analyze files and the calling thread merges
+ * each one as soon as it and every file before it are done.
+ *
+ * <p>Readers only block on I/O, so there may be more of them than cores. Results keep walk order
+ * whatever the thread counts. Stage counters go to the {@link StageStats} that {@code stats}
+ * returns for the stage names {@code walk}, {@code read}, {@code parse}, {@code analyze} and
+ * {@code merge}.
+ */
+final class ScanPipeline {
+
+  private static final Logger logger = LoggerFactory.getLogger(ScanPipeline.class);
+  private static final Item END = new Item(-1, null);
+  // how often the merging thread checks for failed workers while it waits
+  private static final long POLL_MILLIS = 50;
+
+  private final Path srcRoot;
+  private final int readers;
+  private final int workers;
+  private final int capacity;
+  private final Function<String, StageStats> stats;
+  private final Diagnostics diagnostics;
+  private final ThreadFactory threads;
+
+  ScanPipeline(Path srcRoot, int readers, int workers, Function<String, StageStats> stats,
+               Diagnostics diagnostics, ThreadFactory threads) {
+    this.srcRoot = srcRoot;
+    this.readers = Math.max(1, readers);
+    this.workers = Math.max(1, workers);
+    this.capacity = 2 * (this.readers + this.workers);
+    this.stats = stats;
+    this.diagnostics = diagnostics;
+    this.threads = threads;
+  }
+
+  /**
+   * Files to scan, passed to the sink in order.
+   */
+  @FunctionalInterface
+  interface Source {
+
+    void forEach(FileSink sink) throws IOException, InterruptedException;
+  }
+
+  @FunctionalInterface
+  interface FileSink {
+
+    void accept(Path file) throws InterruptedException;
+  }
+
+  /**
+   * Parses one file; returns null for a file that is left out.
+   */
+  @FunctionalInterface
+  interface Parser<R> {
+
+    R parse(Path file, byte[] bytes);
+  }
+
+  /**
+   * Reads and parses every file of {@code source} and returns the non-null results in source
+   * order. Files that cannot be read are reported and left out.
+   */
+  <R> List<R> parse(Source source, Parser<R> parser) throws IOException {
+    StageStats walk = stats.apply("walk");
+    StageStats read = stats.apply("read");
+    StageStats parse = stats.apply("parse");
+    BlockingQueue<Item> paths = new ArrayBlockingQueue<>(capacity);
+    BlockingQueue<Item> contents = new ArrayBlockingQueue<>(capacity);
+    Map<Integer, R> results = new ConcurrentHashMap<>();
+    AtomicInteger count = new AtomicInteger();
+    AtomicInteger readersLeft = new AtomicInteger(readers);
+
+    ExecutorService pool = Executors.newFixedThreadPool(1 + readers + workers, threads);
+    CompletionService<Void> stages = new ExecutorCompletionService<>(pool);
+    try {
+      stages.submit(() -> run(walk, () -> {
+        // busy time is the time spent finding each file, not handing it over
+        long[] last = {System.nanoTime()};
+        source.forEach(file -> {
+          walk.item(System.nanoTime() - last[0]);
+          put(paths, new Item(count.getAndIncrement(), file), walk);
+          last[0] = System.nanoTime();
+        });
+        for (int i = 0; i < readers; i++) {
+          put(paths, END, walk);
+        }
+      }));
+      for (int r = 0; r < readers; r++) {
+        stages.submit(() -> run(read, () -> {
+          for (Item item = take(paths, read); item != END; item = take(paths, read)) {
+            long start = System.nanoTime();
+            try {
+              item.bytes = Files.readAllBytes(item.file);
+            } catch (IOException e) {
+              Path file = item.file;
+              diagnostics.report("parse.failed", e.getClass().getSimpleName(), () -> file + ": " + e.getMessage());
+              if (diagnostics.isVerbose()) {
+                logger.error("Parse fail: {} -> {}", file, e.getMessage(), e);
+              }
+            }
+            read.item(System.nanoTime() - start);
+            if (item.bytes != null) {
+              put(contents, item, read);
+            }
+          }
+          if (readersLeft.decrementAndGet() == 0) {
+            for (int i = 0; i < workers; i++) {
+              put(contents, END, read);
+            }
+          }
+        }));
+      }
+      for (int w = 0; w < workers; w++) {
+        stages.submit(() -> run(parse, () -> {
+          for (Item item = take(contents, parse); item != END; item = take(contents, parse)) {
+            long start = System.nanoTime();
+            R result = parser.parse(item.file, item.bytes);
+            item.bytes = null;
+            if (result != null) {
+              results.put(item.index, result);
+            }
+            parse.item(System.nanoTime() - start);
+          }
+        }));
+      }
+      await(stages, 1 + readers + workers);
+    } finally {
+      pool.shutdownNow();
+    }
+
+    List<R> ordered = new ArrayList<>(results.size());
+    for (int i = 0; i < count.get(); i++) {
+      R result = results.get(i);
+      if (result != null) {
+        ordered.add(result);
+      }
+    }
+    return ordered;
+  }
+
+  /**
+   * Runs {@code analyzer} on every item on the workers and {@code sink} on the calling thread, in
+   * the order of {@code items}, as soon as an item and all items before it have been analyzed.
+   */
+  <T> void analyze(List<T> items, Consumer<T> analyzer, Consumer<T> sink) throws IOException {
+    if (items.isEmpty()) {
+      return;
+    }
+    StageStats analyze = stats.apply("analyze");
+    StageStats merge = stats.apply("merge");
+    BlockingQueue<Item> done = new ArrayBlockingQueue<>(capacity);
+    AtomicInteger next = new AtomicInteger();
+    int tasks = Math.min(workers, items.size());
+
+    ExecutorService pool = Executors.newFixedThreadPool(tasks, threads);
+    CompletionService<Void> stages = new ExecutorCompletionService<>(pool);
+    try {
+      for (int w = 0; w < tasks; w++) {
+        stages.submit(() -> run(analyze, () -> {
+          for (int i = next.getAndIncrement(); i < items.size(); i = next.getAndIncrement()) {
+            long start = System.nanoTime();
+            analyzer.accept(items.get(i));
+            analyze.item(System.nanoTime() - start);
+            put(done, new Item(i, null), analyze);
+          }
+        }));
+      }
+
+      long started = System.nanoTime();
+      BitSet ready = new BitSet(items.size());
+      int merged = 0;
+      int finished = 0;
+      while (merged < items.size()) {
+        Item item = done.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (item == null) {
+          // a worker that died would leave its item missing forever
+          for (Future<Void> f = stages.poll(); f != null; f = stages.poll()) {
+            get(f);
+            finished++;
+          }
+          continue;
+        }
+        merge.queueDepth(Math.min(capacity, done.size() + 1), capacity);
+        ready.set(item.index);
+        for (; merged < items.size() && ready.get(merged); merged++) {
+          long start = System.nanoTime();
+          sink.accept(items.get(merged));
+          merge.item(System.nanoTime() - start);
+        }
+      }
+      merge.worker(System.nanoTime() - started);
+      await(stages, tasks - finished);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while scanning " + srcRoot);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private static Void run(StageStats stage, Body body) throws Exception {
+    long start = System.nanoTime();
+    try {
+      body.run();
+    } finally {
+      stage.worker(System.nanoTime() - start);
+    }
+    return null;
+  }
+
+  private void put(BlockingQueue<Item> queue, Item item, StageStats producer) throws InterruptedException {
+    if (!queue.offer(item)) {
+      long start = System.nanoTime();
+      queue.put(item);
+      producer.blocked(System.nanoTime() - start);
+    }
+  }
+
+  private Item take(BlockingQueue<Item> queue, StageStats consumer) throws InterruptedException {
+    Item item = queue.take();
+    if (item != END) {
+      consumer.queueDepth(Math.min(capacity, queue.size() + 1), capacity);
+    }
+    return item;
+  }
+
+  /**
+   * Waits for {@code tasks} stage tasks; the first failure is thrown and, once the caller shuts the
+   * pool down, interrupts the others.
+   */
+  private void await(CompletionService<Void> stages, int tasks) throws IOException {
+    try {
+      for (int i = 0; i < tasks; i++) {
+        get(stages.take());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while scanning " + srcRoot);
+    }
+  }
+
+  private void get(Future<Void> future) throws IOException, InterruptedException {
+    try {
+      future.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) cause).getCause();
+      }
+      throw new IOException("Scan failed for " + srcRoot, cause);
+    }
+  }
+
+  @FunctionalInterface
+  private interface Body {
+
+    void run() throws Exception;
+  }
+
+  /**
+   * A file on its way through the stages, numbered in source order.
+   */
+  private static final class Item {
+
+    final int index;
+    final Path file;
+    byte[] bytes;
+
+    Item(int index, Path file) {
+      this.index = index;
+      this.file = file;
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package com.flow.adapter.scanners;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.javaparsermodel.JavaParserFacade;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolves project types that were not parsed in this scan from a map of every type declared in
+ * the tree to the file declaring it, parsing only that file. Unlike {@code JavaParserTypeSolver},
+ * a name that is not declared anywhere fails with a hash lookup instead of parsing every file of
+ * the package it might belong to, which dominates incremental rescans that parse only a few files.
+ *
+ * <p>Not thread-safe: each scan worker owns an instance wrapping the shared map.
+ */
+public class SourceFileTypeSolver implements TypeSolver {
+
+  private static final Logger logger = LoggerFactory.getLogger(SourceFileTypeSolver.class);
+
+  private final Map<String, Path> declaringFiles;
+  private final Supplier<JavaParser> parser;
+  private final Map<Path, Optional<CompilationUnit>> parsed = new HashMap<>();
+  private TypeSolver parent;
+
+  /**
+   * @param declaringFiles fully qualified type name (nested types included) to declaring file
+   * @param parser         parser for the calling worker; units it parses carry their storage path
+   */
+  public SourceFileTypeSolver(Map<String, Path> declaringFiles, Supplier<JavaParser> parser) {
+    this.declaringFiles = declaringFiles;
+    this.parser = parser;
+  }
+
+  @Override
+  public TypeSolver getParent() {
+    return parent;
+  }
+
+  @Override
+  public void setParent(TypeSolver parent) {
+    this.parent = parent;
+  }
+
+  @Override
+  public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+    Path file = declaringFiles.get(name);
+    if (file == null) {
+      return SymbolReference.unsolved();
+    }
+    Optional<CompilationUnit> cu = parsed.computeIfAbsent(file, this::parse);
+    if (cu.isPresent()) {
+      for (TypeDeclaration<?> td : cu.get().findAll(TypeDeclaration.class)) {
+        if (td.getFullyQualifiedName().filter(name::equals).isPresent()) {
+          return SymbolReference.solved(JavaParserFacade.get(this).getTypeDeclaration(td));
+        }
+      }
+    }
+    return SymbolReference.unsolved();
+  }
+
+  private Optional<CompilationUnit> parse(Path file) {
+    try {
+      ParseResult<CompilationUnit> result = parser.get().parse(file);
+      return result.getResult();
+    } catch (IOException e) {
+      logger.warn("Could not read {} to resolve its types: {}", file, e.getMessage());
+      return Optional.empty();
+    }
+  }
+}
@@ -0,0 +1,229 @@
+package com.flow.adapter.scanners;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Which files under a source root are scanned, from include and exclude globs matched against
+ * paths relative to the root (with {@code /} separators). A file is scanned when it matches no
+ * exclude and, if there are includes, at least one include. Excludes also match directories, whose
+ * whole subtree is then skipped by the {@link SourceWalker} without being listed.
+ *
+ * <p>Globs follow {@link FileSystem#getPathMatcher}, with conveniences from {@code .gitignore}: a
+ * glob without {@code /} matches at any depth ({@code target} is also {@code **}{@code /target}), a
+ * leading {@code /} anchors it at the root, a trailing {@code /} restricts it to directories, and
+ * an exclude ending in {@code /**} prunes the directory it names.
+ *
+ * <p>The {@code .flowignore} file at the root is read as a {@code .gitignore}: one glob per line,
+ * applied after the include and exclude globs, in order, with the last glob matching a path
+ * deciding whether it is ignored. A glob prefixed with {@code !} re-includes what an earlier one
+ * ignored. As in git, a file cannot be re-included once a directory above it is ignored, since
+ * that directory is not walked; {@code dir/**} ignores only the contents of {@code dir}, so a
+ * later {@code !dir/File.java} brings that file back. Blank lines and lines starting with
+ * {@code #} are skipped. Immutable and thread-safe.
+ */
+public final class SourceFilter {
+
+  public static final String IGNORE_FILE = ".flowignore";
+
+  private static final SourceFilter ALL = new SourceFilter(List.of(), List.of(), List.of());
+
+  private final List<String> includes;
+  private final List<String> excludes;
+  private final List<String> ignored;
+  private final List<PathMatcher> includeFiles = new ArrayList<>();
+  private final List<PathMatcher> excludeFiles = new ArrayList<>();
+  private final List<PathMatcher> excludeDirs = new ArrayList<>();
+  // the .flowignore globs in file order; the last one matching a path decides
+  private final List<Rule> rules = new ArrayList<>();
+
+  private SourceFilter(List<String> includes, List<String> excludes, List<String> ignored) {
+    this.includes = List.copyOf(includes);
+    this.excludes = List.copyOf(excludes);
+    this.ignored = List.copyOf(ignored);
+    FileSystem fs = FileSystems.getDefault();
+    for (String glob : this.includes) {
+      Glob g = Glob.of(glob);
+      if (!g.directoryOnly) {
+        g.compile(fs, "", includeFiles);
+      }
+    }
+    for (String glob : this.excludes) {
+      Glob g = Glob.of(glob);
+      if (!g.directoryOnly) {
+        g.compile(fs, "", excludeFiles);
+      }
+      g.compile(fs, "", excludeDirs);
+      if (g.pattern.endsWith("/**")) {
+        g.compile(fs, "/**", excludeDirs);
+      }
+    }
+    for (int i = 0; i < this.ignored.size(); i++) {
+      boolean negatedLater = this.ignored.subList(i + 1, this.ignored.size()).stream()
+          .anyMatch(glob -> glob.startsWith("!"));
+      rules.add(Rule.of(fs, this.ignored.get(i), negatedLater));
+    }
+  }
+
+  /**
+   * Scans every file.
+   */
+  public static SourceFilter all() {
+    return ALL;
+  }
+
+  /**
+   * Compiles {@code includes} and {@code excludes}; an invalid glob throws
+   * {@link java.util.regex.PatternSyntaxException}.
+   */
+  public static SourceFilter of(List<String> includes, List<String> excludes) {
+    return includes.isEmpty() && excludes.isEmpty() ? ALL : new SourceFilter(includes, excludes, List.of());
+  }
+
+  /**
+   * This filter plus the globs of the {@code .flowignore} file in {@code root}, if there is one.
+   */
+  public SourceFilter withIgnoreFile(Path root) throws IOException {
+    Path file = root.resolve(IGNORE_FILE);
+    if (!Files.isRegularFile(file)) {
+      return this;
+    }
+    List<String> globs = new ArrayList<>(ignored);
+    for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+      String glob = line.strip();
+      if (!glob.isEmpty() && !glob.startsWith("#")) {
+        globs.add(glob);
+      }
+    }
+    return new SourceFilter(includes, excludes, globs);
+  }
+
+  public boolean isEmpty() {
+    return includes.isEmpty() && excludes.isEmpty() && ignored.isEmpty();
+  }
+
+  public List<String> getIncludes() {
+    return includes;
+  }
+
+  public List<String> getExcludes() {
+    return excludes;
+  }
+
+  /**
+   * Whether the subtree at {@code relative} (a directory, relative to the root) is left out.
+   */
+  public boolean skipsDirectory(Path relative) {
+    return matchesAny(excludeDirs, relative) || isIgnored(relative, true);
+  }
+
+  /**
+   * Whether the file at {@code relative} (relative to the root) is scanned.
+   */
+  public boolean accepts(Path relative) {
+    if (matchesAny(excludeFiles, relative)) {
+      return false;
+    }
+    if (!includeFiles.isEmpty() && !matchesAny(includeFiles, relative)) {
+      return false;
+    }
+    return !isIgnored(relative, false);
+  }
+
+  private boolean isIgnored(Path relative, boolean directory) {
+    for (int i = rules.size() - 1; i >= 0; i--) {
+      Rule rule = rules.get(i);
+      if (matchesAny(directory ? rule.dirs : rule.files, relative)) {
+        return !rule.negated;
+      }
+    }
+    return false;
+  }
+
+  private static boolean matchesAny(List<PathMatcher> matchers, Path path) {
+    for (PathMatcher m : matchers) {
+      if (m.matches(path)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * One {@code .flowignore} glob, compiled for files and for directories.
+   */
+  private static final class Rule {
+
+    final boolean negated;
+    final List<PathMatcher> files = new ArrayList<>();
+    final List<PathMatcher> dirs = new ArrayList<>();
+
+    private Rule(boolean negated) {
+      this.negated = negated;
+    }
+
+    /**
+     * {@code negatedLater} says whether a {@code !} glob follows, which could re-include part of
+     * the contents of a {@code dir/**} glob, so the directory itself must still be walked.
+     */
+    static Rule of(FileSystem fs, String line, boolean negatedLater) {
+      Rule rule = new Rule(line.startsWith("!"));
+      Glob g = Glob.of(rule.negated ? line.substring(1).strip() : line);
+      if (!g.directoryOnly) {
+        g.compile(fs, "", rule.files);
+      }
+      g.compile(fs, "", rule.dirs);
+      if (!rule.negated && !negatedLater && g.pattern.endsWith("/**")) {
+        g.compile(fs, "/**", rule.dirs);
+      }
+      return rule;
+    }
+  }
+
+  /**
+   * A glob with the {@code .gitignore} conveniences taken apart.
+   */
+  private static final class Glob {
+
+    final String pattern;
+    final boolean anchored;
+    final boolean directoryOnly;
+
+    private Glob(String pattern, boolean anchored, boolean directoryOnly) {
+      this.pattern = pattern;
+      this.anchored = anchored;
+      this.directoryOnly = directoryOnly;
+    }
+
+    static Glob of(String glob) {
+      String p = glob.replace('\\', '/');
+      boolean directoryOnly = p.endsWith("/") && p.length() > 1;
+      if (directoryOnly) {
+        p = p.substring(0, p.length() - 1);
+      }
+      boolean anchored = p.startsWith("/") || p.contains("/");
+      if (p.startsWith("/")) {
+        p = p.substring(1);
+      }
+      return new Glob(p, anchored, directoryOnly);
+    }
+
+    /**
+     * Adds matchers for the pattern without {@code suffix} (empty for the whole pattern).
+     */
+    void compile(FileSystem fs, String suffix, List<PathMatcher> into) {
+      String p = pattern.substring(0, pattern.length() - suffix.length());
+      into.add(fs.getPathMatcher("glob:" + p));
+      if (!anchored) {
+        into.add(fs.getPathMatcher("glob:**/" + p));
+      }
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package com.flow.adapter.scanners;
+
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.javaparsermodel.JavaParserFacade;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resolves project types with a hash lookup in the scan's {@link SourceTypeIndex}, so files parsed
+ * by the scanner are not read and parsed a second time by the solver. Names missing from the index
+ * (files that were not parsed in this scan) go to {@code fallback}.
+ *
+ * <p>Not thread-safe: each scan worker owns an instance wrapping the shared index.
+ */
+public class SourceIndexTypeSolver implements TypeSolver {
+
+  private final SourceTypeIndex index;
+  private final TypeSolver fallback;
+  private final Map<String, SymbolReference<ResolvedReferenceTypeDeclaration>> solved = new HashMap<>();
+  private TypeSolver parent;
+
+  public SourceIndexTypeSolver(SourceTypeIndex index, TypeSolver fallback) {
+    this.index = index;
+    this.fallback = fallback;
+  }
+
+  @Override
+  public TypeSolver getParent() {
+    return parent;
+  }
+
+  @Override
+  public void setParent(TypeSolver parent) {
+    this.parent = parent;
+    fallback.setParent(parent);
+  }
+
+  @Override
+  public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+    SymbolReference<ResolvedReferenceTypeDeclaration> ref = solved.get(name);
+    if (ref != null) {
+      return ref;
+    }
+    TypeDeclaration<?> declaration = index.get(name);
+    if (declaration == null) {
+      return fallback.tryToSolveType(name);
+    }
+    ref = SymbolReference.solved(JavaParserFacade.get(this).getTypeDeclaration(declaration));
+    solved.put(name, ref);
+    return ref;
+  }
+}
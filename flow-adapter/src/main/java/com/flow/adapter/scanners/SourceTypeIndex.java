@@ -0,0 +1,38 @@
+package com.flow.adapter.scanners;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable map from fully qualified type name (nested types included) to its declaration in the
+ * compilation units parsed by the current scan. Shared read-only by all scan workers.
+ */
+public class SourceTypeIndex {
+
+  private final Map<String, TypeDeclaration<?>> types;
+
+  private SourceTypeIndex(Map<String, TypeDeclaration<?>> types) {
+    this.types = types;
+  }
+
+  public static SourceTypeIndex of(Collection<CompilationUnit> units) {
+    Map<String, TypeDeclaration<?>> types = new HashMap<>();
+    for (CompilationUnit cu : units) {
+      for (TypeDeclaration<?> td : cu.findAll(TypeDeclaration.class)) {
+        td.getFullyQualifiedName().ifPresent(name -> types.putIfAbsent(name, td));
+      }
+    }
+    return new SourceTypeIndex(types);
+  }
+
+  public TypeDeclaration<?> get(String qualifiedName) {
+    return types.get(qualifiedName);
+  }
+
+  public int size() {
+    return types.size();
+  }
+}
@@ -0,0 +1,159 @@
+package com.flow.adapter.scanners;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Finds the Java files under a source root that a {@link SourceFilter} accepts, in the order
+ * {@link Files#walk} would report them, without following links. Excluded directories are not
+ * listed at all. With more than one thread, every directory is listed on a fork/join pool as soon
+ * as its parent has been, so wide trees are listed in parallel, while files are still handed out
+ * one by one in walk order as the listings they are in complete.
+ */
+public final class SourceWalker {
+
+  private final SourceFilter filter;
+  private final int threads;
+  private final AtomicInteger skippedDirectories = new AtomicInteger();
+  private final AtomicInteger skippedFiles = new AtomicInteger();
+
+  public SourceWalker(SourceFilter filter, int threads) {
+    this.filter = filter;
+    this.threads = Math.max(1, threads);
+  }
+
+  @FunctionalInterface
+  public interface Visitor {
+
+    void accept(Path file) throws InterruptedException;
+  }
+
+  /**
+   * Java files under {@code root}, in walk order.
+   */
+  public List<Path> list(Path root) throws IOException {
+    List<Path> files = new ArrayList<>();
+    try {
+      walk(root, files::add);
+    } catch (InterruptedException e) {
+      // the visitor never blocks
+      Thread.currentThread().interrupt();
+    }
+    return files;
+  }
+
+  /**
+   * Passes every Java file under {@code root} to {@code visitor}, in walk order.
+   */
+  public void walk(Path root, Visitor visitor) throws IOException, InterruptedException {
+    BasicFileAttributes attrs = Files.readAttributes(root, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+    if (!attrs.isDirectory()) {
+      if (isJava(root)) {
+        visitor.accept(root);
+      }
+      return;
+    }
+    ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+    try {
+      Listing top = new Listing(root, root, pool != null);
+      if (pool != null) {
+        pool.execute(top);
+      }
+      visit(top, visitor);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    } finally {
+      if (pool != null) {
+        pool.shutdownNow();
+      }
+    }
+  }
+
+  /**
+   * Directories left out by an exclude, counting each pruned subtree once.
+   */
+  public int getSkippedDirectories() {
+    return skippedDirectories.get();
+  }
+
+  /**
+   * Java files left out by the filter, in directories that were listed.
+   */
+  public int getSkippedFiles() {
+    return skippedFiles.get();
+  }
+
+  private void visit(Listing listing, Visitor visitor) throws InterruptedException {
+    for (Object entry : listing.parallel ? listing.join() : listing.invoke()) {
+      if (entry instanceof Listing) {
+        visit((Listing) entry, visitor);
+      } else {
+        visitor.accept((Path) entry);
+      }
+    }
+  }
+
+  private static boolean isJava(Path file) {
+    return file.toString().endsWith(".java");
+  }
+
+  /**
+   * The entries of one directory, in directory order: files to scan, and the listings of
+   * subdirectories, which are already running when listed in parallel.
+   */
+  private final class Listing extends RecursiveTask<List<Object>> {
+
+    private static final long serialVersionUID = 1L;
+
+    final Path root;
+    final Path dir;
+    final boolean parallel;
+
+    Listing(Path root, Path dir, boolean parallel) {
+      this.root = root;
+      this.dir = dir;
+      this.parallel = parallel;
+    }
+
+    @Override
+    protected List<Object> compute() {
+      List<Object> entries = new ArrayList<>();
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+        for (Path p : stream) {
+          BasicFileAttributes attrs = Files.readAttributes(p, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+          Path relative = root.relativize(p);
+          if (attrs.isDirectory()) {
+            if (filter.skipsDirectory(relative)) {
+              skippedDirectories.incrementAndGet();
+              continue;
+            }
+            Listing sub = new Listing(root, p, parallel);
+            if (parallel) {
+              sub.fork();
+            }
+            entries.add(sub);
+          } else if (isJava(p)) {
+            if (filter.accepts(relative)) {
+              entries.add(p);
+            } else {
+              skippedFiles.incrementAndGet();
+            }
+          }
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      return entries;
+    }
+  }
+}
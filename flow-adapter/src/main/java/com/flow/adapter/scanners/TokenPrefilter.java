@@ -0,0 +1,183 @@
+package com.flow.adapter.scanners;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Finds which groups of trigger tokens (one group per plugin) occur in a source file, in one pass
+ * over its raw bytes with an Aho-Corasick automaton, so plugins can skip files they would find
+ * nothing in without looking at their ASTs. Tokens are matched as UTF-8 bytes anywhere in the
+ * file, comments included, so a match only means the file may be relevant.
+ *
+ * <p>Results are bit masks: bit {@code g} is set when group {@code g} matched. Groups without
+ * tokens, and groups past the 64th, always match. Immutable and thread-safe.
+ */
+public class TokenPrefilter {
+
+  // files up to this size are read; larger ones are mapped
+  private static final long MAP_THRESHOLD = 64 * 1024;
+
+  private final int groups;
+  private final long always;
+  private final long wanted;
+  private final int[] next;
+  private final long[] output;
+
+  private TokenPrefilter(int groups, long always, int[] next, long[] output) {
+    this.groups = groups;
+    this.always = always;
+    this.next = next;
+    this.output = output;
+    long w = 0;
+    for (long o : output) {
+      w |= o;
+    }
+    this.wanted = w;
+  }
+
+  /**
+   * Builds the automaton for {@code groups}, where group {@code g} is the tokens of plugin
+   * {@code g}.
+   */
+  public static TokenPrefilter of(List<? extends Collection<String>> groups) {
+    List<int[]> trie = new ArrayList<>();
+    List<Long> out = new ArrayList<>();
+    trie.add(newState());
+    out.add(0L);
+    long always = 0;
+    for (int g = 0; g < groups.size(); g++) {
+      if (g >= Long.SIZE) {
+        break;
+      }
+      Collection<String> tokens = groups.get(g);
+      if (tokens.isEmpty() || tokens.contains("")) {
+        always |= 1L << g;
+        continue;
+      }
+      for (String token : tokens) {
+        int state = 0;
+        for (byte b : token.getBytes(StandardCharsets.UTF_8)) {
+          int c = b & 0xff;
+          if (trie.get(state)[c] < 0) {
+            trie.get(state)[c] = trie.size();
+            trie.add(newState());
+            out.add(0L);
+          }
+          state = trie.get(state)[c];
+        }
+        out.set(state, out.get(state) | (1L << g));
+      }
+    }
+    // breadth-first: complete the goto function with failure transitions into a dense table
+    int states = trie.size();
+    int[] next = new int[states * 256];
+    long[] output = new long[states];
+    int[] fail = new int[states];
+    Queue<Integer> queue = new ArrayDeque<>();
+    for (int c = 0; c < 256; c++) {
+      int s = trie.get(0)[c];
+      next[c] = s < 0 ? 0 : s;
+      if (s > 0) {
+        queue.add(s);
+      }
+    }
+    output[0] = out.get(0);
+    while (!queue.isEmpty()) {
+      int state = queue.poll();
+      output[state] = out.get(state) | output[fail[state]];
+      for (int c = 0; c < 256; c++) {
+        int s = trie.get(state)[c];
+        if (s < 0) {
+          next[state * 256 + c] = next[fail[state] * 256 + c];
+        } else {
+          next[state * 256 + c] = s;
+          fail[s] = next[fail[state] * 256 + c];
+          queue.add(s);
+        }
+      }
+    }
+    return new TokenPrefilter(groups.size(), always, next, output);
+  }
+
+  private static int[] newState() {
+    int[] state = new int[256];
+    Arrays.fill(state, -1);
+    return state;
+  }
+
+  /**
+   * Mask with every group set, for files that were not checked.
+   */
+  public static long all() {
+    return -1L;
+  }
+
+  /**
+   * Whether {@code group} is set in {@code mask}.
+   */
+  public static boolean matched(long mask, int group) {
+    return group >= Long.SIZE || (mask & (1L << group)) != 0;
+  }
+
+  public int groups() {
+    return groups;
+  }
+
+  public long match(byte[] bytes) {
+    long found = 0;
+    int state = 0;
+    for (byte b : bytes) {
+      state = next[state * 256 + (b & 0xff)];
+      if (output[state] != 0) {
+        found |= output[state];
+        if (found == wanted) {
+          break;
+        }
+      }
+    }
+    return found | always;
+  }
+
+  public long match(ByteBuffer bytes) {
+    long found = 0;
+    int state = 0;
+    for (int i = bytes.position(), end = bytes.limit(); i < end; i++) {
+      state = next[state * 256 + (bytes.get(i) & 0xff)];
+      if (output[state] != 0) {
+        found |= output[state];
+        if (found == wanted) {
+          break;
+        }
+      }
+    }
+    return found | always;
+  }
+
+  /**
+   * Matches the content of {@code file}, reading small files and mapping large ones.
+   */
+  public long match(Path file) throws IOException {
+    try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = ch.size();
+      if (size > MAP_THRESHOLD) {
+        return match(ch.map(FileChannel.MapMode.READ_ONLY, 0, size));
+      }
+      ByteBuffer buffer = ByteBuffer.allocate((int) size);
+      while (buffer.hasRemaining() && ch.read(buffer) >= 0) {
+        // read until full or end of file
+      }
+      buffer.flip();
+      return match(buffer);
+    }
+  }
+}
@@ -0,0 +1,15 @@
+package com.flow.adapter.scanners;
+
+import com.flow.adapter.Model.GraphModel;
+import com.github.javaparser.ast.CompilationUnit;
+import java.nio.file.Path;
+
+/**
+ * Per-file extension hook run right after the core analysis of a file, writing into that file's
+ * graph fragment. Used when results are cached per file, so plugin output is cached with it.
+ */
+@FunctionalInterface
+public interface UnitEnricher {
+
+  void enrich(GraphModel fragment, Path file, CompilationUnit cu) throws Exception;
+}
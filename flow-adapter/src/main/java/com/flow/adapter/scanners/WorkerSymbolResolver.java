@@ -0,0 +1,43 @@
+package com.flow.adapter.scanners;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.type.Type;
+import com.github.javaparser.resolution.SymbolResolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.types.ResolvedType;
+import java.util.function.Supplier;
+
+/**
+ * Symbol resolver attached to every compilation unit of a scan. It forwards to the symbol solver
+ * owned by the calling thread, so a unit parsed on one worker can be resolved on another without
+ * two threads ever sharing a solver and its caches.
+ */
+class WorkerSymbolResolver implements SymbolResolver {
+
+  private final Supplier<SymbolResolver> current;
+
+  WorkerSymbolResolver(Supplier<SymbolResolver> current) {
+    this.current = current;
+  }
+
+  @Override
+  public <T> T resolveDeclaration(Node node, Class<T> resultClass) {
+    return current.get().resolveDeclaration(node, resultClass);
+  }
+
+  @Override
+  public <T> T toResolvedType(Type javaparserType, Class<T> resultClass) {
+    return current.get().toResolvedType(javaparserType, resultClass);
+  }
+
+  @Override
+  public ResolvedType calculateType(Expression expression) {
+    return current.get().calculateType(expression);
+  }
+
+  @Override
+  public ResolvedReferenceTypeDeclaration toTypeDeclaration(Node node) {
+    return current.get().toTypeDeclaration(node);
+  }
+}
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
@@ -62,6 +63,10 @@ public class ConfigLoader {
     });
   }
 
+  public Map<String, String> getProperties() {
+    return Collections.unmodifiableMap(properties);
+  }
+
   public String resolvePlaceholders(String raw) {
     if (raw == null || raw.isEmpty()) {
       return raw;
@@ -0,0 +1,38 @@
+package com.flow.adapter.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+
+public class FileUtil {
+
+  private static final Set<PosixFilePermission> DEFAULT_PERMISSIONS = PosixFilePermissions.fromString("rw-r--r--");
+
+  /**
+   * Creates an empty temporary file next to {@code target}, to be written and then moved over it.
+   * {@link Files#createTempFile} makes files only the owner can read, which a move would carry
+   * over to {@code target}; on POSIX file systems the temporary file instead gets the permissions
+   * of the existing {@code target}, or {@code rw-r--r--} (less the umask) for a new one.
+   *
+   * @param target The file the temporary file will replace.
+   * @return The temporary file.
+   */
+  public static Path createTempSibling(Path target) throws IOException {
+    Path dir = target.toAbsolutePath().getParent();
+    String prefix = target.getFileName().toString();
+    if (!Files.getFileStore(dir).supportsFileAttributeView(PosixFileAttributeView.class)) {
+      return Files.createTempFile(dir, prefix, ".tmp");
+    }
+    FileAttribute<Set<PosixFilePermission>> permissions = PosixFilePermissions.asFileAttribute(DEFAULT_PERMISSIONS);
+    Path tmp = Files.createTempFile(dir, prefix, ".tmp", permissions);
+    if (Files.exists(target)) {
+      Files.setPosixFilePermissions(tmp, Files.getPosixFilePermissions(target));
+    }
+    return tmp;
+  }
+}
@@ -0,0 +1,157 @@
+package com.flow.adapter.watch;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Watches directory trees for file changes and reports them in debounced batches. Every directory
+ * under the roots is registered, including ones created later; a batch is returned once no new
+ * event has arrived for the debounce interval, so an editor's save burst is reported once.
+ *
+ * <p>Reported paths are absolute and normalized. Directory paths are always reported since a
+ * renamed or deleted directory produces no events for the files it contained.
+ */
+public class SourceWatcher implements Closeable {
+
+  private static final Logger logger = LoggerFactory.getLogger(SourceWatcher.class);
+
+  // upper bound on how long a continuous stream of events can delay a batch
+  private static final long MAX_BATCH_MILLIS = 2_000;
+
+  private final WatchService service;
+  private final Map<WatchKey, Path> keys = new HashMap<>();
+  private final Set<Path> directories = new LinkedHashSet<>();
+  private final Predicate<Path> filter;
+  private final long debounceMillis;
+
+  /**
+   * @param roots          directory trees to watch
+   * @param filter         which files are reported; directories are not passed to it
+   * @param debounceMillis quiet period that ends a batch
+   */
+  public SourceWatcher(List<Path> roots, Predicate<Path> filter, long debounceMillis) throws IOException {
+    this.service = FileSystems.getDefault().newWatchService();
+    this.filter = filter;
+    this.debounceMillis = Math.max(0, debounceMillis);
+    for (Path root : roots) {
+      registerTree(root.toAbsolutePath().normalize(), null);
+    }
+  }
+
+  /**
+   * Blocks until at least one relevant change has happened and the debounce interval has passed
+   * without further events.
+   */
+  public Changes next() throws InterruptedException, IOException {
+    Changes changes = new Changes();
+    while (changes.isEmpty()) {
+      WatchKey key = service.take();
+      long deadline = System.currentTimeMillis() + MAX_BATCH_MILLIS;
+      while (key != null) {
+        drain(key, changes);
+        long wait = Math.min(debounceMillis, deadline - System.currentTimeMillis());
+        key = wait > 0 ? service.poll(wait, TimeUnit.MILLISECONDS) : service.poll();
+      }
+    }
+    return changes;
+  }
+
+  @Override
+  public void close() throws IOException {
+    service.close();
+  }
+
+  private void drain(WatchKey key, Changes changes) throws IOException {
+    Path dir = keys.get(key);
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == OVERFLOW) {
+        changes.overflowed = true;
+        continue;
+      }
+      Path path = dir.resolve((Path) event.context());
+      if (event.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+        registerTree(path, changes);
+        changes.paths.add(path);
+      } else if (directories.contains(path) || filter.test(path)) {
+        changes.paths.add(path);
+      }
+    }
+    if (!key.reset()) {
+      keys.remove(key);
+      directories.remove(dir);
+      changes.paths.add(dir);
+    }
+  }
+
+  /**
+   * Registers {@code root} and every directory below it. Files already present in a directory
+   * that appeared while watching are added to {@code changes}, since their creation may have
+   * happened before the directory was registered.
+   */
+  private void registerTree(Path root, Changes changes) throws IOException {
+    if (!Files.isDirectory(root)) {
+      return;
+    }
+    try (Stream<Path> walk = Files.walk(root)) {
+      for (Path p : (Iterable<Path>) walk::iterator) {
+        if (Files.isDirectory(p)) {
+          if (directories.add(p)) {
+            keys.put(p.register(service, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), p);
+          }
+        } else if (changes != null && filter.test(p)) {
+          changes.paths.add(p);
+        }
+      }
+    } catch (IOException e) {
+      logger.warn("Could not watch {}: {}", root, e.getMessage());
+    }
+  }
+
+  /**
+   * One debounced batch of changes.
+   */
+  public static class Changes {
+
+    private final Set<Path> paths = new LinkedHashSet<>();
+    private boolean overflowed;
+
+    /**
+     * Files and directories that were created, modified or deleted.
+     */
+    public Set<Path> getPaths() {
+      return paths;
+    }
+
+    /**
+     * Whether events were lost, in which case {@link #getPaths()} is incomplete.
+     */
+    public boolean isOverflowed() {
+      return overflowed;
+    }
+
+    public boolean isEmpty() {
+      return paths.isEmpty() && !overflowed;
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package com.flow.adapter;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import com.flow.adapter.Model.GraphModel;
+import com.flow.adapter.Model.GraphModelConverter;
+import com.flow.adapter.scanners.JavaSourceScanner;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that the streaming JSON export writes the same bytes as serializing the converted
+ * {@code UnifiedGraphModel}, both from a legacy model and from a {@code CompactGraph}.
+ */
+class GraphExporterJsonTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void streamingMatchesConvertThenWrite() throws Exception {
+    assertSameExport(model(), false);
+    assertSameExport(model(), true);
+  }
+
+  @Test
+  void emptyModel() throws Exception {
+    GraphModel empty = new GraphModel();
+    empty.projectId = "empty";
+    assertSameExport(empty, false);
+  }
+
+  @Test
+  void scannedSample() throws Exception {
+    GraphModel scanned = new GraphModel();
+    scanned.projectId = "greens";
+    new JavaSourceScanner(2).analyze(scanned, Paths.get("../sample/greens-order/src/main/java"));
+    assertFalse(scanned.calls.isEmpty());
+    assertSameExport(scanned, false);
+  }
+
+  private void assertSameExport(GraphModel m, boolean compact) throws Exception {
+    GraphExporterJson exporter = new GraphExporterJson(compact);
+    Path converted = dir.resolve("converted.json");
+    Path streamed = dir.resolve("streamed.json");
+    Path fromCompact = dir.resolve("compact-graph.json");
+    exporter.writeUnified(GraphModelConverter.convert(m), converted);
+    exporter.write(m, streamed);
+    exporter.write(GraphModelConverter.toCompact(m), fromCompact);
+    assertArrayEquals(Files.readAllBytes(converted), Files.readAllBytes(streamed));
+    assertArrayEquals(Files.readAllBytes(converted), Files.readAllBytes(fromCompact));
+  }
+
+  /**
+   * Every node and edge kind, with repeated calls between one pair of methods, recorded lines,
+   * a weaker confidence and a call to a method outside the model.
+   */
+  private static GraphModel model() {
+    GraphModel m = new GraphModel();
+    m.projectId = "shop";
+    String place = "com.shop.api.OrderController#place(java.lang.String)";
+    String save = "com.shop.core.OrderService#save(java.lang.String)";
+    m.addMethod(place, "com.shop.api.OrderController", "place", "place(String)", "public", "com.shop.api", "api");
+    m.addMethod(save, "com.shop.core.OrderService", "save", "save(String)", "public", "com.shop.core", "core");
+    m.addEndpoint("endpoint:POST /orders", "POST", "/orders", List.of("application/json"), null);
+    String topic = m.addTopic("orders-placed");
+    m.addCall(place, save, 1, List.of(12), null);
+    m.addCall(place, save, 2, List.of(14, 19), null);
+    m.addCall(save, "java.lang.String#trim()", 1, null, GraphModel.CallEdge.CONFIDENCE_LOW);
+    m.addEndpointEdge("endpoint:POST /orders", place);
+    m.addMessagingEdge(save, topic, "produces");
+    return m;
+  }
+}
@@ -0,0 +1,110 @@
+package com.flow.adapter.Model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * {@link SignatureNormalizer#stripQualifiers} and the memoized
+ * {@link SignatureNormalizer#normalizeSignature} must give exactly what the pattern-based
+ * {@link SignatureNormalizer#normalizeSignatureWithPattern} gives.
+ */
+class SignatureNormalizerTest {
+
+  // fragments of qualified names and the characters around them; the last one is non-ASCII
+  private static final String[] TOKENS = {
+      "a", "b", "z", "x1", "A", "B", "Z", "0", "9", ".", ".", ".", "$", "_", "<", ">", ",", "(", ")",
+      "[]", ":", " ", "#", "-", "com.", "acme.", "Order", "é"};
+
+  static Stream<Arguments> signatures() {
+    return Stream.of(
+        // generics
+        Arguments.of("java.util.List<com.acme.Order>", "List<Order>"),
+        Arguments.of("java.util.Map<java.lang.String, java.util.List<com.acme.Order>>", "Map<String, List<Order>>"),
+        Arguments.of("find(java.util.Optional<? extends com.acme.Order>):java.util.Set<com.acme.Line>",
+            "find(Optional<? extends Order>):Set<Line>"),
+        Arguments.of("<T extends com.acme.Order> T", "<T extends Order> T"),
+        // arrays
+        Arguments.of("com.acme.Order[]", "Order[]"),
+        Arguments.of("handle(com.acme.svc.core.Repository$Query,long[]):com.acme.model.Result",
+            "handle(Repository$Query,long[]):Result"),
+        Arguments.of("m(java.lang.String[][],int[]):com.acme.Order[]", "m(String[][],int[]):Order[]"),
+        // varargs
+        Arguments.of("com.acme.Order...", "Order..."),
+        Arguments.of("log(java.lang.String,java.lang.Object...):void", "log(String,Object...):void"),
+        // nested types
+        Arguments.of("com.acme.Outer.Inner", "Outer.Inner"),
+        Arguments.of("com.acme.Outer$Inner", "Outer$Inner"),
+        Arguments.of("java.util.Map.Entry<java.lang.String, com.acme.Outer.Inner>", "Map.Entry<String, Outer.Inner>"),
+        Arguments.of("a.b$c.D", "D"),
+        // whitespace
+        Arguments.of("m( com.acme.Order , com.acme.Line ):void", "m( Order , Line ):void"),
+        Arguments.of("java.util.Map<java.lang.String,\tcom.acme.Order>", "Map<String,\tOrder>"),
+        Arguments.of("  com.acme.Order  ", "  Order  "),
+        Arguments.of("com.acme .Order", "com.acme .Order"),
+        // nothing to strip
+        Arguments.of("", ""),
+        Arguments.of("run():void", "run():void"),
+        Arguments.of("Order", "Order"),
+        Arguments.of("com.acme.order", "com.acme.order"),
+        Arguments.of("Com.acme.Order", "Com.Order"),
+        // non-ASCII goes through the pattern
+        Arguments.of("com.acme.é.Order", "com.acme.é.Order"),
+        Arguments.of("café.Order", "café.Order"));
+  }
+
+  @ParameterizedTest
+  @MethodSource("signatures")
+  void stripsQualifiers(String signature, String expected) {
+    assertEquals(expected, SignatureNormalizer.normalizeSignatureWithPattern(signature));
+    assertEquals(expected, SignatureNormalizer.stripQualifiers(signature));
+    assertEquals(expected, SignatureNormalizer.normalizeSignature(signature));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+      "a", "a.B", "a.b", ".a.B", "a.B.", "a..B", "a.$B", "a.B$", "a.B$$", "a.B$C", "a.B_", "a.B$_",
+      "a.b$c.D", "a.b_c.D", "a1.b2.C3", "1a.B", "_a.B", "$a.B", "Aa.B", "a.B9", "a.BC.D", "a.b.C.d.E",
+      "xa.B", "x_a.B", "x$a.B", "x.a.B", "X.a.B", "a.B(b.C)", "a.Bb.C", "a.B$c.D", "a.B$$c.D",
+      "m(com.acme.Order,com.acme.Line)", "com.acme.Orderé", "écom.acme.Order", "com.acme.Ordeŕ"})
+  void matchesPatternOnEdgeCases(String signature) {
+    assertMatchesPattern(signature);
+  }
+
+  @ParameterizedTest
+  @ValueSource(longs = {1, 2, 3, 42})
+  void matchesPatternOnRandomInput(long seed) {
+    Random random = new Random(seed);
+    List<String> mismatches = new ArrayList<>();
+    for (int i = 0; i < 50_000; i++) {
+      String signature = randomSignature(random);
+      if (!SignatureNormalizer.normalizeSignatureWithPattern(signature).equals(SignatureNormalizer.stripQualifiers(signature))) {
+        mismatches.add(signature);
+      }
+    }
+    assertEquals(List.of(), mismatches);
+  }
+
+  private static void assertMatchesPattern(String signature) {
+    String expected = SignatureNormalizer.normalizeSignatureWithPattern(signature);
+    assertEquals(expected, SignatureNormalizer.stripQualifiers(signature));
+    assertEquals(expected, SignatureNormalizer.normalizeSignature(signature));
+  }
+
+  private static String randomSignature(Random random) {
+    int length = 1 + random.nextInt(16);
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < length; i++) {
+      // mostly plain ASCII so the hand-written path, not the non-ASCII fallback, is exercised
+      sb.append(TOKENS[random.nextInt(random.nextInt(8) == 0 ? TOKENS.length : TOKENS.length - 1)]);
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,31 @@
+package com.flow.adapter;
+
+import com.flow.adapter.Model.GraphModel;
+import com.flow.adapter.scanners.SourceFilter;
+import com.flow.adapter.scanners.SourceWalker;
+import com.flow.adapter.util.ConfigLoader;
+import java.nio.file.Path;
+
+/**
+ * A plugin that only implements the path-based {@code enrich}: it walks the source root itself,
+ * with the scan's source filter, and adds one topic, named after the number of source files it
+ * saw, with one edge to it.
+ */
+public class PathOnlyPlugin implements FlowPlugin {
+
+  static final String PRODUCER = "com.example.App#main():void";
+
+  private SourceFilter filter = SourceFilter.all();
+
+  @Override
+  public void useSourceFilter(SourceFilter filter) {
+    this.filter = filter;
+  }
+
+  @Override
+  public void enrich(GraphModel model, Path srcRoot, ConfigLoader config) throws Exception {
+    int files = new SourceWalker(filter.withIgnoreFile(srcRoot), 1).list(srcRoot).size();
+    String topic = model.addTopic("sources-" + files);
+    model.addMessagingEdge(PRODUCER, topic, "produces");
+  }
+}
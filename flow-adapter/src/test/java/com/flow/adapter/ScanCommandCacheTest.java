@@ -0,0 +1,82 @@
+package com.flow.adapter;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import picocli.CommandLine;
+
+/**
+ * Scans with {@link PathOnlyPlugin} registered as a service, with and without {@code --cache-dir}.
+ */
+class ScanCommandCacheTest {
+
+  private static final int FILES = 5;
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void cachedScanMatchesUncachedWithPathOnlyPlugin() throws Exception {
+    Path src = writeSources(dir.resolve("src"));
+    String cacheDir = dir.resolve("cache").toString();
+
+    byte[] uncached = scan(src, "uncached.json");
+    byte[] cold = scan(src, "cold.json", "--cache-dir", cacheDir);
+    byte[] warm = scan(src, "warm.json", "--cache-dir", cacheDir);
+
+    assertEquals(List.of("topic:sources-" + FILES), produces(uncached));
+    assertArrayEquals(uncached, cold);
+    assertArrayEquals(uncached, warm);
+  }
+
+  @Test
+  void pathOnlyPluginWalksWithTheScanFilter() throws Exception {
+    Path src = writeSources(dir.resolve("src"));
+    Files.writeString(src.resolve(".flowignore"), "C0.java\n");
+    String cacheDir = dir.resolve("cache").toString();
+
+    byte[] uncached = scan(src, "uncached.json", "--exclude", "**/C1.java");
+    byte[] cached = scan(src, "cached.json", "--exclude", "**/C1.java", "--cache-dir", cacheDir);
+
+    assertEquals(List.of("topic:sources-" + (FILES - 2)), produces(uncached));
+    assertArrayEquals(uncached, cached);
+  }
+
+  private static List<String> produces(byte[] graph) throws Exception {
+    List<String> produces = new ArrayList<>();
+    new ObjectMapper().readTree(graph).path("edges").forEach(e -> {
+      if ("PRODUCES".equals(e.path("type").asText())) {
+        produces.add(e.path("to").asText());
+      }
+    });
+    return produces;
+  }
+
+  private byte[] scan(Path src, String out, String... extra) throws Exception {
+    Path config = Files.createDirectories(dir.resolve("config"));
+    List<String> args = new ArrayList<>(List.of("--src", src.toString(), "--project", "test",
+        "--config", config.toString(), "--out", dir.resolve(out).toString(), "--threads", "2"));
+    args.addAll(List.of(extra));
+    ScanCommand command = new ScanCommand();
+    new CommandLine(command).parseArgs(args.toArray(new String[0]));
+    command.execute();
+    return Files.readAllBytes(dir.resolve(out));
+  }
+
+  private static Path writeSources(Path src) throws Exception {
+    Path pkg = Files.createDirectories(src.resolve("com/example"));
+    for (int i = 0; i < FILES; i++) {
+      String next = i + 1 < FILES ? "new C" + (i + 1) + "().run();" : "";
+      Files.writeString(pkg.resolve("C" + i + ".java"), "package com.example;\n\n"
+          + "public class C" + i + " {\n  public void run() {\n    " + next + "\n  }\n}\n");
+    }
+    return src;
+  }
+}
@@ -0,0 +1,242 @@
+package com.flow.adapter;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.flow.adapter.Model.CompactGraph;
+import com.flow.adapter.Model.GraphModel;
+import com.flow.adapter.Model.GraphModelConverter;
+import com.flow.adapter.Model.UnifiedGraphBuilder;
+import com.flow.adapter.cache.ScanCache;
+import com.flow.adapter.scanners.JavaSourceScanner;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import picocli.CommandLine;
+
+/**
+ * Scans a small fixture tree and pins the output invariants of the scan paths.
+ */
+class ScanCommandOutputTest {
+
+  private static final int GENERATED = 24;
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void outputDoesNotDependOnThreadCount() throws Exception {
+    Path src = writeSources(dir.resolve("src"));
+
+    byte[] one = scan(src, "one.json", "--threads", "1");
+    byte[] four = scan(src, "four.json", "--threads", "4");
+    byte[] fourAgain = scan(src, "four-again.json", "--threads", "4", "--io-threads", "3");
+
+    assertTrue(new String(one).contains("\"CALL\""));
+    assertArrayEquals(one, four);
+    assertArrayEquals(one, fourAgain);
+  }
+
+  @Test
+  void callSitesBetweenOnePairOfMethodsShareOneCountedEdge() throws Exception {
+    Path src = writeSources(dir.resolve("src"));
+    String place = "com.shop.OrderService#place(Order):void";
+
+    JsonNode plain = calls(scan(src, "plain.json"), place);
+    assertEquals(4, plain.size());
+    assertEquals(2, call(plain, "com.shop.Repository#save(Order):void").path("data").path("count").asInt());
+    assertTrue(call(plain, "com.shop.Repository#save(Order):void").path("data").path("lines").isMissingNode());
+    assertEquals(1, call(plain, "com.shop.OrderService#audit(Order):void").path("data").path("count").asInt());
+
+    JsonNode lines = calls(scan(src, "lines.json", "--call-lines"), place);
+    JsonNode save = call(lines, "com.shop.Repository#save(Order):void").path("data");
+    assertEquals(2, save.path("count").asInt());
+    assertEquals("[13,15]", save.path("lines").toString());
+    // chained calls on one line are still two sites
+    JsonNode add = call(lines, "com.shop.Order#add(Item):Order").path("data");
+    assertEquals(2, add.path("count").asInt());
+    assertEquals("[14,14]", add.path("lines").toString());
+  }
+
+  @Test
+  void unifiedBuilderMatchesConvertedLegacyModel() throws Exception {
+    Path src = writeSources(dir.resolve("src"));
+
+    UnifiedGraphBuilder direct = new UnifiedGraphBuilder("test");
+    new JavaSourceScanner(4).withCallLines(true).scan(direct, src);
+    GraphModel legacy = new GraphModel();
+    legacy.projectId = "test";
+    new JavaSourceScanner(4).withCallLines(true).scan(legacy, src);
+
+    assertArrayEquals(json(GraphModelConverter.toCompact(legacy)), json(direct.build()));
+  }
+
+  @Test
+  void warmInMemoryScanMatchesColdScan() throws Exception {
+    Path src = writeSources(dir.resolve("src"));
+    Map<String, ScanCache> caches = new HashMap<>();
+
+    byte[] cold = scan(src, "cold.json");
+    assertArrayEquals(cold, scan(caches, src, "warm.json"));
+    assertArrayEquals(cold, scan(caches, src, "warm-again.json"));
+    assertEquals(1, caches.size());
+
+    Path service = src.resolve("com/shop/OrderService.java");
+    Files.writeString(service, Files.readString(service).replace("    audit(order);\n", ""));
+    Files.writeString(src.resolve("com/shop/Audit.java"),
+        "package com.shop;\n\npublic class Audit {\n  public void log(Order order) {\n    order.add(null);\n  }\n}\n");
+    byte[] edited = scan(src, "edited-cold.json");
+    assertFalse(Arrays.equals(cold, edited));
+    assertArrayEquals(edited, scan(caches, src, "edited-warm.json"));
+  }
+
+  @Test
+  void mergedProjectsReportNodesTheyShare() throws Exception {
+    Path a = writeSources(dir.resolve("a"));
+    Path b = dir.resolve("b");
+    Path util = Files.createDirectories(b.resolve("com/shop"));
+    // the same Order as project a, and an OrderService whose place method is private here
+    Files.copy(a.resolve("com/shop/Order.java"), util.resolve("Order.java"));
+    Files.writeString(util.resolve("OrderService.java"),
+        "package com.shop;\n\npublic class OrderService {\n  private void place(Order order) {\n  }\n}\n");
+    Path report = dir.resolve("diagnostics.json");
+
+    scan(null, List.of("--src", "a=" + a, "--src", "b=" + b, "--merge",
+        "--diagnostics-json", report.toString()), "merged.json");
+
+    JsonNode diagnostics = new ObjectMapper().readTree(report.toFile());
+    assertEquals(1, diagnostics.path("merge.conflict").path("count").asInt());
+    assertEquals(1, diagnostics.path("merge.conflict").path("keys").path("a/b").asInt());
+    assertEquals("[\"com.shop.OrderService#place(Order):void\"]",
+        diagnostics.path("merge.conflict").path("examples").toString());
+    assertEquals(2, diagnostics.path("merge.shared-node").path("count").asInt());
+  }
+
+  private static byte[] json(CompactGraph graph) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new GraphExporterJson().write(graph, out);
+    return out.toByteArray();
+  }
+
+  private static JsonNode calls(byte[] graph, String from) throws Exception {
+    ArrayNode calls = JsonNodeFactory.instance.arrayNode();
+    new ObjectMapper().readTree(graph).path("edges").forEach(e -> {
+      if ("CALL".equals(e.path("type").asText()) && from.equals(e.path("from").asText())) {
+        calls.add(e);
+      }
+    });
+    return calls;
+  }
+
+  private static JsonNode call(JsonNode calls, String to) {
+    for (JsonNode e : calls) {
+      if (to.equals(e.path("to").asText())) {
+        return e;
+      }
+    }
+    throw new AssertionError("No call to " + to + " in " + calls);
+  }
+
+  private byte[] scan(Path src, String out, String... extra) throws Exception {
+    return scan(null, src, out, extra);
+  }
+
+  /**
+   * Scans as {@code serve} does when {@code caches} is given: with in-memory caches kept between
+   * scans.
+   */
+  private byte[] scan(Map<String, ScanCache> caches, Path src, String out, String... extra) throws Exception {
+    List<String> args = new ArrayList<>(List.of("--src", src.toString(), "--project", "test"));
+    args.addAll(List.of(extra));
+    return scan(caches, args, out);
+  }
+
+  private byte[] scan(Map<String, ScanCache> caches, List<String> sources, String out) throws Exception {
+    Path config = Files.createDirectories(dir.resolve("config"));
+    List<String> args = new ArrayList<>(sources);
+    args.addAll(List.of("--config", config.toString(), "--out", dir.resolve(out).toString()));
+    ScanCommand command = caches != null ? new ScanCommand().withSharedCaches(caches) : new ScanCommand();
+    new CommandLine(command).parseArgs(args.toArray(new String[0]));
+    command.execute();
+    return Files.readAllBytes(dir.resolve(out));
+  }
+
+  /**
+   * An order service calling a repository twice, chained calls on one receiver, and a chain of
+   * generated classes each calling the next, spread over several packages.
+   */
+  private static Path writeSources(Path src) throws Exception {
+    Path shop = Files.createDirectories(src.resolve("com/shop"));
+    Files.writeString(shop.resolve("Order.java"), """
+        package com.shop;
+
+        public class Order {
+          public Order add(Item item) {
+            return this;
+          }
+        }
+        """);
+    Files.writeString(shop.resolve("Item.java"), """
+        package com.shop;
+
+        public class Item {
+        }
+        """);
+    Files.writeString(shop.resolve("Repository.java"), """
+        package com.shop;
+
+        public interface Repository {
+          void save(Order order);
+        }
+        """);
+    Files.writeString(shop.resolve("OrderService.java"), """
+        package com.shop;
+
+        import com.shop.gen.G0;
+
+        public class OrderService {
+          private final Repository repository;
+
+          public OrderService(Repository repository) {
+            this.repository = repository;
+          }
+
+          public void place(Order order) {
+            repository.save(order);
+            order.add(new Item()).add(new Item());
+            repository.save(order);
+            audit(order);
+            new G0().run();
+          }
+
+          private void audit(Order order) {
+          }
+        }
+        """);
+    for (int i = 0; i < GENERATED; i++) {
+      Path pkg = Files.createDirectories(src.resolve("com/shop/gen" + (i % 3 == 0 ? "" : "/p" + i % 3)));
+      String name = "G" + i;
+      String pkgName = "com.shop.gen" + (i % 3 == 0 ? "" : ".p" + i % 3);
+      String next = i + 1 < GENERATED
+          ? "new com.shop.gen" + ((i + 1) % 3 == 0 ? "" : ".p" + (i + 1) % 3) + ".G" + (i + 1) + "().run();"
+          : "";
+      Files.writeString(pkg.resolve(name + ".java"), "package " + pkgName + ";\n\n"
+          + "public class " + name + " {\n  public void run() {\n    " + next + "\n    helper();\n  }\n\n"
+          + "  private void helper() {\n  }\n}\n");
+    }
+    return src;
+  }
+}
@@ -0,0 +1,157 @@
+package com.flow.adapter.binary;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.flow.adapter.GraphExporterBinary;
+import com.flow.adapter.GraphExporterJson;
+import com.flow.adapter.ScanCommand;
+import com.flow.adapter.Model.CompactGraph;
+import com.flow.adapter.Model.UnifiedGraphSink;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import picocli.CommandLine;
+
+/**
+ * Writes graphs with {@link GraphExporterBinary}, maps them back through {@link BinaryGraph} and
+ * checks every node and edge, and the JSON export of what was read, against the original.
+ */
+class BinaryGraphRoundTripTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void emptyGraph() throws Exception {
+    assertRoundTrip(new CompactGraph.Builder("empty").build());
+  }
+
+  @Test
+  void graphWithoutEdges() throws Exception {
+    CompactGraph.Builder b = new CompactGraph.Builder("nodes-only");
+    b.node("com.example.App", "CLASS", "App", Map.of());
+    assertRoundTrip(b.build());
+  }
+
+  @Test
+  void nonAsciiIdsAndAllAttributeKinds() throws Exception {
+    CompactGraph.Builder b = new CompactGraph.Builder("graph-ü");
+    b.node("service:bestellung", "SERVICE", "Bestellung", Map.of());
+    b.node("com.café.Überweisung", "CLASS", "Überweisung", data("visibility", "public", "lines", 42));
+    b.node("com.café.Überweisung#zahlen(java.lang.String):void", "METHOD", "zahlen",
+        data("signature", "zahlen(String)", "tags", List.of("日本", "ok"), "lines", List.of(3, 7, 9)));
+    b.node("com.café.Überweisung#", "METHOD", null, Map.of());
+    b.node("#", "CLASS", "", data("empty", List.of()));
+    b.edge("e-method-class-1", "com.café.Überweisung#zahlen(java.lang.String):void", "com.café.Überweisung",
+        "DEFINES", Map.of());
+    b.edge("e-class-service-1", "com.café.Überweisung", "service:bestellung", "BELONGS_TO", Map.of());
+    b.edge("e-call-1", "com.café.Überweisung#zahlen(java.lang.String):void", "java.lang.String#trim():String",
+        "CALL", data("count", 2, "lines", List.of(12, 15)));
+    b.edge("e-call-2", "com.café.Überweisung#zahlen(java.lang.String):void", "topic:zahlungen-€", "CALL",
+        data("confidence", "name-arity"));
+    b.edge("e-call-7", "com.café.Überweisung#", "com.café.Überweisung#", "CALL", Map.of());
+    b.edge("e-call-007", "#", "#", "CALL", Map.of());
+    b.edge("e-produces-3", "com.café.Überweisung#zahlen(java.lang.String):void", null, "PRODUCES", Map.of());
+    b.edge("e-call-8", "com.café.Überweisung#", "com.café.Überweisung", "CALL", Map.of());
+    assertRoundTrip(b.build());
+  }
+
+  @Test
+  void scannedSample() throws Exception {
+    Path out = dir.resolve("sample.bin");
+    ScanCommand command = new ScanCommand();
+    new CommandLine(command).parseArgs("--src", Paths.get("../sample/greens-order/src/main/java").toString(),
+        "--project", "greens", "--config", Files.createDirectories(dir.resolve("config")).toString(),
+        "--out", out.toString());
+    CompactGraph graph = command.scanGraph();
+    assertTrue(graph.edgeCount() > 0);
+    assertRoundTrip(graph);
+  }
+
+  private void assertRoundTrip(CompactGraph graph) throws Exception {
+    Path file = dir.resolve("graph.bin");
+    new GraphExporterBinary().write(graph, file);
+    BinaryGraph read = BinaryGraph.open(file);
+
+    Recorded expected = new Recorded();
+    graph.emit(expected);
+    Recorded actual = new Recorded();
+    assertEquals(graph.getGraphId(), read.getGraphId());
+    assertEquals(expected.nodes.size(), read.nodeCount());
+    assertEquals(expected.edges.size(), read.edgeCount());
+    for (int n = 0; n < read.nodeCount(); n++) {
+      actual.node(read.nodeId(n), read.nodeType(n), read.nodeName(n), read.nodeData(n));
+      assertEquals(n, read.findNode(read.nodeId(n)));
+    }
+    for (int e = 0; e < read.edgeCount(); e++) {
+      actual.edge(read.edgeId(e), read.edgeFromId(e), read.edgeToId(e), read.edgeType(e), read.edgeData(e));
+    }
+    assertEquals(expected.nodes, actual.nodes);
+    assertEquals(expected.edges, actual.edges);
+
+    CompactGraph.Builder rebuilt = new CompactGraph.Builder(read.getGraphId());
+    actual.replay(rebuilt);
+    assertArrayEquals(json(graph), json(rebuilt.build()));
+  }
+
+  private static byte[] json(CompactGraph graph) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new GraphExporterJson().write(graph, out);
+    return out.toByteArray();
+  }
+
+  private static Map<String, Object> data(Object... keysAndValues) {
+    Map<String, Object> data = new LinkedHashMap<>();
+    for (int i = 0; i < keysAndValues.length; i += 2) {
+      data.put((String) keysAndValues[i], keysAndValues[i + 1]);
+    }
+    return data;
+  }
+
+  /**
+   * Every node and edge emitted, as lists of their fields.
+   */
+  private static class Recorded implements UnifiedGraphSink {
+
+    final List<List<Object>> nodes = new ArrayList<>();
+    final List<List<Object>> edges = new ArrayList<>();
+
+    @Override
+    public void node(String id, String type, String name, Map<String, Object> data) {
+      nodes.add(fields(id, type, name, new LinkedHashMap<>(data)));
+    }
+
+    @Override
+    public void edge(String id, String from, String to, String type, Map<String, Object> data) {
+      edges.add(fields(id, from, to, type, new LinkedHashMap<>(data)));
+    }
+
+    /**
+     * Emits the recorded nodes and edges into {@code sink}.
+     */
+    @SuppressWarnings("unchecked")
+    void replay(UnifiedGraphSink sink) throws Exception {
+      for (List<Object> n : nodes) {
+        sink.node((String) n.get(0), (String) n.get(1), (String) n.get(2), (Map<String, Object>) n.get(3));
+      }
+      for (List<Object> e : edges) {
+        sink.edge((String) e.get(0), (String) e.get(1), (String) e.get(2), (String) e.get(3),
+            (Map<String, Object>) e.get(4));
+      }
+    }
+
+    private static List<Object> fields(Object... values) {
+      return Arrays.asList(values);
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package com.flow.adapter.classpath;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks when {@link JarIndexStore} closes the jars its indexes hold open.
+ */
+class JarIndexStoreTest {
+
+  private static final String ENTRY = "com/example/Lib.class";
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void replacedJarClosesTheOldIndex() throws Exception {
+    Path jar = writeJar(dir.resolve("lib.jar"), new byte[] {1, 2, 3}, 1_000_000L);
+    JarIndexStore store = JarIndexStore.at(dir.resolve("index"));
+
+    JarSymbolIndex first = store.index(jar);
+    assertSame(first, store.index(jar));
+    assertArrayEquals(new byte[] {1, 2, 3}, read(first));
+
+    writeJar(jar, new byte[] {4, 5, 6, 7}, 2_000_000L);
+    JarSymbolIndex second = store.index(jar);
+    assertNotSame(first, second);
+    assertThrows(IOException.class, () -> first.open(ENTRY));
+    assertArrayEquals(new byte[] {4, 5, 6, 7}, read(second));
+  }
+
+  @Test
+  void closeAllClosesOpenedIndexes() throws Exception {
+    Path jar = writeJar(dir.resolve("lib.jar"), new byte[] {1}, 1_000_000L);
+    JarIndexStore store = JarIndexStore.at(dir.resolve("index"));
+    JarSymbolIndex index = store.index(jar);
+    read(index);
+
+    JarIndexStore.closeAll();
+    assertThrows(IOException.class, () -> index.open(ENTRY));
+    assertArrayEquals(new byte[] {1}, read(store.index(jar)));
+  }
+
+  private static byte[] read(JarSymbolIndex index) throws IOException {
+    try (InputStream in = index.open(index.find("com.example.Lib"))) {
+      return in.readAllBytes();
+    }
+  }
+
+  private static Path writeJar(Path jar, byte[] classBytes, long modifiedMillis) throws IOException {
+    try (OutputStream out = Files.newOutputStream(jar); ZipOutputStream zip = new ZipOutputStream(out)) {
+      zip.putNextEntry(new ZipEntry(ENTRY));
+      zip.write(classBytes);
+      zip.closeEntry();
+    }
+    Files.setLastModifiedTime(jar, FileTime.fromMillis(modifiedMillis));
+    return jar;
+  }
+}
@@ -0,0 +1,88 @@
+package com.flow.adapter.diagnostics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks how {@link Diagnostics} counts keys, keeps examples and orders its report.
+ */
+class DiagnosticsTest {
+
+  @Test
+  void keysPastTheLimitAreCountedAsOther() {
+    Diagnostics d = new Diagnostics();
+    for (int i = 0; i < Diagnostics.MAX_KEYS + 3; i++) {
+      d.report("unresolved", "Type" + i, () -> "call");
+    }
+    d.report("unresolved", "Type0", () -> "call");
+    d.report("unresolved", "Late", () -> "call");
+
+    assertEquals(Diagnostics.MAX_KEYS + 5, d.count("unresolved"));
+    assertEquals(2, d.count("unresolved", "Type0"));
+    assertEquals(0, d.count("unresolved", "Late"));
+    assertEquals(4, d.count("unresolved", Diagnostics.OTHER));
+    assertEquals(Diagnostics.MAX_KEYS + 1, keys(d.toReport(), "unresolved").size());
+  }
+
+  @Test
+  void keepsOnlyTheFirstExamplesAndFormatsNoOthers() {
+    Diagnostics d = new Diagnostics(2, false);
+    AtomicInteger formatted = new AtomicInteger();
+    for (int i = 0; i < 5; i++) {
+      String example = "example " + i;
+      d.report("parse", "File" + i, () -> {
+        formatted.incrementAndGet();
+        return example;
+      });
+    }
+
+    assertEquals(2, formatted.get());
+    assertEquals(List.of("example 0", "example 1"), category(d.toReport(), "parse").get("examples"));
+    assertEquals(5, d.count("parse"));
+  }
+
+  @Test
+  void noExamplesWithASampleLimitOfZero() {
+    Diagnostics d = new Diagnostics(0, false);
+    d.report("parse", "File", () -> {
+      throw new AssertionError("example formatted");
+    });
+
+    assertEquals(List.of(), category(d.toReport(), "parse").get("examples"));
+  }
+
+  @Test
+  void reportSortsCategoriesByNameAndKeysByDescendingCount() {
+    Diagnostics d = new Diagnostics();
+    d.report("unresolved", "B", () -> "b");
+    d.report("unresolved", "C", () -> "c");
+    d.report("unresolved", "C", () -> "c");
+    d.report("unresolved", "A", () -> "a");
+    d.report("merge.conflict", "a/b", () -> "id");
+    d.report("parse", null, () -> "file");
+
+    Map<String, Object> report = d.toReport();
+    assertEquals(List.of("merge.conflict", "parse", "unresolved"), new ArrayList<>(report.keySet()));
+    assertEquals(List.of("C", "A", "B"), new ArrayList<>(keys(report, "unresolved").keySet()));
+    assertEquals(Map.of("C", 2L, "A", 1L, "B", 1L), keys(report, "unresolved"));
+    assertEquals(4L, category(report, "unresolved").get("count"));
+    assertEquals(Map.of("", 1L), keys(report, "parse"));
+    assertTrue(d.summary(5).startsWith("Diagnostics\n  merge.conflict"));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> category(Map<String, Object> report, String name) {
+    return (Map<String, Object>) report.get(name);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Long> keys(Map<String, Object> report, String name) {
+    return (Map<String, Long>) category(report, name).get("keys");
+  }
+}
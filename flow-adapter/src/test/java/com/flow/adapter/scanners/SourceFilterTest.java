@@ -0,0 +1,81 @@
+package com.flow.adapter.scanners;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Walks a small tree with {@code .flowignore} files and checks that their globs apply in order,
+ * with the last match deciding, as in {@code .gitignore}.
+ */
+class SourceFilterTest {
+
+  private static final List<String> FILES = List.of(
+      "App.java", "AppTest.java", "gen/Model.java", "gen/Keep.java", "gen/sub/Deep.java",
+      "build/Out.java", "build/Keep.java");
+
+  @TempDir
+  Path src;
+
+  @Test
+  void negationReIncludesAnEarlierExclude() throws Exception {
+    assertEquals(List.of("App.java", "build/Keep.java", "build/Out.java", "gen/Keep.java",
+            "gen/Model.java", "gen/sub/Deep.java"),
+        walk("*Test.java", "!AppTest.java", "*Test.java"));
+    assertEquals(List.of("App.java", "AppTest.java", "build/Keep.java", "build/Out.java",
+            "gen/Keep.java", "gen/Model.java", "gen/sub/Deep.java"),
+        walk("*Test.java", "!AppTest.java"));
+  }
+
+  @Test
+  void negationDoesNotTurnTheFilterIntoAnAllowList() throws Exception {
+    assertEquals(List.of("App.java", "AppTest.java", "build/Keep.java", "build/Out.java",
+            "gen/Keep.java", "gen/Model.java", "gen/sub/Deep.java"),
+        walk("!App.java"));
+  }
+
+  @Test
+  void contentsOfADirectoryCanBeReIncluded() throws Exception {
+    assertEquals(List.of("App.java", "AppTest.java", "build/Keep.java", "build/Out.java",
+            "gen/Keep.java"),
+        walk("gen/**", "!gen/Keep.java"));
+  }
+
+  @Test
+  void filesInAnIgnoredDirectoryStayIgnored() throws Exception {
+    assertEquals(List.of("App.java", "AppTest.java", "gen/Keep.java", "gen/Model.java",
+            "gen/sub/Deep.java"),
+        walk("build/", "!build/Keep.java"));
+    assertEquals(List.of("App.java", "AppTest.java", "build/Keep.java", "gen/Keep.java",
+            "gen/Model.java", "gen/sub/Deep.java"),
+        walk("build/", "!build/", "build/Out.java"));
+  }
+
+  @Test
+  void excludeOptionsStillApplyBeforeTheIgnoreFile() throws Exception {
+    assertEquals(List.of("App.java", "AppTest.java", "gen/Keep.java", "gen/Model.java",
+            "gen/sub/Deep.java"),
+        walk(SourceFilter.of(List.of(), List.of("build/**")), "!build/Keep.java"));
+  }
+
+  private List<String> walk(String... ignoreLines) throws Exception {
+    return walk(SourceFilter.all(), ignoreLines);
+  }
+
+  private List<String> walk(SourceFilter filter, String... ignoreLines) throws Exception {
+    for (String file : FILES) {
+      Path path = src.resolve(file);
+      Files.createDirectories(path.getParent());
+      Files.writeString(path, "class X {}\n");
+    }
+    Files.write(src.resolve(SourceFilter.IGNORE_FILE), List.of(ignoreLines));
+    return new SourceWalker(filter.withIgnoreFile(src), 2).list(src).stream()
+        .map(p -> src.relativize(p).toString().replace('\\', '/'))
+        .sorted()
+        .toList();
+  }
+}
@@ -0,0 +1,60 @@
+package com.flow.benchmarks;
+
+import com.flow.adapter.Model.CompactGraph;
+import com.flow.adapter.Model.GraphModel;
+import com.flow.adapter.Model.GraphModelConverter;
+import com.flow.adapter.Model.UnifiedGraphBuilder;
+import com.flow.adapter.Model.UnifiedGraphModel;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Legacy-to-unified conversion of a synthetic graph with five call edges per method, into the
+ * object model and into {@link CompactGraph}, and the same graph written into a
+ * {@link UnifiedGraphBuilder} instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ConvertBenchmark {
+
+  @Param({"1000", "10000", "100000"})
+  public int methods;
+
+  private GraphModel model;
+
+  @Setup
+  public void setUp() {
+    model = Fixtures.graph(methods, methods * 5);
+  }
+
+  @Benchmark
+  public UnifiedGraphModel convert() {
+    return GraphModelConverter.convert(model);
+  }
+
+  @Benchmark
+  public CompactGraph toCompact() {
+    return GraphModelConverter.toCompact(model);
+  }
+
+  @Benchmark
+  public CompactGraph builder() {
+    UnifiedGraphBuilder builder = new UnifiedGraphBuilder(model.projectId);
+    builder.merge(model);
+    return builder.build();
+  }
+}
@@ -0,0 +1,79 @@
+package com.flow.benchmarks;
+
+import com.flow.adapter.GraphExporterBinary;
+import com.flow.adapter.GraphExporterJson;
+import com.flow.adapter.Model.CompactGraph;
+import com.flow.adapter.Model.GraphModel;
+import com.flow.adapter.Model.GraphModelConverter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link GraphExporterJson#write} at several graph sizes, straight from the legacy model and from
+ * a prebuilt {@link CompactGraph} (indented and compact), plus the binary exporter for comparison.
+ * Output goes to a temporary file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ExportBenchmark {
+
+  @Param({"1000", "10000", "100000"})
+  public int methods;
+
+  private GraphModel model;
+  private CompactGraph graph;
+  private Path out;
+
+  @Setup
+  public void setUp() throws Exception {
+    model = Fixtures.graph(methods, methods * 5);
+    graph = GraphModelConverter.toCompact(model);
+    out = Files.createTempFile("flow-bench", ".out");
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    Files.deleteIfExists(out);
+  }
+
+  @Benchmark
+  public Path writeJson() throws Exception {
+    new GraphExporterJson().write(model, out);
+    return out;
+  }
+
+  @Benchmark
+  public Path writeJsonFromCompact() throws Exception {
+    new GraphExporterJson().write(graph, out);
+    return out;
+  }
+
+  @Benchmark
+  public Path writeCompactJsonFromCompact() throws Exception {
+    new GraphExporterJson(true).write(graph, out);
+    return out;
+  }
+
+  @Benchmark
+  public Path writeBinary() throws Exception {
+    new GraphExporterBinary().write(graph, out);
+    return out;
+  }
+}
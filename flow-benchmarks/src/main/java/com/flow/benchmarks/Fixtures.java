@@ -0,0 +1,150 @@
+package com.flow.benchmarks;
+
+import com.flow.adapter.Model.GraphModel;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Deterministic inputs shared by the benchmarks: generated Java sources and synthetic graphs.
+ */
+final class Fixtures {
+
+  /** Methods in the generated caller class. */
+  static final int CALLER_METHODS = 20;
+  /** Calls per generated caller method. */
+  static final int CALLS_PER_METHOD = 10;
+  static final int CALLS = CALLER_METHODS * CALLS_PER_METHOD;
+
+  private static final int SERVICES = 5;
+
+  private Fixtures() {
+  }
+
+  /**
+   * Source of one service class with {@code methods} methods, each calling a private helper, a
+   * JDK method and the next method.
+   */
+  static String serviceSource(String pkg, String name, int methods) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("package ").append(pkg).append(";\n\n");
+    sb.append("import java.util.List;\nimport java.util.ArrayList;\n\n");
+    sb.append("public class ").append(name).append(" {\n\n");
+    sb.append("  private final List<String> items = new ArrayList<>();\n\n");
+    for (int i = 0; i < methods; i++) {
+      sb.append("  public String work").append(i).append("(String input, int count) {\n");
+      sb.append("    String value = input.trim();\n");
+      sb.append("    helper(value);\n");
+      sb.append("    items.add(value);\n");
+      if (i + 1 < methods) {
+        sb.append("    return work").append(i + 1).append("(value, count + 1);\n");
+      } else {
+        sb.append("    return value;\n");
+      }
+      sb.append("  }\n\n");
+    }
+    sb.append("  private void helper(String value) {\n");
+    sb.append("    items.remove(value);\n");
+    sb.append("  }\n}\n");
+    return sb.toString();
+  }
+
+  /**
+   * Writes {@code bench/Svc0..Svc4} plus {@code bench/Caller}, whose methods each make
+   * {@link #CALLS_PER_METHOD} calls into the services, JDK types and itself.
+   */
+  static Path writeResolutionProject() throws IOException {
+    Path root = Files.createTempDirectory("flow-bench-src");
+    Path pkg = Files.createDirectories(root.resolve("bench"));
+    for (int s = 0; s < SERVICES; s++) {
+      Files.writeString(pkg.resolve("Svc" + s + ".java"), serviceSource("bench", "Svc" + s, 4));
+    }
+    StringBuilder sb = new StringBuilder("package bench;\n\nimport java.util.Map;\nimport java.util.HashMap;\n\n");
+    sb.append("public class Caller {\n\n");
+    for (int s = 0; s < SERVICES; s++) {
+      sb.append("  private final Svc").append(s).append(" svc").append(s).append(" = new Svc").append(s).append("();\n");
+    }
+    sb.append("  private final Map<String, Integer> counts = new HashMap<>();\n\n");
+    for (int m = 0; m < CALLER_METHODS; m++) {
+      int s = m % SERVICES;
+      sb.append("  public String call").append(m).append("(String in) {\n");
+      sb.append("    String a = svc").append(s).append(".work0(in, 1);\n");
+      sb.append("    String b = svc").append((s + 1) % SERVICES).append(".work1(a, 2);\n");
+      sb.append("    counts.put(a, b.length());\n");
+      sb.append("    counts.merge(b, 1, Integer::sum);\n");
+      sb.append("    String c = String.valueOf(counts.get(a));\n");
+      sb.append("    String d = c.concat(a).toUpperCase();\n");
+      sb.append("    log(d.substring(1));\n");
+      sb.append("    return d.isEmpty() ? a : b;\n");
+      sb.append("  }\n\n");
+    }
+    sb.append("  private void log(String s) {\n  }\n}\n");
+    Files.writeString(pkg.resolve("Caller.java"), sb.toString());
+    return root;
+  }
+
+  /**
+   * Graph with {@code methods} methods spread over classes of ten methods in 20 packages, and
+   * {@code calls} random call edges between them.
+   */
+  static GraphModel graph(int methods, int calls) {
+    GraphModel model = new GraphModel();
+    model.projectId = "bench";
+    model.schema = "gef:1.1";
+    List<String> ids = new ArrayList<>(methods);
+    for (int i = 0; i < methods; i++) {
+      String pkg = "com.acme.svc" + (i % 20) + ".core";
+      String cls = pkg + ".Type" + (i / 10);
+      String sig = "m" + i + "(java.lang.String,java.util.List<com.acme.model.Order>)";
+      GraphModel.MethodNode node = model.ensureMethod(cls + "#" + sig);
+      node.id = cls + "#" + sig;
+      node.className = cls;
+      node.methodName = "m" + i;
+      node.signature = sig;
+      node.packageName = pkg;
+      node.moduleName = "svc" + (i % 20);
+      node.visibility = i % 5 == 0 ? "private" : "public";
+      ids.add(node.id);
+    }
+    Random random = new Random(42);
+    for (int i = 0; i < calls; i++) {
+      model.addCall(ids.get(random.nextInt(methods)), ids.get(random.nextInt(methods)), null);
+    }
+    return model;
+  }
+
+  static List<String> signatures(int count) {
+    List<String> sigs = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      switch (i % 4) {
+        case 0:
+          sigs.add("process" + i + "(java.lang.String,int)");
+          break;
+        case 1:
+          sigs.add("handle" + i + "(java.util.Map<java.lang.String, com.acme.model.Order>):java.util.List<com.acme.model.Line>");
+          break;
+        case 2:
+          sigs.add("run" + i + "()");
+          break;
+        default:
+          sigs.add("load" + i + "(com.acme.svc.core.Repository$Query,long[]):com.acme.model.Result");
+          break;
+      }
+    }
+    return sigs;
+  }
+
+  static void deleteRecursively(Path root) throws IOException {
+    if (root == null || !Files.exists(root)) {
+      return;
+    }
+    try (Stream<Path> paths = Files.walk(root)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+    }
+  }
+}
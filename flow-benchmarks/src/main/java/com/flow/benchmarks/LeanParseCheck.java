@@ -0,0 +1,92 @@
+package com.flow.benchmarks;
+
+import com.flow.adapter.scanners.LeanParser;
+import com.flow.adapter.util.SignatureUtil;
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Checks that {@link LeanParser} sees the same declarations as a full parse (without comment
+ * attribution, which the lean parser leaves out too) for every {@code .java} file under the given
+ * roots: classes with their annotations, and methods with their annotations and signatures. With
+ * bodies, the method calls must match as well. Exits with status 1 and prints the first
+ * differences when they do not.
+ *
+ * <pre>
+ * java -cp flow-benchmarks/target/benchmarks.jar com.flow.benchmarks.LeanParseCheck &lt;srcRoot&gt;...
+ * </pre>
+ */
+public class LeanParseCheck {
+
+  private static final int MAX_REPORTED = 20;
+
+  public static void main(String[] args) throws IOException {
+    // comments are not attributed by the lean parser either, so they are not printed with nodes
+    JavaParser reference = new JavaParser(new ParserConfiguration().setAttributeComments(false));
+    LeanParser withoutBodies = LeanParser.withoutBodies();
+    LeanParser withBodies = LeanParser.withBodies();
+    int files = 0;
+    int stripped = 0;
+    int mismatches = 0;
+    for (String root : args) {
+      List<Path> sources;
+      try (Stream<Path> walk = Files.walk(Paths.get(root))) {
+        sources = walk.filter(p -> p.toString().endsWith(".java")).collect(Collectors.toList());
+      }
+      for (Path file : sources) {
+        String source = Files.readString(file);
+        ParseResult<CompilationUnit> result = reference.parse(source);
+        if (!result.isSuccessful() || result.getResult().isEmpty()) {
+          continue; // not valid Java to begin with
+        }
+        CompilationUnit full = result.getResult().get();
+        files++;
+        if (LeanParser.stripBodies(source) != source) {
+          stripped++;
+        }
+        List<String> expected = declarations(full);
+        List<String> expectedCalls = calls(full);
+        CompilationUnit lean = withoutBodies.parse(source);
+        CompilationUnit leanBodies = withBodies.parse(source);
+        if (!expected.equals(declarations(lean)) || !expected.equals(declarations(leanBodies))
+            || !expectedCalls.equals(calls(leanBodies))) {
+          if (++mismatches <= MAX_REPORTED) {
+            System.out.println("MISMATCH " + file);
+          }
+        }
+      }
+    }
+    System.out.printf("%d files (%d with bodies stripped), %d mismatches%n", files, stripped, mismatches);
+    System.exit(mismatches == 0 ? 0 : 1);
+  }
+
+  private static List<String> declarations(CompilationUnit cu) {
+    List<String> out = new ArrayList<>();
+    for (ClassOrInterfaceDeclaration cls : cu.findAll(ClassOrInterfaceDeclaration.class)) {
+      out.add(cls.getNameAsString() + " " + cls.getAnnotations());
+      for (MethodDeclaration md : cls.getMethods()) {
+        out.add("  " + md.getAnnotations() + " " + SignatureUtil.signatureOf(md));
+      }
+    }
+    return out;
+  }
+
+  private static List<String> calls(CompilationUnit cu) {
+    return cu.findAll(MethodCallExpr.class).stream()
+        .map(c -> c.getScope().map(Object::toString).orElse("") + "." + c.getNameAsString() + c.getArguments())
+        .collect(Collectors.toList());
+  }
+}
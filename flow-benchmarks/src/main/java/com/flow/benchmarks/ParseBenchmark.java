@@ -0,0 +1,59 @@
+package com.flow.benchmarks;
+
+import com.flow.adapter.scanners.LeanParser;
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parse throughput of {@link StaticJavaParser} on a generated service class of varying size, and
+ * of the plugins' {@link LeanParser} with and without method bodies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+
+  @Param({"10", "100"})
+  public int methods;
+
+  private String source;
+  private LeanParser lean;
+  private LeanParser leanWithBodies;
+
+  @Setup
+  public void setUp() {
+    source = Fixtures.serviceSource("com.acme.bench", "Service", methods);
+    lean = LeanParser.withoutBodies();
+    leanWithBodies = LeanParser.withBodies();
+  }
+
+  @Benchmark
+  public CompilationUnit parse() {
+    return StaticJavaParser.parse(source);
+  }
+
+  @Benchmark
+  public CompilationUnit parseLean() {
+    return lean.parse(source);
+  }
+
+  @Benchmark
+  public CompilationUnit parseLeanWithBodies() {
+    return leanWithBodies.parse(source);
+  }
+}
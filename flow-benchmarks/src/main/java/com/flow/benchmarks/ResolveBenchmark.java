@@ -0,0 +1,80 @@
+package com.flow.benchmarks;
+
+import com.flow.adapter.Model.GraphModel;
+import com.flow.adapter.scanners.JdkTypeSolver;
+import com.flow.adapter.scanners.MethodCallAnalyzer;
+import com.flow.adapter.scanners.ResolutionCache;
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost per call site of {@link MethodCallAnalyzer}: each invocation analyzes every method of a
+ * generated caller class, {@link Fixtures#CALLS} calls into project and JDK types. With
+ * {@code memo=none} every call goes through the symbol solver (whose own type caches are warm
+ * after the first iteration); with {@code memo=shared} the calls hit the {@link ResolutionCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResolveBenchmark {
+
+  @Param({"none", "shared"})
+  public String memo;
+
+  private Path root;
+  private CompilationUnit caller;
+  private List<MethodDeclaration> methods;
+  private ResolutionCache cache;
+
+  @Setup
+  public void setUp() throws Exception {
+    root = Fixtures.writeResolutionProject();
+    CombinedTypeSolver solver = new CombinedTypeSolver();
+    solver.add(new JdkTypeSolver());
+    solver.add(new JavaParserTypeSolver(root));
+    ParserConfiguration config = new ParserConfiguration().setSymbolResolver(new JavaSymbolSolver(solver));
+    caller = new JavaParser(config).parse(root.resolve("bench/Caller.java")).getResult().orElseThrow();
+    methods = caller.findAll(MethodDeclaration.class);
+    cache = "shared".equals(memo) ? new ResolutionCache() : null;
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    Fixtures.deleteRecursively(root);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(Fixtures.CALLS)
+  public GraphModel resolveCalls() {
+    GraphModel model = new GraphModel();
+    MethodCallAnalyzer analyzer = new MethodCallAnalyzer(cache, null, false);
+    for (MethodDeclaration md : methods) {
+      analyzer.analyze(model, caller, "bench.Caller", "bench", "bench", md);
+    }
+    return model;
+  }
+}
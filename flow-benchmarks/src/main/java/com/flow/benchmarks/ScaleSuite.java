@@ -0,0 +1,167 @@
+package com.flow.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flow.adapter.ScanCommand;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+/**
+ * End-to-end scale regression suite: for each tier it generates a {@link SyntheticCodebase}, runs
+ * {@link ScanCommand} on it in this JVM, and checks wall time and peak heap against the tier's
+ * budget. Exits with status 1 when any tier is over budget or produces an empty graph.
+ *
+ * <p>Peak heap is the sum of the heap pools' peak usage after a GC and a peak reset, which is an
+ * upper bound of the live-plus-garbage footprint the scan needed. Run it in a dedicated JVM (as the
+ * {@code scale} profile does) so nothing else shares the heap. A small tier, without budgets,
+ * runs as {@code ScaleTest} in every build.
+ */
+@Command(name = "scale-suite", mixinStandardHelpOptions = true,
+    description = "Scan generated codebases and enforce wall-time and peak-heap budgets.")
+public class ScaleSuite implements Callable<Integer> {
+
+  @Option(names = "--tiers", split = ",",
+      description = "classes:maxSeconds:maxHeapMb per tier (default: ${DEFAULT-VALUE}).")
+  private List<String> tiers = List.of("1000:120:1024", "10000:900:4096");
+  @Option(names = "--fan-out", description = "Cross-service calls per service method (default: ${DEFAULT-VALUE}).")
+  private int fanOut = 3;
+  @Option(names = "--threads", description = "Passed to scan --threads (default: available cores).")
+  private Integer threads;
+  @Option(names = "--work-dir", description = "Where codebases and outputs are written (default: a temp dir).")
+  private Path workDir;
+  @Option(names = "--keep", description = "Keep generated codebases and outputs.")
+  private boolean keep;
+
+  public static void main(String[] args) {
+    System.exit(new CommandLine(new ScaleSuite()).execute(args));
+  }
+
+  @Override
+  public Integer call() throws Exception {
+    Path root = workDir != null ? Files.createDirectories(workDir) : Files.createTempDirectory("flow-scale");
+    List<Result> results = new ArrayList<>();
+    try {
+      for (String tier : tiers) {
+        results.add(run(Tier.parse(tier), root));
+      }
+    } finally {
+      if (!keep && workDir == null) {
+        Fixtures.deleteRecursively(root);
+      }
+    }
+
+    System.out.println();
+    System.out.printf("%8s %10s %10s %10s %10s %8s %8s  %s%n",
+        "classes", "seconds", "budget", "peakMB", "budget", "nodes", "edges", "status");
+    boolean ok = true;
+    for (Result r : results) {
+      System.out.printf("%8d %10.1f %10d %10d %10d %8d %8d  %s%n", r.classes, r.seconds, r.tier.maxSeconds,
+          r.peakMb, r.tier.maxHeapMb, r.nodes, r.edges, r.failure != null ? "FAIL " + r.failure : "ok");
+      ok &= r.failure == null;
+    }
+    return ok ? 0 : 1;
+  }
+
+  private Result run(Tier tier, Path root) throws Exception {
+    Path dir = root.resolve("classes-" + tier.classes);
+    SyntheticCodebase codebase = new SyntheticCodebase(tier.classes, fanOut, tier.classes);
+    codebase.write(dir.resolve("src/main/java"), dir.resolve("src/main/resources"));
+    Path out = dir.resolve("flow.json");
+
+    List<String> args = new ArrayList<>(List.of("--src", dir.resolve("src/main/java").toString(),
+        "--config", dir.resolve("src/main/resources").toString(), "--out", out.toString(),
+        "--project", "synthetic-" + tier.classes));
+    if (threads != null) {
+      args.add("--threads");
+      args.add(threads.toString());
+    }
+
+    System.gc();
+    List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        pool.resetPeakUsage();
+        heapPools.add(pool);
+      }
+    }
+    long start = System.nanoTime();
+    int exit = new CommandLine(new ScanCommand()).execute(args.toArray(new String[0]));
+    double seconds = (System.nanoTime() - start) / 1e9;
+    long peak = 0;
+    for (MemoryPoolMXBean pool : heapPools) {
+      peak += pool.getPeakUsage().getUsed();
+    }
+
+    Result r = new Result(tier, codebase.classCount(), seconds, peak / (1024 * 1024));
+    if (exit != 0 || !Files.exists(out)) {
+      r.failure = "scan exited with " + exit;
+      return r;
+    }
+    JsonNode graph = new ObjectMapper().readTree(out.toFile());
+    r.nodes = graph.path("nodes").size();
+    r.edges = graph.path("edges").size();
+    Map<String, Integer> types = new TreeMap<>();
+    graph.path("nodes").forEach(n -> types.merge(n.path("type").asText(), 1, Integer::sum));
+    System.out.println("Tier " + tier.classes + ": " + types);
+
+    if (r.nodes == 0 || r.edges == 0) {
+      r.failure = "empty graph";
+    } else if (r.seconds > tier.maxSeconds) {
+      r.failure = "wall time over budget";
+    } else if (r.peakMb > tier.maxHeapMb) {
+      r.failure = "peak heap over budget";
+    }
+    return r;
+  }
+
+  private static class Tier {
+
+    final int classes;
+    final int maxSeconds;
+    final int maxHeapMb;
+
+    Tier(int classes, int maxSeconds, int maxHeapMb) {
+      this.classes = classes;
+      this.maxSeconds = maxSeconds;
+      this.maxHeapMb = maxHeapMb;
+    }
+
+    static Tier parse(String spec) {
+      String[] parts = spec.split(":");
+      if (parts.length != 3) {
+        throw new IllegalArgumentException("Tier must be classes:maxSeconds:maxHeapMb, got " + spec);
+      }
+      return new Tier(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+    }
+  }
+
+  private static class Result {
+
+    final Tier tier;
+    final int classes;
+    final double seconds;
+    final long peakMb;
+    int nodes;
+    int edges;
+    String failure;
+
+    Result(Tier tier, int classes, double seconds, long peakMb) {
+      this.tier = tier;
+      this.classes = classes;
+      this.seconds = seconds;
+      this.peakMb = peakMb;
+    }
+  }
+}
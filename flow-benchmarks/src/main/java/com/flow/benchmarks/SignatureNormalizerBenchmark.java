@@ -0,0 +1,64 @@
+package com.flow.benchmarks;
+
+import com.flow.adapter.Model.SignatureNormalizer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@link SignatureNormalizer#normalizeSignature} over a mix of simple, generic, nested-type and
+ * no-argument signatures: memoized (as the converter calls it), the hand-written scanner alone,
+ * and the pattern it replaces.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignatureNormalizerBenchmark {
+
+  private static final int SIGNATURES = 1024;
+
+  private List<String> signatures;
+
+  @Setup
+  public void setUp() {
+    signatures = Fixtures.signatures(SIGNATURES);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SIGNATURES)
+  public void normalizeSignature(Blackhole bh) {
+    for (String sig : signatures) {
+      bh.consume(SignatureNormalizer.normalizeSignature(sig));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SIGNATURES)
+  public void stripQualifiers(Blackhole bh) {
+    for (String sig : signatures) {
+      bh.consume(SignatureNormalizer.stripQualifiers(sig));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SIGNATURES)
+  public void normalizeSignatureWithPattern(Blackhole bh) {
+    for (String sig : signatures) {
+      bh.consume(SignatureNormalizer.normalizeSignatureWithPattern(sig));
+    }
+  }
+}
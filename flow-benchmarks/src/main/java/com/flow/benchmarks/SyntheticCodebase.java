@@ -0,0 +1,174 @@
+package com.flow.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Generates a Spring/Kafka source tree shaped like {@code sample/greens-order}, at any size. Each
+ * domain is four classes in {@code com.synth.s<service>.<domain>}:
+ *
+ * <ul>
+ *   <li>a {@code @RestController} with {@code @GetMapping}/{@code @PostMapping} handlers calling
+ *   the service,</li>
+ *   <li>a {@code @Service} whose public methods call private helpers, the domain repository,
+ *   {@code fanOut} methods of other services, and {@code kafkaTemplate.send},</li>
+ *   <li>a plain repository class,</li>
+ *   <li>a {@code @KafkaListener} consumer that calls back into a service.</li>
+ * </ul>
+ *
+ * Output is deterministic for a given seed. Spring and Kafka types are referenced but not
+ * generated, as in the sample, so their calls stay unresolved exactly as in real projects scanned
+ * without a classpath.
+ */
+public class SyntheticCodebase {
+
+  static final int CLASSES_PER_DOMAIN = 4;
+  private static final int DOMAINS_PER_SERVICE = 25;
+  private static final int SERVICE_METHODS = 6;
+  private static final int TOPICS = 50;
+
+  private final int domains;
+  private final int fanOut;
+  private final long seed;
+
+  /**
+   * @param classes total classes to generate, rounded up to whole domains
+   * @param fanOut  calls from each service method into other domains' services
+   */
+  public SyntheticCodebase(int classes, int fanOut, long seed) {
+    this.domains = Math.max(1, (classes + CLASSES_PER_DOMAIN - 1) / CLASSES_PER_DOMAIN);
+    this.fanOut = fanOut;
+    this.seed = seed;
+  }
+
+  public int classCount() {
+    return domains * CLASSES_PER_DOMAIN;
+  }
+
+  /**
+   * Writes the sources under {@code srcRoot} and a {@code flow.properties} under
+   * {@code configDir}.
+   */
+  public void write(Path srcRoot, Path configDir) throws IOException {
+    Random random = new Random(seed);
+    for (int d = 0; d < domains; d++) {
+      Path dir = Files.createDirectories(srcRoot.resolve(packageOf(d).replace('.', '/')));
+      String name = domainName(d);
+      Files.writeString(dir.resolve(name + "Controller.java"), controller(d));
+      Files.writeString(dir.resolve(name + "Service.java"), service(d, random));
+      Files.writeString(dir.resolve(name + "Repository.java"), repository(d));
+      Files.writeString(dir.resolve(name + "Consumer.java"), consumer(d, random));
+    }
+    Files.createDirectories(configDir);
+    StringBuilder props = new StringBuilder();
+    for (int t = 0; t < TOPICS; t++) {
+      props.append("topic").append(t).append(".name=synth.topic").append(t).append('\n');
+    }
+    Files.writeString(configDir.resolve("flow.properties"), props.toString());
+  }
+
+  private String controller(int d) {
+    String name = domainName(d);
+    StringBuilder sb = header(d);
+    sb.append("import org.springframework.web.bind.annotation.*;\n\n");
+    sb.append("@RestController\n@RequestMapping(\"/api/").append(name.toLowerCase()).append("\")\n");
+    sb.append("public class ").append(name).append("Controller {\n\n");
+    sb.append("  private final ").append(name).append("Service service = new ").append(name).append("Service();\n\n");
+    sb.append("  @GetMapping(\"/{id}\")\n");
+    sb.append("  public String get(@PathVariable String id) {\n");
+    sb.append("    return service.op0(id);\n  }\n\n");
+    sb.append("  @PostMapping(value = \"/{id}\", produces = \"application/json\")\n");
+    sb.append("  public String create(@PathVariable String id) {\n");
+    sb.append("    return service.op1(id);\n  }\n}\n");
+    return sb.toString();
+  }
+
+  private String service(int d, Random random) {
+    String name = domainName(d);
+    StringBuilder sb = header(d);
+    sb.append("import org.springframework.beans.factory.annotation.Autowired;\n");
+    sb.append("import org.springframework.kafka.core.KafkaTemplate;\n");
+    sb.append("import org.springframework.stereotype.Service;\n\n");
+    sb.append("@Service\npublic class ").append(name).append("Service {\n\n");
+    sb.append("  private final ").append(name).append("Repository repository = new ").append(name)
+        .append("Repository();\n\n");
+    sb.append("  @Autowired\n  private KafkaTemplate<String, String> kafkaTemplate;\n\n");
+    for (int m = 0; m < SERVICE_METHODS; m++) {
+      sb.append("  public String op").append(m).append("(String id) {\n");
+      sb.append("    validate(id);\n");
+      sb.append("    String value = repository.load(id);\n");
+      for (int f = 0; f < fanOut && domains > 1; f++) {
+        int target = random.nextInt(domains - 1);
+        target = target >= d ? target + 1 : target;
+        sb.append("    new ").append(packageOf(target)).append('.').append(domainName(target))
+            .append("Service().op").append(random.nextInt(SERVICE_METHODS)).append("(value);\n");
+      }
+      if (m % 2 == 0) {
+        sb.append("    kafkaTemplate.send(\"synth.topic").append(random.nextInt(TOPICS)).append("\", value);\n");
+      }
+      sb.append("    repository.save(id, value);\n");
+      sb.append("    return value;\n  }\n\n");
+    }
+    sb.append("  private void validate(String id) {\n");
+    sb.append("    if (id == null || id.isEmpty()) {\n");
+    sb.append("      throw new IllegalArgumentException(id);\n    }\n  }\n}\n");
+    return sb.toString();
+  }
+
+  private String repository(int d) {
+    String name = domainName(d);
+    StringBuilder sb = header(d);
+    sb.append("import java.util.HashMap;\nimport java.util.Map;\n\n");
+    sb.append("public class ").append(name).append("Repository {\n\n");
+    sb.append("  private final Map<String, String> rows = new HashMap<>();\n\n");
+    sb.append("  public String load(String id) {\n    return rows.getOrDefault(id, id);\n  }\n\n");
+    sb.append("  public void save(String id, String value) {\n    rows.put(id, value);\n  }\n}\n");
+    return sb.toString();
+  }
+
+  private String consumer(int d, Random random) {
+    String name = domainName(d);
+    StringBuilder sb = header(d);
+    sb.append("import org.springframework.kafka.annotation.KafkaListener;\n");
+    sb.append("import org.springframework.stereotype.Component;\n\n");
+    sb.append("@Component\npublic class ").append(name).append("Consumer {\n\n");
+    sb.append("  private final ").append(name).append("Service service = new ").append(name).append("Service();\n\n");
+    sb.append("  @KafkaListener(topics = {\"synth.topic").append(random.nextInt(TOPICS)).append("\"})\n");
+    sb.append("  public void onMessage(String payload) {\n");
+    sb.append("    service.op").append(SERVICE_METHODS - 1).append("(payload);\n  }\n}\n");
+    return sb.toString();
+  }
+
+  private StringBuilder header(int d) {
+    return new StringBuilder("package ").append(packageOf(d)).append(";\n\n");
+  }
+
+  private static String packageOf(int d) {
+    return "com.synth.s" + (d / DOMAINS_PER_SERVICE) + ".d" + d;
+  }
+
+  private static String domainName(int d) {
+    return "Domain" + d;
+  }
+
+  /**
+   * {@code SyntheticCodebase <outDir> [classes] [fanOut] [seed]} writes {@code src/main/java} and
+   * {@code src/main/resources} under {@code outDir}.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("usage: SyntheticCodebase <outDir> [classes=1000] [fanOut=3] [seed=1]");
+      System.exit(2);
+    }
+    Path out = Paths.get(args[0]);
+    int classes = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+    int fanOut = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+    long seed = args.length > 3 ? Long.parseLong(args[3]) : 1L;
+    SyntheticCodebase codebase = new SyntheticCodebase(classes, fanOut, seed);
+    codebase.write(out.resolve("src/main/java"), out.resolve("src/main/resources"));
+    System.out.println("Wrote " + codebase.classCount() + " classes to " + out.toAbsolutePath());
+  }
+}
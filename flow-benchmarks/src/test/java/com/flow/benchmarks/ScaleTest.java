@@ -0,0 +1,60 @@
+package com.flow.benchmarks;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flow.adapter.ScanCommand;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import picocli.CommandLine;
+
+/**
+ * The smallest tier of {@link ScaleSuite}, sized for every build: scans a generated codebase and
+ * checks the shape of the graph and that it does not depend on the number of threads. Only the
+ * core scanner runs here, as no plugins are on the test classpath. Time and heap budgets are left
+ * to the {@code scale} profile.
+ */
+class ScaleTest {
+
+  private static final int CLASSES = 100;
+
+  @TempDir
+  static Path dir;
+
+  @BeforeAll
+  static void generate() throws Exception {
+    new SyntheticCodebase(CLASSES, 3, CLASSES).write(dir.resolve("src/main/java"), dir.resolve("src/main/resources"));
+  }
+
+  @Test
+  void graphHasExpectedShape() throws Exception {
+    JsonNode graph = new ObjectMapper().readTree(scan(2, "shape.json"));
+    Map<String, Integer> nodes = new TreeMap<>();
+    graph.path("nodes").forEach(n -> nodes.merge(n.path("type").asText(), 1, Integer::sum));
+    Map<String, Integer> edges = new TreeMap<>();
+    graph.path("edges").forEach(e -> edges.merge(e.path("type").asText(), 1, Integer::sum));
+
+    assertEquals(Map.of("CLASS", 102, "METHOD", 278, "PRIVATE_METHOD", 25, "SERVICE", 3), nodes);
+    assertEquals(Map.of("BELONGS_TO", 102, "CALL", 1046, "DEFINES", 303), edges);
+  }
+
+  @Test
+  void outputDoesNotDependOnThreads() throws Exception {
+    assertArrayEquals(scan(1, "one.json"), scan(4, "four.json"));
+  }
+
+  private static byte[] scan(int threads, String out) throws Exception {
+    int exit = new CommandLine(new ScanCommand()).execute("--src", dir.resolve("src/main/java").toString(),
+        "--config", dir.resolve("src/main/resources").toString(), "--out", dir.resolve(out).toString(),
+        "--project", "synthetic-" + CLASSES, "--threads", String.valueOf(threads));
+    assertEquals(0, exit);
+    return Files.readAllBytes(dir.resolve(out));
+  }
+}
@@ -2,19 +2,52 @@ package com.flow.plugin.kafka;
 
 import com.flow.adapter.FlowPlugin;
 import com.flow.adapter.Model.GraphModel;
+import com.flow.adapter.Model.GraphWriter;
+import com.flow.adapter.diagnostics.Diagnostics;
+import com.flow.adapter.scanners.CompilationUnitIndex;
+import com.flow.adapter.scanners.SourceFilter;
 import com.flow.plugin.kafka.KafkaScanner;
 import com.flow.adapter.util.ConfigLoader;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.List;
 
 public class KafkaPlugin implements FlowPlugin {
+    private Diagnostics diagnostics = new Diagnostics();
+    private SourceFilter sourceFilter = SourceFilter.all();
+
+    @Override
+    public void useDiagnostics(Diagnostics diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+
+    @Override
+    public void useSourceFilter(SourceFilter filter) {
+        this.sourceFilter = filter;
+    }
+
     @Override
     public void enrich(GraphModel model, Path srcRoot, ConfigLoader config) {
         try {
-            new KafkaScanner(config).scanInto(model, srcRoot);
+            new KafkaScanner(config, diagnostics, sourceFilter).scanInto(model, srcRoot);
         } catch (IOException e) {
             throw new RuntimeException("Error scanning Kafka topics", e);
         }
     }
+
+    @Override
+    public void enrich(GraphModel model, CompilationUnitIndex units, ConfigLoader config) {
+        new KafkaScanner(config, diagnostics, sourceFilter).scanInto(model, units);
+    }
+
+    @Override
+    public void contribute(GraphWriter graph, CompilationUnitIndex units, ConfigLoader config) {
+        new KafkaScanner(config, diagnostics, sourceFilter).scanInto(graph, units);
+    }
+
+    @Override
+    public List<String> triggerTokens() {
+        return KafkaScanner.TRIGGER_TOKENS;
+    }
 }
@@ -1,9 +1,14 @@
 package com.flow.plugin.kafka;
 
-import com.flow.adapter.Model.GraphModel;
+import com.flow.adapter.Model.GraphWriter;
+import com.flow.adapter.diagnostics.Diagnostics;
+import com.flow.adapter.scanners.CompilationUnitIndex;
+import com.flow.adapter.scanners.LeanParser;
+import com.flow.adapter.scanners.SourceFilter;
+import com.flow.adapter.scanners.SourceWalker;
+import com.flow.adapter.scanners.TokenPrefilter;
 import com.flow.adapter.util.ConfigLoader;
 import com.flow.adapter.util.SignatureUtil;
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
@@ -11,10 +16,10 @@ import com.github.javaparser.ast.expr.AnnotationExpr;
 import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.ast.expr.MemberValuePair;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import org.slf4j.Logger;
@@ -25,28 +30,63 @@ public class KafkaScanner {
   private static final Logger logger = LoggerFactory.getLogger(KafkaScanner.class);
   private static final Set<String> ANN = new HashSet<>(Arrays.asList("KafkaListener", "Input", "Output"));
 
+  // the annotations in ANN and the template that sends are recognized by
+  public static final List<String> TRIGGER_TOKENS = List.of("KafkaListener", "Input", "Output", "kafkaTemplate");
+  private static final TokenPrefilter PREFILTER = TokenPrefilter.of(List.of(TRIGGER_TOKENS));
+
   private final ConfigLoader cfg;
+  private final Diagnostics diagnostics;
+  private final SourceFilter filter;
 
   public KafkaScanner(ConfigLoader cfg) {
+    this(cfg, new Diagnostics());
+  }
+
+  public KafkaScanner(ConfigLoader cfg, Diagnostics diagnostics) {
+    this(cfg, diagnostics, SourceFilter.all());
+  }
+
+  /**
+   * @param filter the scan's include and exclude globs, applied with the source root's
+   *               {@code .flowignore} when walking it
+   */
+  public KafkaScanner(ConfigLoader cfg, Diagnostics diagnostics, SourceFilter filter) {
     this.cfg = cfg;
+    this.diagnostics = diagnostics;
+    this.filter = filter;
   }
 
-  public void scanInto(GraphModel model, Path srcRoot) throws IOException {
-    try (java.util.stream.Stream<java.nio.file.Path> stream = Files.walk(srcRoot)) {
-      stream.filter(p -> p.toString().endsWith(".java")).forEach(p -> parseFile(model, p));
+  public void scanInto(GraphWriter model, Path srcRoot) throws IOException {
+    LeanParser parser = LeanParser.withBodies();
+    for (Path file : new SourceWalker(filter.withIgnoreFile(srcRoot), 1).list(srcRoot)) {
+      parseFile(model, parser, file);
     }
   }
 
-  private void parseFile(GraphModel model, Path file) {
+  public void scanInto(GraphWriter model, CompilationUnitIndex units) {
+    units.forEach((file, cu) -> processUnit(model, file, cu));
+  }
+
+  private void parseFile(GraphWriter model, LeanParser parser, Path file) {
+    try {
+      if (PREFILTER.match(file) == 0) {
+        return;
+      }
+      processUnit(model, file, parser.parse(file));
+    } catch (Exception e) {
+      failed(file, e);
+    }
+  }
+
+  private void processUnit(GraphWriter model, Path file, CompilationUnit cu) {
     try {
-      CompilationUnit cu = StaticJavaParser.parse(file);
       cu.findAll(ClassOrInterfaceDeclaration.class).forEach(cls -> processClass(model, cu, cls));
     } catch (Exception e) {
-      logger.warn("Kafka scanner failed for file {}", file, e);
+      failed(file, e);
     }
   }
 
-  private void processClass(GraphModel model, CompilationUnit cu, ClassOrInterfaceDeclaration cls) {
+  private void processClass(GraphWriter model, CompilationUnit cu, ClassOrInterfaceDeclaration cls) {
     String pkg = extractPackage(cu);
     String className = buildClassName(pkg, cls.getName().asString());
 
@@ -56,7 +96,7 @@ public class KafkaScanner {
     });
   }
 
-  private void processKafkaAnnotations(GraphModel model, MethodDeclaration md, String className) {
+  private void processKafkaAnnotations(GraphWriter model, MethodDeclaration md, String className) {
     findKafkaAnnotation(md).ifPresent(ann -> {
       String topic = extractTopic(ann);
       if (!topic.isEmpty()) {
@@ -71,7 +111,7 @@ public class KafkaScanner {
         .findFirst();
   }
 
-  private void processKafkaTemplateCalls(GraphModel model, MethodDeclaration md, String className) {
+  private void processKafkaTemplateCalls(GraphWriter model, MethodDeclaration md, String className) {
     md.findAll(com.github.javaparser.ast.expr.MethodCallExpr.class).stream()
         .filter(this::isKafkaTemplateSend)
         .forEach(mce -> processKafkaSend(model, mce, md, className));
@@ -83,7 +123,7 @@ public class KafkaScanner {
         && mce.getScope().get().toString().contains("kafkaTemplate");
   }
 
-  private void processKafkaSend(GraphModel model, com.github.javaparser.ast.expr.MethodCallExpr mce,
+  private void processKafkaSend(GraphWriter model, com.github.javaparser.ast.expr.MethodCallExpr mce,
                                  MethodDeclaration md, String className) {
     if (mce.getArguments().isEmpty()) return;
 
@@ -95,13 +135,23 @@ public class KafkaScanner {
     }
   }
 
-  private void addMessagingEdge(GraphModel model, MethodDeclaration md, String className,
+  private void addMessagingEdge(GraphWriter model, MethodDeclaration md, String className,
                                  String topic, String kind) {
     String sig = SignatureUtil.signatureOf(md);
     String methodId = className + "#" + sig;
-    GraphModel.TopicNode topicNode = model.ensureTopic(topic);
-    model.addMessagingEdge(methodId, topicNode.id, kind);
-    logger.info("Added Kafka {} edge: {} -> {}", kind, methodId, topicNode.id);
+    String topicId = model.addTopic(topic);
+    model.addMessagingEdge(methodId, topicId, kind);
+    diagnostics.report("kafka.edge", kind, () -> methodId + " -> " + topicId);
+    if (diagnostics.isVerbose()) {
+      logger.info("Added Kafka {} edge: {} -> {}", kind, methodId, topicId);
+    }
+  }
+
+  private void failed(Path file, Exception e) {
+    diagnostics.report("plugin.failed", "KafkaScanner", () -> file + ": " + e);
+    if (diagnostics.isVerbose()) {
+      logger.warn("Kafka scanner failed for file {}", file, e);
+    }
   }
 
   private String determineKind(String annName) {
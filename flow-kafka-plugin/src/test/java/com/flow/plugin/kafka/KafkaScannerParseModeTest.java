@@ -0,0 +1,153 @@
+package com.flow.plugin.kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.flow.adapter.Model.GraphModel;
+import com.flow.adapter.scanners.CompilationUnitIndex;
+import com.flow.adapter.scanners.SourceFilter;
+import com.flow.adapter.scanners.SourceWalker;
+import com.flow.adapter.util.ConfigLoader;
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ast.CompilationUnit;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * The Kafka scanner parses a source root itself with the lean parser, and otherwise works on units
+ * the core scanner parsed in full. Both must find the same topics and edges.
+ */
+class KafkaScannerParseModeTest {
+
+  private static final Path SAMPLE = Paths.get("../sample/greens-order/src/main");
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void leanAndFullParsesFindSameEdgesInSample() throws Exception {
+    assertSameEdges(SAMPLE.resolve("java"), new ConfigLoader(SAMPLE.resolve("resources")));
+  }
+
+  @Test
+  void leanAndFullParsesFindSameEdgesInEdgeCases() throws Exception {
+    Path src = dir.resolve("java");
+    Path pkg = Files.createDirectories(src.resolve("com/example/events"));
+    Files.writeString(pkg.resolve("Events.java"), EVENTS);
+    Files.writeString(pkg.resolve("Plain.java"), PLAIN);
+    Path config = Files.createDirectories(dir.resolve("resources"));
+    Files.writeString(config.resolve("flow.properties"), "events.topic=events.in\n");
+
+    assertSameEdges(src, new ConfigLoader(config));
+  }
+
+  private static void assertSameEdges(Path srcRoot, ConfigLoader config) throws Exception {
+    GraphModel lean = new GraphModel();
+    new KafkaScanner(config).scanInto(lean, srcRoot);
+
+    JavaParser parser = new JavaParser();
+    CompilationUnitIndex units = new CompilationUnitIndex(srcRoot);
+    for (Path file : new SourceWalker(SourceFilter.all(), 1).list(srcRoot)) {
+      ParseResult<CompilationUnit> result = parser.parse(file);
+      assertTrue(result.isSuccessful(), () -> file + ": " + result.getProblems());
+      units.add(file, result.getResult().orElseThrow());
+    }
+    GraphModel full = new GraphModel();
+    new KafkaScanner(config).scanInto(full, units);
+
+    assertFalse(edges(full).isEmpty());
+    assertEquals(new ArrayList<>(full.topics.keySet()), new ArrayList<>(lean.topics.keySet()));
+    assertEquals(edges(full), edges(lean));
+  }
+
+  private static List<String> edges(GraphModel model) {
+    List<String> edges = new ArrayList<>();
+    model.messaging.forEach(e -> edges.add(e.from + " -" + e.kind + "-> " + e.to));
+    return edges;
+  }
+
+  private static final String EVENTS = """
+      package com.example.events;
+
+      import java.util.List;
+      import java.util.Map;
+      import org.springframework.kafka.annotation.KafkaListener;
+      import org.springframework.kafka.core.KafkaTemplate;
+
+      /**
+       * Not an edge: kafkaTemplate.send("in-javadoc", x).
+       */
+      public class Events {
+
+        private final KafkaTemplate<String, String> kafkaTemplate;
+
+        Events(KafkaTemplate<String, String> kafkaTemplate) {
+          this.kafkaTemplate = kafkaTemplate; // kafkaTemplate.send("in-comment", x)
+        }
+
+        @KafkaListener(topics = "${events.topic}", groupId = "events")
+        public void onEvent(String payload) {
+          publish(List.of(payload));
+        }
+
+        @KafkaListener(topics = {"audit", "audit.dlq"})
+        public void onAudit(Map<String, List<String>> batch) {
+          batch.forEach((key, values) -> kafkaTemplate.send("audit.out", key));
+        }
+
+        @KafkaListener("single")
+        public void onSingle(String payload) {
+        }
+
+        public void publish(List<String> payloads) {
+          for (String p : payloads) {
+            if (p.isEmpty()) {
+              continue;
+            }
+            kafkaTemplate.send("events.out", p);
+          }
+          String block = "{ not code: kafkaTemplate.send(\\"in-string\\", x) }";
+          Runnable r = new Runnable() {
+            @Override
+            public void run() {
+              kafkaTemplate.send("anonymous.out", block);
+            }
+          };
+          r.run();
+        }
+
+        static class Relay<T extends Comparable<T>> {
+
+          KafkaTemplate<String, T> kafkaTemplate;
+
+          @Output("relay.out")
+          T[] relay(T... values) {
+            kafkaTemplate.send("relay.copy", values[0]);
+            return values;
+          }
+
+          @Input("relay.in")
+          void receive(T value) {
+          }
+        }
+      }
+      """;
+
+  private static final String PLAIN = """
+      package com.example.events;
+
+      public class Plain {
+
+        public int add(int a, int b) {
+          return a + b;
+        }
+      }
+      """;
+}
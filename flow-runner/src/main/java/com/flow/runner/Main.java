@@ -6,7 +6,7 @@ import picocli.CommandLine;
 import picocli.CommandLine.Command;
 
 @Command(name = "flow-adapter", mixinStandardHelpOptions = true, version = "0.3.0", subcommands = {
-    ScanCommand.class})
+    ScanCommand.class, ServeCommand.class})
 public class Main implements Callable<Integer> {
 
   public static void main(String[] a) {
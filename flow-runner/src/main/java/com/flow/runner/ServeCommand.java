@@ -0,0 +1,248 @@
+package com.flow.runner;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.flow.adapter.Model.CompactGraph;
+import com.flow.adapter.ScanCommand;
+import com.flow.adapter.cache.ScanCache;
+import com.flow.adapter.classpath.JarIndexStore;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+/**
+ * Keeps a JVM running and scans on request, so repeated scans skip JVM start-up and JIT warm-up
+ * and reuse the per-file results of the previous scan of the same project.
+ *
+ * <p>What stays warm between requests is process-wide: the per-file results in {@code caches},
+ * the JDK class map of {@code JdkTypeSolver} and the jar symbol indexes of {@code JarIndexStore},
+ * whose open jars are closed when a jar is replaced and when the server stops. The symbol solvers
+ * themselves are built per request. Their source solver indexes the current sources, and
+ * JavaParser's solver caches are confined to the scan's worker threads, so they cannot be reused
+ * safely by a later scan.
+ *
+ * <p>{@code POST /scan} takes {@code {"args": [...]}} with the same arguments as {@code scan}.
+ * With {@code --out} the graph is written there and the response reports the path; without it
+ * the graph is the response body. Relative paths are resolved against the server's working
+ * directory. Scans of different source roots run concurrently, scans of the same root one after
+ * another. {@code GET /health} answers once the server is up.
+ *
+ * <p>Loopback alone does not keep other local software out: a web page in the user's browser can
+ * post to it. A scan request must therefore carry the token printed at start-up in an
+ * {@code Authorization: Bearer} header and a {@code Content-Type} of {@code application/json},
+ * which a browser only sends cross-origin after a preflight this server never answers, and
+ * requests with an {@code Origin} header are refused outright.
+ */
+@Command(name = "serve", description = "Run a local HTTP server that scans on request with warm caches.")
+public class ServeCommand implements Callable<Integer> {
+
+  private static final Logger logger = LoggerFactory.getLogger(ServeCommand.class);
+  private static final ObjectMapper mapper = new ObjectMapper();
+
+  @Option(names = "--port", description = "Port to listen on, bound to the loopback interface (default: 7777).")
+  private int port = 7777;
+  @Option(names = "--threads", description = "Scan requests handled concurrently (default: 2).")
+  private int threads = 2;
+  @Option(names = "--max-projects", description = "Projects whose scan results are kept in memory (default: 8).")
+  private int maxProjects = 8;
+
+  private final Map<String, ScanCache> caches = Collections.synchronizedMap(
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ScanCache> eldest) {
+          return size() > maxProjects;
+        }
+      });
+  // source roots with a scan running or waiting; guarded by itself
+  private final Map<Path, ProjectLock> locks = new HashMap<>();
+  private final String token = newToken();
+
+  @Override
+  public Integer call() throws Exception {
+    HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+    server.setExecutor(Executors.newFixedThreadPool(Math.max(1, threads)));
+    server.createContext("/health", this::health);
+    server.createContext("/scan", this::scan);
+    server.start();
+    Runtime.getRuntime().addShutdownHook(new Thread(JarIndexStore::closeAll));
+    System.out.println("Serving scans on http://" + server.getAddress().getHostString() + ":"
+        + server.getAddress().getPort());
+    System.out.println("Authorization: Bearer " + token);
+    new CountDownLatch(1).await(); // until the process is stopped
+    return 0;
+  }
+
+  private void health(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      respondJson(exchange, 200, mapper.createObjectNode().put("status", "ok"));
+    }
+  }
+
+  private void scan(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      if (!"POST".equals(exchange.getRequestMethod())) {
+        respondError(exchange, 405, "Use POST");
+        return;
+      }
+      if (exchange.getRequestHeaders().containsKey("Origin")) {
+        respondError(exchange, 403, "Requests from web pages are not accepted");
+        return;
+      }
+      if (!authorized(exchange.getRequestHeaders().getFirst("Authorization"))) {
+        respondError(exchange, 401, "Missing or wrong token; use the one printed at start-up");
+        return;
+      }
+      if (!isJson(exchange.getRequestHeaders().getFirst("Content-Type"))) {
+        respondError(exchange, 415, "Use Content-Type: application/json");
+        return;
+      }
+      ScanCommand command = new ScanCommand().withSharedCaches(caches);
+      try {
+        new CommandLine(command).parseArgs(readArgs(exchange.getRequestBody()));
+        if (command.isWatch() || command.isMultiProject()) {
+          throw new IllegalArgumentException("serve scans one project per request, without --watch");
+        }
+        command.validate();
+      } catch (CommandLine.ParameterException | IllegalArgumentException | JsonProcessingException e) {
+        respondError(exchange, 400, e.getMessage());
+        return;
+      }
+
+      long start = System.nanoTime();
+      Path srcRoot = command.getSrcRoot();
+      ProjectLock lock = lock(srcRoot);
+      try {
+        if (command.hasOut()) {
+          command.execute();
+          respondJson(exchange, 200, mapper.createObjectNode()
+              .put("out", command.getOutPath().toAbsolutePath().toString())
+              .put("millis", (System.nanoTime() - start) / 1_000_000));
+        } else {
+          CompactGraph graph = command.scanGraph();
+          // exported in full before the status goes out, so a failing export can still answer 500
+          ByteArrayOutputStream body = new ByteArrayOutputStream();
+          command.export(graph, body);
+          exchange.getResponseHeaders().set("Content-Type",
+              "bin".equals(command.getFormat()) ? "application/octet-stream" : "application/json");
+          exchange.sendResponseHeaders(200, body.size());
+          try (OutputStream out = exchange.getResponseBody()) {
+            body.writeTo(out);
+          }
+        }
+      } catch (IllegalArgumentException e) {
+        respondError(exchange, 400, e.getMessage());
+      } catch (Exception e) {
+        logger.warn("Scan of {} failed", command.getSrcRoot(), e);
+        // once the status is out, closing the exchange is all that is left to do
+        if (exchange.getResponseCode() == -1) {
+          respondError(exchange, 500, String.valueOf(e.getMessage()));
+        }
+      } finally {
+        unlock(srcRoot, lock);
+      }
+    }
+  }
+
+  /**
+   * Takes the lock of {@code srcRoot}, creating it for the first request in flight for that root.
+   */
+  private ProjectLock lock(Path srcRoot) {
+    ProjectLock lock;
+    synchronized (locks) {
+      lock = locks.computeIfAbsent(srcRoot, k -> new ProjectLock());
+      lock.users++;
+    }
+    lock.lock.lock();
+    return lock;
+  }
+
+  /**
+   * Releases the lock of {@code srcRoot} and drops it once no request holds or waits for it, so
+   * there are never more locks than requests in flight.
+   */
+  private void unlock(Path srcRoot, ProjectLock lock) {
+    lock.lock.unlock();
+    synchronized (locks) {
+      if (--lock.users == 0) {
+        locks.remove(srcRoot);
+      }
+    }
+  }
+
+  private boolean authorized(String header) {
+    String prefix = "Bearer ";
+    if (header == null || !header.startsWith(prefix)) {
+      return false;
+    }
+    return MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+        header.substring(prefix.length()).strip().getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static boolean isJson(String contentType) {
+    return contentType != null
+        && contentType.split(";", 2)[0].strip().equalsIgnoreCase("application/json");
+  }
+
+  private static String newToken() {
+    byte[] bytes = new byte[24];
+    new SecureRandom().nextBytes(bytes);
+    return HexFormat.of().formatHex(bytes);
+  }
+
+  private static String[] readArgs(InputStream body) throws IOException {
+    JsonNode args = mapper.readTree(body).path("args");
+    if (!args.isArray()) {
+      throw new IllegalArgumentException("Expected a JSON body {\"args\": [...]}");
+    }
+    List<String> list = new ArrayList<>();
+    args.forEach(a -> list.add(a.asText()));
+    return list.toArray(new String[0]);
+  }
+
+  private static void respondError(HttpExchange exchange, int status, String message) throws IOException {
+    respondJson(exchange, status, mapper.createObjectNode().put("error", message));
+  }
+
+  private static void respondJson(HttpExchange exchange, int status, ObjectNode body) throws IOException {
+    byte[] bytes = mapper.writeValueAsString(body).getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  private static final class ProjectLock {
+
+    final ReentrantLock lock = new ReentrantLock();
+    // requests holding or waiting for the lock; guarded by the locks map
+    int users;
+  }
+}
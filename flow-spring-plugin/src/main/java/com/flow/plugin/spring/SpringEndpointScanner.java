@@ -1,16 +1,20 @@
 package com.flow.plugin.spring;
 
-import com.flow.adapter.Model.GraphModel;
+import com.flow.adapter.Model.GraphWriter;
+import com.flow.adapter.diagnostics.Diagnostics;
+import com.flow.adapter.scanners.CompilationUnitIndex;
+import com.flow.adapter.scanners.LeanParser;
+import com.flow.adapter.scanners.SourceFilter;
+import com.flow.adapter.scanners.SourceWalker;
+import com.flow.adapter.scanners.TokenPrefilter;
 import com.flow.adapter.util.ConfigLoader;
 import com.flow.adapter.util.SignatureUtil;
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.expr.AnnotationExpr;
 import com.github.javaparser.ast.expr.MemberValuePair;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -28,21 +32,56 @@ public class SpringEndpointScanner {
   private static final Set<String> ANN = new HashSet<>(
       Arrays.asList("GetMapping", "PostMapping", "PutMapping", "DeleteMapping", "PatchMapping",
           "RequestMapping"));
+  // every annotation in ANN contains it; files without one declare no endpoints
+  public static final List<String> TRIGGER_TOKENS = List.of("Mapping");
+  private static final TokenPrefilter PREFILTER = TokenPrefilter.of(List.of(TRIGGER_TOKENS));
+
   private final ConfigLoader cfg;
+  private final Diagnostics diagnostics;
+  private final SourceFilter filter;
 
   public SpringEndpointScanner(ConfigLoader cfg) {
+    this(cfg, new Diagnostics());
+  }
+
+  public SpringEndpointScanner(ConfigLoader cfg, Diagnostics diagnostics) {
+    this(cfg, diagnostics, SourceFilter.all());
+  }
+
+  /**
+   * @param filter the scan's include and exclude globs, applied with the source root's
+   *               {@code .flowignore} when walking it
+   */
+  public SpringEndpointScanner(ConfigLoader cfg, Diagnostics diagnostics, SourceFilter filter) {
     this.cfg = cfg;
+    this.diagnostics = diagnostics;
+    this.filter = filter;
+  }
+
+  public void scanInto(GraphWriter model, Path srcRoot) throws IOException {
+    LeanParser parser = LeanParser.withoutBodies();
+    for (Path file : new SourceWalker(filter.withIgnoreFile(srcRoot), 1).list(srcRoot)) {
+      parseFile(model, parser, file);
+    }
   }
 
-  public void scanInto(GraphModel model, Path srcRoot) throws IOException {
-    try (java.util.stream.Stream<java.nio.file.Path> stream = Files.walk(srcRoot)) {
-      stream.filter(p -> p.toString().endsWith(".java")).forEach(p -> parseFile(model, p));
+  public void scanInto(GraphWriter model, CompilationUnitIndex units) {
+    units.forEach((file, cu) -> processUnit(model, file, cu));
+  }
+
+  private void parseFile(GraphWriter model, LeanParser parser, Path file) {
+    try {
+      if (PREFILTER.match(file) == 0) {
+        return;
+      }
+      processUnit(model, file, parser.parse(file));
+    } catch (Exception e) {
+      failed(file, e);
     }
   }
 
-  private void parseFile(GraphModel model, Path file) {
+  private void processUnit(GraphWriter model, Path file, CompilationUnit cu) {
     try {
-      CompilationUnit cu = StaticJavaParser.parse(file);
       cu.findAll(ClassOrInterfaceDeclaration.class).forEach(cls -> {
         String base = extractPath(cls.getAnnotations());
         for (MethodDeclaration md : cls.getMethods()) {
@@ -55,10 +94,6 @@ public class SpringEndpointScanner {
           String mpath = extractPath(md.getAnnotations());
           String path = normalize(base, mpath);
           String eid = "endpoint:" + http + " " + path;
-          GraphModel.EndpointNode ep = model.ensureEndpoint(eid);
-          ep.id = eid;
-          ep.httpMethod = http;
-          ep.path = path;
           // Extract produces/consumes from method annotations first, then fall back to class annotations
           List<String> produces = extractMedia(md.getAnnotations());
           if (produces == null || produces.isEmpty()) {
@@ -68,20 +103,25 @@ public class SpringEndpointScanner {
           if (consumes == null || consumes.isEmpty()) {
             consumes = extractConsumes(cls.getAnnotations());
           }
-          ep.produces = (produces == null || produces.isEmpty()) ? null : produces;
-          ep.consumes = (consumes == null || consumes.isEmpty()) ? null : consumes;
+          model.addEndpoint(eid, http, path,
+              (produces == null || produces.isEmpty()) ? null : produces,
+              (consumes == null || consumes.isEmpty()) ? null : consumes);
           String pkg = cu.getPackageDeclaration().map(pd -> pd.getName().toString()).orElse("");
           String clsName =
               pkg.isEmpty() ? cls.getName().asString() : pkg + "." + cls.getName().asString();
           String sig = SignatureUtil.signatureOf(md);
           String mid = clsName + "#" + sig;
-          GraphModel.EndpointEdge edge = new GraphModel.EndpointEdge();
-          edge.fromEndpoint = eid;
-          edge.toMethod = mid;
-          model.endpointEdges.add(edge);
+          model.addEndpointEdge(eid, mid);
         }
       });
     } catch (Exception e) {
+      failed(file, e);
+    }
+  }
+
+  private void failed(Path file, Exception e) {
+    diagnostics.report("plugin.failed", "SpringEndpointScanner", () -> file + ": " + e);
+    if (diagnostics.isVerbose()) {
       logger.warn("Endpoint scanning failed for file {}", file, e);
     }
   }